@@ -0,0 +1,158 @@
+package com.maroontress.clione;
+
+import java.util.Collection;
+import java.util.Set;
+
+import com.maroontress.clione.impl.DirectiveName;
+
+/**
+    The dialect of C that the {@link LexicalParser} object reads.
+
+    <p>The dialect consists of the reserved words, whether the trigraph
+    sequences are replaced, whether the digraph sequences are recognized,
+    and the names of the preprocessing directives. The parser with the
+    dialect shares its sets and the tables that the dialect selects, rather
+    than copying or building them, so that it is created in constant time.
+    Each {@code with} method returns a new dialect that differs from this
+    dialect only in the specified property.</p>
+
+    <p>The directive names are limited to the ones in {@link
+    Keywords#C23_PP_DIRECTIVE_NAMES} and the GNU extensions {@code
+    include_next}, {@code import}, and {@code ident}. The parser returns the
+    other names following the number sign as the identifiers.</p>
+
+    <p>Note that the {@link Dialect} object is an immutable object, which
+    can be shared across threads.</p>
+*/
+public final class Dialect {
+
+    /**
+        The dialect of C11, with which the other factory methods of {@link
+        LexicalParser} create the parser.
+
+        <p>It has the reserved words {@link Keywords#C11}, the trigraph and
+        digraph sequences, and the directive names {@link
+        Keywords#PP_DIRECTIVE_NAMES}.</p>
+    */
+    public static final Dialect C11 = new Dialect(Keywords.C11, true, true,
+            Keywords.PP_DIRECTIVE_NAMES);
+
+    /**
+        The dialect of C23.
+
+        <p>It has the reserved words {@link Keywords#C23}, the digraph
+        sequences, and the directive names {@link
+        Keywords#C23_PP_DIRECTIVE_NAMES}. It does not have the trigraph
+        sequences, which C23 has removed.</p>
+    */
+    public static final Dialect C23 = new Dialect(Keywords.C23, false, true,
+            Keywords.C23_PP_DIRECTIVE_NAMES);
+
+    private final Set<String> reservedWords;
+    private final boolean trigraphs;
+    private final boolean digraphs;
+    private final Set<String> directiveNames;
+
+    private Dialect(Set<String> reservedWords, boolean trigraphs,
+                    boolean digraphs, Set<String> directiveNames) {
+        this.reservedWords = reservedWords;
+        this.trigraphs = trigraphs;
+        this.digraphs = digraphs;
+        this.directiveNames = directiveNames;
+    }
+
+    /**
+        Returns the unmodifiable {@link Set} containing the reserved words.
+
+        @return The unmodifiable {@link Set} containing the reserved words.
+    */
+    public Set<String> getReservedWords() {
+        return reservedWords;
+    }
+
+    /**
+        Returns a new dialect with the specified reserved words.
+
+        @param newReservedWords The collection that contains reserved words.
+            Note that this method copies the collection, so changes to the
+            collection do not affect the new dialect.
+        @return The new dialect.
+    */
+    public Dialect withReservedWords(Collection<String> newReservedWords) {
+        return new Dialect(Set.copyOf(newReservedWords), trigraphs, digraphs,
+                directiveNames);
+    }
+
+    /**
+        Returns whether the parser replaces the trigraph sequences.
+
+        @return {@code true} if the parser replaces the trigraph sequences.
+    */
+    public boolean hasTrigraphs() {
+        return trigraphs;
+    }
+
+    /**
+        Returns a new dialect with or without the trigraph sequences.
+
+        @param newTrigraphs Whether the parser replaces the trigraph
+            sequences.
+        @return The new dialect.
+    */
+    public Dialect withTrigraphs(boolean newTrigraphs) {
+        return new Dialect(reservedWords, newTrigraphs, digraphs,
+                directiveNames);
+    }
+
+    /**
+        Returns whether the parser recognizes the digraph sequences.
+
+        @return {@code true} if the parser recognizes the digraph sequences.
+    */
+    public boolean hasDigraphs() {
+        return digraphs;
+    }
+
+    /**
+        Returns a new dialect with or without the digraph sequences.
+
+        @param newDigraphs Whether the parser recognizes the digraph
+            sequences.
+        @return The new dialect.
+    */
+    public Dialect withDigraphs(boolean newDigraphs) {
+        return new Dialect(reservedWords, trigraphs, newDigraphs,
+                directiveNames);
+    }
+
+    /**
+        Returns the unmodifiable {@link Set} containing the names of the
+        preprocessing directives.
+
+        @return The unmodifiable {@link Set} containing the directive names.
+    */
+    public Set<String> getDirectiveNames() {
+        return directiveNames;
+    }
+
+    /**
+        Returns a new dialect with the specified directive names.
+
+        @param newDirectiveNames The collection that contains the directive
+            names. Note that this method copies the collection, so changes to
+            the collection do not affect the new dialect.
+        @return The new dialect.
+        @throws IllegalArgumentException If the collection contains the name
+            that the parser does not support.
+    */
+    public Dialect withDirectiveNames(Collection<String> newDirectiveNames) {
+        var names = Set.copyOf(newDirectiveNames);
+        for (var n : names) {
+            if (DirectiveName.of(n) == null) {
+                throw new IllegalArgumentException(
+                        "unsupported directive name: " + n);
+            }
+        }
+        return new Dialect(reservedWords, trigraphs, digraphs, names);
+    }
+}
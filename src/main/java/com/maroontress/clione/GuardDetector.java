@@ -0,0 +1,192 @@
+package com.maroontress.clione;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.maroontress.clione.impl.DirectiveName;
+
+/**
+    The detector of the include guard and {@code #pragma once} of a header
+    file.
+
+    <p>The detector receives all the tokens of the file, in order, from the
+    {@link LexicalParser}. The file has the include guard if it has the
+    following form, where only delimiters and comments can precede the
+    first directive or follow the last one:</p>
+
+    <pre>
+    #ifndef X  (or #if !defined X, or #if !defined(X))
+    ...
+    #endif</pre>
+
+    <p>The {@code #endif} must match the first directive, and there must be
+    no {@code #elif} or {@code #else} that matches it. Once such a file has
+    been included, including it again while the macro {@code X} is defined
+    has no effect.</p>
+*/
+public final class GuardDetector {
+
+    private State state = State.START;
+    private String guard;
+    private int depth;
+    private boolean pragmaOnce;
+
+    /**
+        Creates a new instance.
+    */
+    public GuardDetector() {
+    }
+
+    /**
+        Updates this detector with the next token of the file.
+
+        @param token The token.
+    */
+    public void accept(Token token) {
+        if (Tokens.isDelimiterOrComment(token)) {
+            return;
+        }
+        if (!token.isType(TokenType.DIRECTIVE)) {
+            if (state != State.INSIDE) {
+                state = State.NONE;
+            }
+            return;
+        }
+        var list = significantChildren(token);
+        var name = list.isEmpty()
+                ? null
+                : DirectiveName.find(list.get(0));
+        if (name == DirectiveName.PRAGMA
+                && list.size() == 2 && list.get(1).isValue("once")
+                && isAtFileLevel()) {
+            pragmaOnce = true;
+            return;
+        }
+        switch (state) {
+        case START:
+            guard = (name == null)
+                    ? null
+                    : findGuard(name, list.subList(1, list.size()));
+            if (guard != null) {
+                state = State.INSIDE;
+                depth = 1;
+                break;
+            }
+            state = State.NONE;
+            updateDepth(name);
+            break;
+        case INSIDE:
+            updateDepth(name);
+            if (depth == 0) {
+                state = State.AFTER;
+            } else if (depth == 1 && (name == DirectiveName.ELIF
+                    || name == DirectiveName.ELIFDEF
+                    || name == DirectiveName.ELIFNDEF
+                    || name == DirectiveName.ELSE)) {
+                state = State.NONE;
+            }
+            break;
+        default:
+            state = State.NONE;
+            updateDepth(name);
+            break;
+        }
+    }
+
+    /**
+        Returns whether the directive that this detector receives next is
+        not nested in any conditional directive other than the include
+        guard.
+
+        @return {@code true} if the directive is at the file level.
+    */
+    private boolean isAtFileLevel() {
+        return depth == 0 || (depth == 1 && state == State.INSIDE);
+    }
+
+    private void updateDepth(DirectiveName name) {
+        if (name == DirectiveName.IF
+                || name == DirectiveName.IFDEF
+                || name == DirectiveName.IFNDEF) {
+            ++depth;
+        } else if (name == DirectiveName.ENDIF && depth > 0) {
+            --depth;
+        }
+    }
+
+    /**
+        Returns the name of the macro of the include guard.
+
+        <p>This method must be invoked after this detector has received all
+        the tokens of the file.</p>
+
+        @return The name of the macro, or {@link Optional#empty()} if the
+            file does not have the include guard.
+    */
+    public Optional<String> getGuardMacro() {
+        return (state == State.AFTER)
+                ? Optional.of(guard)
+                : Optional.empty();
+    }
+
+    /**
+        Returns whether the file has the {@code #pragma once} directive.
+
+        <p>This method ignores the {@code #pragma once} directive nested in
+        any conditional directive other than the {@code #ifndef} (or
+        equivalent) of the include guard.</p>
+
+        @return {@code true} if the file has the directive.
+    */
+    public boolean hasPragmaOnce() {
+        return pragmaOnce;
+    }
+
+    private static List<Token> significantChildren(Token directive) {
+        var list = new ArrayList<Token>();
+        for (var t : directive.getChildren()) {
+            if (Tokens.isDelimiterOrComment(t)
+                    || t.isType(TokenType.DIRECTIVE_END)) {
+                continue;
+            }
+            if (list.isEmpty() && !t.isType(TokenType.DIRECTIVE_NAME)) {
+                break;
+            }
+            list.add(t);
+        }
+        return list;
+    }
+
+    private static String findGuard(DirectiveName name, List<Token> list) {
+        if (name == DirectiveName.IFNDEF) {
+            return (list.size() == 1) ? toMacroName(list.get(0)) : null;
+        }
+        if (name != DirectiveName.IF || list.size() < 3
+                || !list.get(0).isValue("!")
+                || !list.get(1).isValue("defined")) {
+            return null;
+        }
+        if (list.size() == 3) {
+            return toMacroName(list.get(2));
+        }
+        if (list.size() == 5 && list.get(2).isValue("(")
+                && list.get(4).isValue(")")) {
+            return toMacroName(list.get(3));
+        }
+        return null;
+    }
+
+    private static String toMacroName(Token token) {
+        return Tokens.isKeywordOrIdentifier(token)
+                ? token.getValue()
+                : null;
+    }
+
+    private enum State {
+        START,
+        INSIDE,
+        AFTER,
+        NONE
+    }
+}
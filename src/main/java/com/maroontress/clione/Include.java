@@ -0,0 +1,101 @@
+package com.maroontress.clione;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+    The {@code #include} directive that the {@link IncludeScanner} finds.
+
+    <p>The {@link Include} object has the span of the directive and the
+    tokens that follow the directive name {@code include}. If the first
+    token other than delimiters and comments is of type
+    {@link TokenType#FILENAME} or {@link TokenType#STANDARD_HEADER}, it is
+    the header name of the directive. Otherwise, the directive is a computed
+    include, whose tokens must be replaced with the macros to get the header
+    name.</p>
+
+    <p>Note that the {@link Include} object is an immutable object.</p>
+*/
+public final class Include {
+
+    private final SourceSpan span;
+    private final List<Token> tokens;
+    private final Token header;
+
+    /**
+        Creates a new instance.
+
+        @param span The span of the directive.
+        @param tokens The tokens that follow the directive name, which do not
+            contain the token of type {@link TokenType#DIRECTIVE_END}.
+    */
+    public Include(SourceSpan span, Collection<Token> tokens) {
+        this.span = span;
+        this.tokens = List.copyOf(tokens);
+        this.header = this.tokens.stream()
+                .filter(t -> !Tokens.isDelimiterOrComment(t))
+                .findFirst()
+                .filter(t -> t.isType(TokenType.FILENAME)
+                        || t.isType(TokenType.STANDARD_HEADER))
+                .orElse(null);
+    }
+
+    /**
+        Returns the span of the directive.
+
+        <p>The span starts with the number sign and ends with the newline
+        character that terminates the directive.</p>
+
+        @return The span of the directive.
+    */
+    public SourceSpan getSpan() {
+        return span;
+    }
+
+    /**
+        Returns the token of the header name.
+
+        @return The token of type {@link TokenType#FILENAME} or {@link
+            TokenType#STANDARD_HEADER}. Or {@link Optional#empty()} if this
+            directive is a computed include.
+    */
+    public Optional<Token> getHeader() {
+        return Optional.ofNullable(header);
+    }
+
+    /**
+        Returns the tokens that follow the directive name.
+
+        <p>The tokens contain delimiters and comments, but do not contain
+        the token of type {@link TokenType#DIRECTIVE_END}.</p>
+
+        @return The unmodifiable list containing the tokens.
+    */
+    public List<Token> getTokens() {
+        return tokens;
+    }
+
+    /**
+        Returns whether this directive is a computed include.
+
+        @return {@code true} if this directive does not have the header name
+            but the tokens to be replaced with the macros.
+    */
+    public boolean isComputed() {
+        return header == null;
+    }
+
+    /**
+        Returns a new string representation of this directive that is easy
+        for a person to read.
+
+        @return The new string representation of this directive.
+    */
+    @Override
+    public String toString() {
+        return "[span=" + span + ", "
+                + "header=" + header + ", "
+                + "tokens=" + tokens + "]";
+    }
+}
@@ -0,0 +1,142 @@
+package com.maroontress.clione;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+    The registry of the header files that have been included, with their
+    include guards and {@code #pragma once} directives.
+
+    <p>The driver records each header file with the {@link GuardDetector}
+    that has received all the tokens of the file. Before opening the header
+    file again, the driver asks this registry whether it can skip the file
+    entirely.</p>
+
+    <p>The {@link IncludeGuards} object is thread-safe.</p>
+*/
+public final class IncludeGuards {
+
+    private final Map<Path, Entry> map = new ConcurrentHashMap<>();
+
+    /**
+        Creates a new empty registry.
+    */
+    public IncludeGuards() {
+    }
+
+    /**
+        Records the specified file that has been included.
+
+        @param file The path of the file.
+        @param detector The detector that has received all the tokens of the
+            file.
+    */
+    public void record(Path file, GuardDetector detector) {
+        record(file, detector.getGuardMacro().orElse(null),
+                detector.hasPragmaOnce());
+    }
+
+    /**
+        Records the specified file with the specified guard.
+
+        @param file The path of the file.
+        @param guard The name of the macro of the include guard, or {@code
+            null}.
+        @param pragmaOnce Whether the file has the {@code #pragma once}
+            directive.
+    */
+    void record(Path file, String guard, boolean pragmaOnce) {
+        map.put(toKey(file), new Entry(guard, pragmaOnce));
+    }
+
+    /**
+        Returns the name of the macro of the include guard of the specified
+        file.
+
+        @param file The path of the file.
+        @return The name of the macro, or {@link Optional#empty()} if the file
+            has not been recorded or does not have the include guard.
+    */
+    public Optional<String> getGuardMacro(Path file) {
+        return Optional.ofNullable(map.get(toKey(file)))
+                .map(e -> e.guard);
+    }
+
+    /**
+        Returns whether including the specified file again has no effect.
+
+        <p>The file can be skipped if it has been recorded, and it has the
+        {@code #pragma once} directive or the macro of its include guard is
+        defined.</p>
+
+        @param file The path of the file.
+        @param isDefined The predicate that tests whether the macro of the
+            specified name is currently defined.
+        @return {@code true} if the file can be skipped.
+    */
+    public boolean canSkip(Path file, Predicate<String> isDefined) {
+        var e = map.get(toKey(file));
+        if (e == null) {
+            return false;
+        }
+        return e.pragmaOnce
+                || (e.guard != null && isDefined.test(e.guard));
+    }
+
+    /**
+        Performs the specified action for each file that has been recorded.
+
+        @param action The action that receives the path of the file, the name
+            of the macro of the include guard or {@code null}, and whether
+            the file has the {@code #pragma once} directive.
+    */
+    void forEach(GuardConsumer action) {
+        map.forEach((k, v) -> action.accept(k, v.guard, v.pragmaOnce));
+    }
+
+    /**
+        Returns the number of the files that have been recorded.
+
+        @return The number of the files.
+    */
+    int size() {
+        return map.size();
+    }
+
+    private static Path toKey(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+
+    /**
+        The action that receives a file and its guard.
+    */
+    @FunctionalInterface
+    interface GuardConsumer {
+
+        /**
+            Performs this action.
+
+            @param file The path of the file.
+            @param guard The name of the macro, or {@code null}.
+            @param pragmaOnce Whether the file has {@code #pragma once}.
+        */
+        void accept(Path file, String guard, boolean pragmaOnce);
+    }
+
+    /**
+        The guard of a file.
+    */
+    private static final class Entry {
+
+        private final String guard;
+        private final boolean pragmaOnce;
+
+        Entry(String guard, boolean pragmaOnce) {
+            this.guard = guard;
+            this.pragmaOnce = pragmaOnce;
+        }
+    }
+}
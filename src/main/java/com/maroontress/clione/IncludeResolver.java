@@ -0,0 +1,416 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+import com.maroontress.clione.impl.DirectiveName;
+
+/**
+    The resolver of the {@code #include} directives, which finds the header
+    files in the search paths and scans or lexes them in advance.
+
+    <p>The header name of the form {@code "name"} is searched in the
+    directory of the file that contains the directive, and then in the
+    search paths. The header name of the form {@code <name>} is searched
+    only in the search paths. The results are cached, so each file is
+    checked for existence at most once per directory.</p>
+
+    <p>The {@link #prefetch(Path)} method scans the {@code #include}
+    directives of the file with the {@link IncludeScanner} on the executor,
+    and then prefetches the headers that they include in the same way. So
+    the headers of the whole include graph are read in parallel while the
+    caller continues. Each file is scanned at most once, even if more than
+    one file includes it.</p>
+
+    <p>The {@link #prefetchTokens(Path)} method lexes the file and the
+    headers that it includes in the same way, into the {@link TokenBuffer}
+    objects. After lexing each file, it records the include guard and the
+    {@code #pragma once} directive of the file with the {@link
+    GuardDetector} into the {@link IncludeGuards} object.</p>
+
+    <p>Both of the prefetch methods skip the header that {@link
+    IncludeGuards#canSkip(Path, Predicate)} tells has no effect when it is
+    included again, that is, the header that has {@code #pragma once}, or
+    whose include guard is defined according to the predicate that the
+    constructor receives. The {@link #getGraph(Path)} method does not skip
+    them, since they are still the dependencies of the files.</p>
+
+    <p>The {@link IncludeResolver} object is thread-safe.</p>
+*/
+public final class IncludeResolver {
+
+    private final List<Path> searchPaths;
+    private final Charset charset;
+    private final Executor executor;
+    private final Map<String, Optional<Path>> standardCache;
+    private final Map<Path, Map<String, Optional<Path>>> quoteCache;
+    private final Map<Path, CompletableFuture<List<Include>>> futures;
+    private final Map<Path, CompletableFuture<TokenBuffer>> buffers;
+    private final Dialect dialect;
+    private final ParserOptions options;
+    private final IncludeGuards guards;
+    private final Predicate<String> isDefined;
+
+    /**
+        Creates a new instance.
+
+        <p>The instance lexes the files with {@link Dialect#C11} and {@link
+        ParserOptions#DEFAULT}, and records the include guards into its own
+        {@link IncludeGuards} object, considering no macro to be
+        defined.</p>
+
+        @param searchPaths The directories in which the header files are
+            searched, in order.
+        @param charset The charset of the source files.
+        @param executor The executor that scans the files. For example,
+            {@code Runnable::run} makes this resolver scan the files in the
+            calling thread.
+    */
+    public IncludeResolver(List<Path> searchPaths, Charset charset,
+                           Executor executor) {
+        this(searchPaths, charset, executor, Dialect.C11,
+                ParserOptions.DEFAULT, new IncludeGuards(), name -> false);
+    }
+
+    /**
+        Creates a new instance with the include guards.
+
+        @param searchPaths The directories in which the header files are
+            searched, in order.
+        @param charset The charset of the source files.
+        @param executor The executor that scans and lexes the files.
+        @param dialect The dialect with which the files are lexed.
+        @param options The options with which the files are lexed.
+        @param guards The include guards, which tell the headers that can be
+            skipped, and into which this resolver records the files that it
+            lexes.
+        @param isDefined The predicate that tests whether the macro of the
+            specified name is defined. It must be thread-safe, since this
+            resolver invokes it on the executor.
+    */
+    public IncludeResolver(List<Path> searchPaths, Charset charset,
+                           Executor executor, Dialect dialect,
+                           ParserOptions options, IncludeGuards guards,
+                           Predicate<String> isDefined) {
+        this.searchPaths = List.copyOf(searchPaths);
+        this.charset = charset;
+        this.executor = executor;
+        this.dialect = dialect;
+        this.options = options;
+        this.guards = guards;
+        this.isDefined = isDefined;
+        standardCache = new ConcurrentHashMap<>();
+        quoteCache = new ConcurrentHashMap<>();
+        futures = new ConcurrentHashMap<>();
+        buffers = new ConcurrentHashMap<>();
+    }
+
+    /**
+        Returns the path of the header file that the specified directive
+        includes.
+
+        @param includer The path of the file that contains the directive.
+        @param include The {@code #include} directive.
+        @return The normalized absolute path of the header file, or {@link
+            Optional#empty()} if the directive is a computed include or the
+            header file is not found.
+    */
+    public Optional<Path> resolve(Path includer, Include include) {
+        return include.getHeader()
+                .flatMap(h -> resolve(includer, h));
+    }
+
+    /**
+        Returns the path of the header file that the specified header name
+        represents.
+
+        @param includer The path of the file that contains the header name.
+        @param header The token of type {@link TokenType#FILENAME} or {@link
+            TokenType#STANDARD_HEADER}.
+        @return The normalized absolute path of the header file, or {@link
+            Optional#empty()} if the header file is not found.
+        @throws IllegalArgumentException If the token is neither of type
+            {@link TokenType#FILENAME} nor {@link TokenType#STANDARD_HEADER}.
+    */
+    public Optional<Path> resolve(Path includer, Token header) {
+        var value = header.getValue();
+        var name = value.substring(1, value.length() - 1);
+        if (header.isType(TokenType.STANDARD_HEADER)) {
+            return standardCache.computeIfAbsent(name, this::search);
+        }
+        if (!header.isType(TokenType.FILENAME)) {
+            throw new IllegalArgumentException("not a header name");
+        }
+        var dir = toAbsolute(includer).getParent();
+        var cache = quoteCache.computeIfAbsent(dir,
+                k -> new ConcurrentHashMap<>());
+        return cache.computeIfAbsent(name, k -> {
+            var path = dir.resolve(k);
+            return Files.isRegularFile(path)
+                    ? Optional.of(path.normalize())
+                    : standardCache.computeIfAbsent(k, this::search);
+        });
+    }
+
+    private Optional<Path> search(String name) {
+        for (var dir : searchPaths) {
+            var path = dir.resolve(name);
+            if (Files.isRegularFile(path)) {
+                return Optional.of(toAbsolute(path));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+        Starts scanning the specified file and the headers that it includes
+        directly or indirectly, unless they have already been started or
+        can be skipped.
+
+        @param file The path of the file.
+        @return The future that completes with the {@code #include}
+            directives of the file.
+    */
+    public CompletableFuture<List<Include>> prefetch(Path file) {
+        return start(futures, toAbsolute(file), key -> {
+            var includes = scan(key);
+            for (var i : includes) {
+                resolve(key, i).filter(p -> !canSkip(p))
+                        .ifPresent(this::prefetch);
+            }
+            return includes;
+        });
+    }
+
+    /**
+        Returns the {@code #include} directives of the specified file.
+
+        <p>This method waits for the prefetch of the file to complete,
+        starting it if it has not been started.</p>
+
+        @param file The path of the file.
+        @return The unmodifiable list of the directives.
+        @throws IOException If an I/O error occurs.
+    */
+    public List<Include> getIncludes(Path file) throws IOException {
+        return join(prefetch(file));
+    }
+
+    /**
+        Starts lexing the specified file and the headers that it includes
+        directly or indirectly, unless they have already been started or
+        can be skipped.
+
+        <p>The headers are those that the {@code #include} directives of
+        the file include, regardless of the conditional directives
+        enclosing them, unless the options have the {@link MacroOracle}
+        that tells the lexer to skip the groups.</p>
+
+        @param file The path of the file.
+        @return The future that completes with the token buffer of the
+            file.
+    */
+    public CompletableFuture<TokenBuffer> prefetchTokens(Path file) {
+        return start(buffers, toAbsolute(file), key -> {
+            var buffer = lex(key);
+            for (var t : buffer) {
+                toInclude(t).flatMap(i -> resolve(key, i))
+                        .filter(p -> !canSkip(p))
+                        .ifPresent(this::prefetchTokens);
+            }
+            return buffer;
+        });
+    }
+
+    /**
+        Returns the token buffer of the specified file.
+
+        <p>This method waits for the prefetch of the file to complete,
+        starting it if it has not been started.</p>
+
+        @param file The path of the file.
+        @return The token buffer.
+        @throws IOException If an I/O error occurs.
+    */
+    public TokenBuffer getTokens(Path file) throws IOException {
+        return join(prefetchTokens(file));
+    }
+
+    /**
+        Returns whether including the specified header again has no effect.
+
+        @param header The path of the header file.
+        @return {@code true} if the prefetch methods skip the header.
+    */
+    public boolean canSkip(Path header) {
+        return guards.canSkip(header, isDefined);
+    }
+
+    /**
+        Returns the include graph whose root is the specified file.
+
+        <p>The keys of the map are the paths of the files reachable from the
+        root, in the order of the breadth-first search. The value of each
+        key is the list of the paths of the headers that the file includes,
+        in order. The computed includes and the headers that are not found
+        are excluded.</p>
+
+        @param root The path of the root file.
+        @return The unmodifiable map of the include graph.
+        @throws IOException If an I/O error occurs.
+    */
+    public Map<Path, List<Path>> getGraph(Path root) throws IOException {
+        var start = toAbsolute(root);
+        prefetch(start);
+        var graph = new LinkedHashMap<Path, List<Path>>();
+        var queue = new ArrayDeque<Path>();
+        queue.add(start);
+        graph.put(start, List.of());
+        while (!queue.isEmpty()) {
+            var file = queue.remove();
+            var headers = new ArrayList<Path>();
+            for (var i : getIncludes(file)) {
+                var maybePath = resolve(file, i);
+                if (maybePath.isEmpty()) {
+                    continue;
+                }
+                var path = maybePath.get();
+                headers.add(path);
+                if (!graph.containsKey(path)) {
+                    graph.put(path, List.of());
+                    queue.add(path);
+                }
+            }
+            graph.put(file, List.copyOf(headers));
+        }
+        return Collections.unmodifiableMap(graph);
+    }
+
+    private <T> CompletableFuture<T> start(
+            Map<Path, CompletableFuture<T>> map, Path key, Task<T> task) {
+        var future = map.get(key);
+        if (future != null) {
+            return future;
+        }
+        var newFuture = new CompletableFuture<T>();
+        future = map.putIfAbsent(key, newFuture);
+        if (future != null) {
+            return future;
+        }
+        executor.execute(() -> {
+            try {
+                newFuture.complete(task.run(key));
+            } catch (IOException | RuntimeException e) {
+                newFuture.completeExceptionally(e);
+            }
+        });
+        return newFuture;
+    }
+
+    private static <T> T join(CompletableFuture<T> future)
+            throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            var cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private TokenBuffer lex(Path file) throws IOException {
+        try (var parser = LexicalParser.of(
+                Files.newBufferedReader(file, charset), file.toString(),
+                dialect, options)) {
+            var buffer = TokenBuffer.of(parser);
+            var detector = new GuardDetector();
+            buffer.forEach(detector::accept);
+            guards.record(file, detector);
+            return buffer;
+        }
+    }
+
+    /**
+        Returns the {@code #include} directive that the specified token
+        represents.
+
+        @param token The token.
+        @return The directive, or {@link Optional#empty()} if the token is
+            not an {@code #include} directive.
+    */
+    private static Optional<Include> toInclude(Token token) {
+        if (!token.isType(TokenType.DIRECTIVE)) {
+            return Optional.empty();
+        }
+        var children = token.getChildren();
+        var size = children.size();
+        var k = 0;
+        while (k < size && Tokens.isDelimiterOrComment(children.get(k))) {
+            ++k;
+        }
+        if (k == size
+                || DirectiveName.find(children.get(k))
+                        != DirectiveName.INCLUDE) {
+            return Optional.empty();
+        }
+        var tokens = new ArrayList<Token>();
+        for (var t : children.subList(k + 1, size)) {
+            if (!t.isType(TokenType.DIRECTIVE_END)) {
+                tokens.add(t);
+            }
+        }
+        return Optional.of(new Include(token.getSpan(), tokens));
+    }
+
+    private List<Include> scan(Path file) throws IOException {
+        var list = new ArrayList<Include>();
+        try (var scanner = IncludeScanner.of(
+                Files.newBufferedReader(file, charset), file.toString())) {
+            for (;;) {
+                var maybeInclude = scanner.next();
+                if (maybeInclude.isEmpty()) {
+                    return List.copyOf(list);
+                }
+                list.add(maybeInclude.get());
+            }
+        }
+    }
+
+    private static Path toAbsolute(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+        The task that reads the file.
+
+        @param <T> The type of the result.
+    */
+    @FunctionalInterface
+    private interface Task<T> {
+
+        /**
+            Reads the specified file.
+
+            @param file The normalized absolute path of the file.
+            @return The result.
+            @throws IOException If an I/O error occurs.
+        */
+        T run(Path file) throws IOException;
+    }
+}
@@ -0,0 +1,61 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Optional;
+
+import com.maroontress.clione.impl.DefaultIncludeScanner;
+
+/**
+    The scanner that finds only the {@code #include} directives in the
+    source file.
+
+    <p>The {@link IncludeScanner} object recognizes the directives exactly as
+    the {@link LexicalParser} does, including trigraph and digraph
+    substitution and line concatenation. However, it does not create the
+    tokens of the lines other than the directives, so it is much faster than
+    the {@link LexicalParser} object when only the dependencies of the source
+    file are necessary.</p>
+*/
+public interface IncludeScanner extends AutoCloseable {
+
+    /** {@inheritDoc} */
+    @Override
+    void close() throws IOException;
+
+    /**
+        Returns the next {@code #include} directive.
+
+        @return The next directive. Or {@link Optional#empty()} if this
+            scanner reaches EOF.
+        @throws IOException If an I/O error occurs.
+    */
+    Optional<Include> next() throws IOException;
+
+    /**
+        Returns a new {@link IncludeScanner} object.
+
+        <p>The instance considers {@link Keywords#C11} as reserved
+        keywords.</p>
+
+        @param reader The reader that provides the stream of the source file.
+        @return The new {@link IncludeScanner} object.
+    */
+    static IncludeScanner of(Reader reader) {
+        return new DefaultIncludeScanner(reader, null, Keywords.C11);
+    }
+
+    /**
+        Returns a new {@link IncludeScanner} object.
+
+        <p>The instance considers {@link Keywords#C11} as reserved
+        keywords.</p>
+
+        @param reader The reader that provides the stream of the source file.
+        @param filename The filename.
+        @return The new {@link IncludeScanner} object.
+    */
+    static IncludeScanner of(Reader reader, String filename) {
+        return new DefaultIncludeScanner(reader, filename, Keywords.C11);
+    }
+}
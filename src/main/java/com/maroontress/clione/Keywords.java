@@ -21,6 +21,9 @@ public final class Keywords {
     /** The unmodifiable set of keywords defined in C11. */
     public static final Set<String> C11 = C11Keywords.ALL;
 
+    /** The unmodifiable set of keywords defined in C23. */
+    public static final Set<String> C23 = C23Keywords.ALL;
+
     /** The unmodifiable set of preprocessing directive names. */
     public static final Set<String> PP_DIRECTIVE_NAMES = Set.of(
             "include",
@@ -31,6 +34,14 @@ public final class Keywords {
             "error",
             "pragma");
 
+    /**
+        The unmodifiable set of preprocessing directive names defined in
+        C23.
+    */
+    public static final Set<String> C23_PP_DIRECTIVE_NAMES = union(
+            PP_DIRECTIVE_NAMES,
+            Set.of("elifdef", "elifndef", "embed", "warning"));
+
     /** Prevents the class from being instantiated. */
     private Keywords() {
         throw new AssertionError();
@@ -60,4 +71,12 @@ public final class Keywords {
                 "_Alignas", "_Alignof", "_Atomic", "_Generic", "_Noreturn",
                 "_Static_assert", "_Thread_local"));
     }
+
+    private static final class C23Keywords {
+        private static final Set<String> ALL = union(C11Keywords.ALL, Set.of(
+                "alignas", "alignof", "bool", "constexpr", "false", "nullptr",
+                "static_assert", "thread_local", "true", "typeof",
+                "typeof_unqual", "_BitInt", "_Decimal128", "_Decimal32",
+                "_Decimal64"));
+    }
 }
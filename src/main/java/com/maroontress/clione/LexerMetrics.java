@@ -0,0 +1,257 @@
+package com.maroontress.clione;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+    The metrics of the {@link LexicalParser} object.
+
+    <p>The parser that has the metrics in its {@link ParserOptions} updates
+    them every time it reads a token. The parser without the metrics pays
+    nothing but a null check for each token.</p>
+
+    <p>The metrics count the following:</p>
+
+    <ul>
+    <li>The characters that the parser has read from the reader, and the
+    characters that it has pushed back to read them again</li>
+    <li>The tokens of each type, including the child tokens of the
+    directives</li>
+    <li>The trigraph sequences, digraph sequences, and line splices in those
+    tokens</li>
+    <li>The directives of each name</li>
+    <li>The time that the parser has spent in each {@link Phase}</li>
+    </ul>
+
+    <p>Note that the lines that the parser skips because of the conditional
+    directives are counted as the characters and the time, but their tokens
+    are not counted except the directive that ends the group.</p>
+
+    <p>The {@link LexerMetrics} object is not thread-safe. Each parser should
+    have its own metrics, which can be added up to the total with the
+    {@link #add(LexerMetrics)} method.</p>
+*/
+public final class LexerMetrics {
+
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long[] tokens = new long[TYPES.length];
+    private final long[] nanos = new long[PHASES.length];
+    private final Map<String, Long> directives = new HashMap<>();
+    private long reads;
+    private long pushbacks;
+    private long trigraphs;
+    private long digraphs;
+    private long splices;
+
+    /**
+        Creates new metrics whose counts are all zero.
+    */
+    public LexerMetrics() {
+    }
+
+    /**
+        Records that the parser has read a character.
+
+        <p>A character that has been pushed back is recorded again when it
+        is read again.</p>
+    */
+    public void recordRead() {
+        ++reads;
+    }
+
+    /**
+        Records that the parser has pushed back a character.
+    */
+    public void recordPushback() {
+        ++pushbacks;
+    }
+
+    /**
+        Records the specified token that the parser has returned.
+
+        <p>This method records the token and its child tokens, the trigraph
+        sequences, digraph sequences, and line splices in their characters,
+        and the name of the directive if the token is a directive.</p>
+
+        @param token The token.
+    */
+    public void recordToken(Token token) {
+        ++tokens[token.getType().ordinal()];
+        for (var c : token.getChars()) {
+            recordChar(c);
+        }
+        var children = token.getChildren();
+        for (var child : children) {
+            recordToken(child);
+        }
+        if (!token.isType(TokenType.DIRECTIVE)) {
+            return;
+        }
+        children.stream()
+                .filter(t -> t.isType(TokenType.DIRECTIVE_NAME))
+                .findFirst()
+                .ifPresent(t -> directives.merge(t.getValue(), 1L,
+                        Long::sum));
+    }
+
+    /**
+        Records the specified time that the parser has spent in the
+        specified phase.
+
+        @param phase The phase.
+        @param nanoTime The time in nanoseconds.
+    */
+    public void recordTime(Phase phase, long nanoTime) {
+        nanos[phase.ordinal()] += nanoTime;
+    }
+
+    /**
+        Adds the counts of the specified metrics to these metrics.
+
+        @param other The other metrics.
+    */
+    public void add(LexerMetrics other) {
+        for (var k = 0; k < tokens.length; ++k) {
+            tokens[k] += other.tokens[k];
+        }
+        for (var k = 0; k < nanos.length; ++k) {
+            nanos[k] += other.nanos[k];
+        }
+        other.directives.forEach((k, v) -> directives.merge(k, v, Long::sum));
+        reads += other.reads;
+        pushbacks += other.pushbacks;
+        trigraphs += other.trigraphs;
+        digraphs += other.digraphs;
+        splices += other.splices;
+    }
+
+    /**
+        Returns the number of the characters that the parser has read from
+        the reader.
+
+        <p>The characters that have been pushed back and read again are
+        counted only once.</p>
+
+        @return The number of the characters.
+    */
+    public long getCharCount() {
+        return reads - pushbacks;
+    }
+
+    /**
+        Returns the number of the characters that the parser has pushed
+        back.
+
+        @return The number of the pushbacks.
+    */
+    public long getPushbackCount() {
+        return pushbacks;
+    }
+
+    /**
+        Returns the number of the tokens of the specified type.
+
+        @param type The token type.
+        @return The number of the tokens.
+    */
+    public long getTokenCount(TokenType type) {
+        return tokens[type.ordinal()];
+    }
+
+    /**
+        Returns the number of the trigraph sequences.
+
+        @return The number of the trigraph sequences.
+    */
+    public long getTrigraphCount() {
+        return trigraphs;
+    }
+
+    /**
+        Returns the number of the digraph sequences.
+
+        @return The number of the digraph sequences.
+    */
+    public long getDigraphCount() {
+        return digraphs;
+    }
+
+    /**
+        Returns the number of the line splices, that is, the backslashes
+        followed by a newline character.
+
+        @return The number of the line splices.
+    */
+    public long getSpliceCount() {
+        return splices;
+    }
+
+    /**
+        Returns the number of the directives of each name.
+
+        @return The unmodifiable map of the directive name to the number of
+            the directives.
+    */
+    public Map<String, Long> getDirectiveCounts() {
+        return Map.copyOf(directives);
+    }
+
+    /**
+        Returns the time that the parser has spent in the specified phase.
+
+        @param phase The phase.
+        @return The time in nanoseconds.
+    */
+    public long getTime(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+        Returns the time that the parser has spent in each phase.
+
+        @return The map of the phase to the time in nanoseconds.
+    */
+    public Map<Phase, Long> getTimes() {
+        var map = new EnumMap<Phase, Long>(Phase.class);
+        for (var p : PHASES) {
+            map.put(p, nanos[p.ordinal()]);
+        }
+        return map;
+    }
+
+    private void recordChar(SourceChar c) {
+        var children = c.getChildren();
+        var size = children.size();
+        if (size == 0) {
+            return;
+        }
+        if (size == 2) {
+            ++digraphs;
+        } else if (size == 3 && children.get(0).toChar() == '?') {
+            ++trigraphs;
+        } else {
+            splices += (size - 1) / 2;
+        }
+        for (var child : children) {
+            recordChar(child);
+        }
+    }
+
+    /**
+        The phase of the parser.
+    */
+    public enum Phase {
+
+        /** Reading a token other than a directive. */
+        TOKEN,
+
+        /** Reading a directive and its child tokens. */
+        DIRECTIVE,
+
+        /** Skipping the lines in a group of the conditional directives. */
+        SKIP
+    }
+}
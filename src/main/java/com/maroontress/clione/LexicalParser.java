@@ -30,6 +30,28 @@ public interface LexicalParser extends AutoCloseable {
     @Override
     void close() throws IOException;
 
+    /**
+        Resets this parser so that it reads the specified source file.
+
+        <p>The parser keeps its reserved words, options, and internal
+        buffers, and forgets everything about the previous source file,
+        except that the tokens it has returned remain valid. This method
+        does not close the previous reader.</p>
+
+        <p>The parsers that the factory methods of this interface return
+        support this method.</p>
+
+        @param reader The reader that provides the stream of the new source
+            file.
+        @param filename The filename.
+        @throws UnsupportedOperationException If this parser does not
+            support this method.
+        @see LexicalParserPool
+    */
+    default void reset(Reader reader, String filename) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
         Returns the character representing EOF.
 
@@ -151,4 +173,54 @@ public interface LexicalParser extends AutoCloseable {
             Collection<String> reservedWords) {
         return new DefaultLexicalParser(reader, filename, reservedWords);
     }
+
+    /**
+        Returns a new {@link LexicalParser} object with the specified reserved
+        words and the specified options.
+
+        @param reader The reader that provides the stream of the source file.
+        @param filename The filename.
+        @param reservedWords The collection that contains reserved words.
+            Note that the constructor copies the collection, so changes to the
+            collection do not affect this instance.
+        @param options The options.
+        @return The new {@link LexicalParser} object.
+    */
+    static LexicalParser of(Reader reader,
+            String filename,
+            Collection<String> reservedWords,
+            ParserOptions options) {
+        return new DefaultLexicalParser(reader, filename, reservedWords,
+                options);
+    }
+
+    /**
+        Returns a new {@link LexicalParser} object with the specified
+        dialect.
+
+        @param reader The reader that provides the stream of the source file.
+        @param dialect The dialect.
+        @return The new {@link LexicalParser} object.
+    */
+    static LexicalParser of(Reader reader, Dialect dialect) {
+        return new DefaultLexicalParser(reader, null, dialect,
+                ParserOptions.DEFAULT);
+    }
+
+    /**
+        Returns a new {@link LexicalParser} object with the specified dialect
+        and the specified options.
+
+        @param reader The reader that provides the stream of the source file.
+        @param filename The filename.
+        @param dialect The dialect.
+        @param options The options.
+        @return The new {@link LexicalParser} object.
+    */
+    static LexicalParser of(Reader reader,
+            String filename,
+            Dialect dialect,
+            ParserOptions options) {
+        return new DefaultLexicalParser(reader, filename, dialect, options);
+    }
 }
@@ -0,0 +1,97 @@
+package com.maroontress.clione;
+
+import java.io.Reader;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.maroontress.clione.impl.DefaultLexicalParser;
+
+/**
+    The pool of the {@link LexicalParser} objects that have the same dialect
+    and options.
+
+    <p>The pool lends the idle parser after resetting it with the new source
+    file, or creates a new parser if there is no idle parser. This saves the
+    setup of the parser for each source file, which costs more than lexing
+    a small snippet. The parser must be returned to the pool as
+    follows:</p>
+    <pre>
+    var parser = pool.acquire(reader, filename);
+    try {
+        ...
+    } finally {
+        pool.release(parser);
+    }</pre>
+
+    <p>Note that the pool does not close the readers. The {@link
+    LexicalParserPool} object is thread-safe, but each parser must be used
+    only by one thread at a time.</p>
+*/
+public final class LexicalParserPool {
+
+    private final Dialect dialect;
+    private final ParserOptions options;
+    private final Queue<LexicalParser> idle = new ConcurrentLinkedQueue<>();
+
+    /**
+        Creates a new empty pool.
+
+        @param reservedWords The collection that contains reserved words.
+            Note that the constructor copies the collection, so changes to the
+            collection do not affect this instance.
+        @param options The options of the parsers. They must not have the
+            metrics, which are not thread-safe.
+        @throws IllegalArgumentException If the options have the metrics.
+    */
+    public LexicalParserPool(Collection<String> reservedWords,
+                             ParserOptions options) {
+        this(Dialect.C11.withReservedWords(reservedWords), options);
+    }
+
+    /**
+        Creates a new empty pool with the specified dialect.
+
+        @param dialect The dialect of the parsers.
+        @param options The options of the parsers. They must not have the
+            metrics, which are not thread-safe.
+        @throws IllegalArgumentException If the options have the metrics.
+    */
+    public LexicalParserPool(Dialect dialect, ParserOptions options) {
+        if (options.getMetrics().isPresent()) {
+            throw new IllegalArgumentException(
+                    "options must not have metrics");
+        }
+        this.dialect = dialect;
+        this.options = options;
+    }
+
+    /**
+        Returns the parser that reads the specified source file.
+
+        @param reader The reader that provides the stream of the source file.
+        @param filename The filename.
+        @return The parser.
+    */
+    public LexicalParser acquire(Reader reader, String filename) {
+        var parser = idle.poll();
+        if (parser == null) {
+            return new DefaultLexicalParser(reader, filename, dialect,
+                    options);
+        }
+        parser.reset(reader, filename);
+        return parser;
+    }
+
+    /**
+        Returns the specified parser to this pool.
+
+        <p>The parser must have been acquired from this pool, and must not be
+        used after this method is invoked.</p>
+
+        @param parser The parser.
+    */
+    public void release(LexicalParser parser) {
+        idle.offer(parser);
+    }
+}
@@ -0,0 +1,33 @@
+package com.maroontress.clione;
+
+/**
+    The mapping from offsets in the source file to line and column numbers.
+
+    <p>The offset of a character is the number of characters that precede it
+    in the source file, where any newline (LF, CRLF, or CR) counts as a single
+    character. The column number counts Unicode code points, so both
+    characters of a surrogate pair have the same column number.</p>
+
+    <p>The {@link SourceLocation} object that has an offset resolves its line
+    and column numbers with this mapping only when they are requested.</p>
+*/
+public interface LineMap {
+
+    /**
+        Returns the line number of the specified offset.
+
+        @param offset The offset in the source file.
+        @return The line number.
+        @throws IllegalArgumentException If the {@code offset} is negative.
+    */
+    int getLine(int offset);
+
+    /**
+        Returns the column number of the specified offset.
+
+        @param offset The offset in the source file.
+        @return The column number.
+        @throws IllegalArgumentException If the {@code offset} is negative.
+    */
+    int getColumn(int offset);
+}
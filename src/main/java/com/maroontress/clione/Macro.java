@@ -0,0 +1,225 @@
+package com.maroontress.clione;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+    The definition of a macro.
+
+    <p>The replacement list of the macro contains no leading or trailing
+    delimiters and comments, and each sequence of delimiters and comments
+    in it is replaced with the first token of the sequence. The replacement
+    list does not contain the token of type {@link
+    TokenType#DIRECTIVE_END}.</p>
+
+    <p>The parameter of the variadic macro that corresponds to the ellipsis
+    is named {@code __VA_ARGS__}, and it is the last one of the
+    parameters.</p>
+
+    <p>Note that the {@link Macro} object is an immutable object.</p>
+*/
+public final class Macro {
+
+    /** The name of the parameter that corresponds to the ellipsis. */
+    public static final String VA_ARGS = "__VA_ARGS__";
+
+    private final String name;
+    private final List<String> parameters;
+    private final boolean variadic;
+    private final List<Token> replacement;
+
+    private Macro(String name, List<String> parameters, boolean variadic,
+                  Collection<Token> replacement) {
+        this.name = Objects.requireNonNull(name);
+        this.parameters = parameters;
+        this.variadic = variadic;
+        this.replacement = normalize(replacement);
+    }
+
+    /**
+        Returns a new object-like macro.
+
+        @param name The name of the macro.
+        @param replacement The replacement list.
+        @return The new macro.
+    */
+    public static Macro objectLike(String name,
+                                   Collection<Token> replacement) {
+        return new Macro(name, null, false, replacement);
+    }
+
+    /**
+        Returns a new function-like macro.
+
+        @param name The name of the macro.
+        @param parameters The names of the parameters. If {@code variadic}
+            is {@code true}, it must not contain {@code __VA_ARGS__}.
+        @param variadic {@code true} if the parameters end with the
+            ellipsis.
+        @param replacement The replacement list.
+        @return The new macro.
+    */
+    public static Macro functionLike(String name,
+                                     Collection<String> parameters,
+                                     boolean variadic,
+                                     Collection<Token> replacement) {
+        var list = new ArrayList<>(parameters);
+        if (variadic) {
+            list.add(VA_ARGS);
+        }
+        return new Macro(name, List.copyOf(list), variadic, replacement);
+    }
+
+    /**
+        Returns the macro that the specified {@code #define} directive
+        defines.
+
+        <p>The directive is function-like if a left parenthesis immediately
+        follows the macro name, that is, if neither the delimiter nor the
+        comment token precedes the left parenthesis and it does not have
+        the {@link TokenFlag#LEADING_SPACE} flag.</p>
+
+        @param directive The token of type {@link TokenType#DIRECTIVE}.
+        @return The macro, or {@link Optional#empty()} if the directive is
+            not a well-formed {@code #define} directive.
+    */
+    public static Optional<Macro> of(Token directive) {
+        var children = directive.getChildren();
+        var size = children.size();
+        var k = skipDelimiters(children, 0);
+        if (k == size || !children.get(k).isType(TokenType.DIRECTIVE_NAME)
+                || !children.get(k).isValue("define")) {
+            return Optional.empty();
+        }
+        k = skipDelimiters(children, k + 1);
+        if (k == size || !Tokens.isKeywordOrIdentifier(children.get(k))) {
+            return Optional.empty();
+        }
+        var name = children.get(k).getValue();
+        ++k;
+        // The left parenthesis that follows the delimiters, or that has the
+        // LEADING_SPACE flag instead of them, starts the replacement list.
+        if (k == size || !children.get(k).isValue("(")
+                || children.get(k).hasFlag(TokenFlag.LEADING_SPACE)) {
+            return Optional.of(objectLike(name, children.subList(k, size)));
+        }
+        var parameters = new ArrayList<String>();
+        for (;;) {
+            k = skipDelimiters(children, k + 1);
+            if (k == size) {
+                return Optional.empty();
+            }
+            var token = children.get(k);
+            if (token.isValue(")") && parameters.isEmpty()) {
+                break;
+            }
+            if (token.isValue("...")) {
+                k = skipDelimiters(children, k + 1);
+                if (k == size || !children.get(k).isValue(")")) {
+                    return Optional.empty();
+                }
+                return Optional.of(functionLike(name, parameters, true,
+                        children.subList(k + 1, size)));
+            }
+            if (!Tokens.isKeywordOrIdentifier(token)) {
+                return Optional.empty();
+            }
+            parameters.add(token.getValue());
+            k = skipDelimiters(children, k + 1);
+            if (k == size) {
+                return Optional.empty();
+            }
+            if (children.get(k).isValue(")")) {
+                break;
+            }
+            if (!children.get(k).isValue(",")) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(functionLike(name, parameters, false,
+                children.subList(k + 1, size)));
+    }
+
+    /**
+        Returns the name of this macro.
+
+        @return The name.
+    */
+    public String getName() {
+        return name;
+    }
+
+    /**
+        Returns whether this macro is function-like.
+
+        @return {@code true} if this macro is function-like.
+    */
+    public boolean isFunctionLike() {
+        return parameters != null;
+    }
+
+    /**
+        Returns whether this macro is variadic.
+
+        @return {@code true} if this macro is function-like and its
+            parameters end with the ellipsis.
+    */
+    public boolean isVariadic() {
+        return variadic;
+    }
+
+    /**
+        Returns the names of the parameters.
+
+        @return The unmodifiable list of the parameter names. It is empty if
+            this macro is object-like.
+    */
+    public List<String> getParameters() {
+        return (parameters == null) ? List.of() : parameters;
+    }
+
+    /**
+        Returns the replacement list.
+
+        @return The unmodifiable list of the tokens.
+    */
+    public List<Token> getReplacement() {
+        return replacement;
+    }
+
+    private static int skipDelimiters(List<Token> list, int start) {
+        var size = list.size();
+        var k = start;
+        while (k < size && Tokens.isDelimiterOrComment(list.get(k))) {
+            ++k;
+        }
+        return k;
+    }
+
+    private static List<Token> normalize(Collection<Token> tokens) {
+        var list = new ArrayList<Token>();
+        var isSpace = true;
+        for (var t : tokens) {
+            if (t.isType(TokenType.DIRECTIVE_END)) {
+                continue;
+            }
+            if (Tokens.isDelimiterOrComment(t)) {
+                if (!isSpace) {
+                    list.add(t);
+                }
+                isSpace = true;
+                continue;
+            }
+            list.add(t);
+            isSpace = false;
+        }
+        var last = list.size() - 1;
+        if (last >= 0 && Tokens.isDelimiterOrComment(list.get(last))) {
+            list.remove(last);
+        }
+        return List.copyOf(list);
+    }
+}
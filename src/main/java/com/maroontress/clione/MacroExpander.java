@@ -0,0 +1,49 @@
+package com.maroontress.clione;
+
+import java.util.List;
+import java.util.Set;
+
+import com.maroontress.clione.impl.DefaultMacroExpander;
+
+/**
+    The macro expander, which replaces the macro invocations in token
+    sequences with the replacement lists of the macros.
+
+    <p>The expander implements the rescanning and the {@code #} and {@code
+    ##} operators of the C preprocessor. Each token has the hide set, which
+    is the set of the macro names that are not expanded when the token is
+    rescanned. The arguments of the function-like macros are fully expanded
+    before they are substituted, unless they are the operands of the
+    {@code #} or {@code ##} operators.</p>
+
+    <p>The expander leaves the macro name as it is if the arguments of the
+    function-like macro are not terminated or their number does not match
+    the parameters.</p>
+
+    <p>The expander caches the result of expanding each object-like macro
+    that is not in the hide set of any token, and reuses it until the
+    revision of the {@link MacroTable} changes.</p>
+*/
+public interface MacroExpander {
+
+    /**
+        Expands the macro invocations in the specified tokens.
+
+        @param tokens The tokens, which may contain delimiters and comments.
+        @return The new list of the tokens that contains no macro
+            invocations.
+    */
+    List<Token> expand(List<Token> tokens);
+
+    /**
+        Returns a new {@link MacroExpander} object.
+
+        @param table The table of the macros.
+        @param reservedWords The set of the reserved words, with which the
+            {@code ##} operator determines the type of the token.
+        @return The new {@link MacroExpander} object.
+    */
+    static MacroExpander of(MacroTable table, Set<String> reservedWords) {
+        return new DefaultMacroExpander(table, reservedWords);
+    }
+}
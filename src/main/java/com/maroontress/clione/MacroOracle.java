@@ -0,0 +1,67 @@
+package com.maroontress.clione;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+    The oracle that tells whether a macro is defined.
+
+    <p>The {@link LexicalParser} object that has the oracle in its
+    {@link ParserOptions} skips the lines in the groups of the conditional
+    directives that are known to be skipped. It asks the oracle whether each
+    macro is defined, unless the source file defines or undefines the macro
+    before.</p>
+*/
+@FunctionalInterface
+public interface MacroOracle {
+
+    /**
+        Returns whether the macro of the specified name is defined.
+
+        @param name The name of the macro.
+        @return {@link Definedness#DEFINED} or {@link Definedness#UNDEFINED}
+            if it is known whether the macro is defined. Otherwise,
+            {@link Definedness#UNKNOWN}.
+    */
+    Definedness test(String name);
+
+    /**
+        Returns a new oracle that considers the macros of the specified names
+        to be defined or undefined.
+
+        <p>The oracle considers any macro that neither of the collections
+        contains to be {@link Definedness#UNKNOWN}. If both of the
+        collections contain the same name, the macro is considered to be
+        defined. This is like the {@code -D} and {@code -U} options of the
+        compiler.</p>
+
+        @param defined The names of the macros that are defined.
+        @param undefined The names of the macros that are undefined.
+        @return The new oracle.
+    */
+    static MacroOracle of(Collection<String> defined,
+                          Collection<String> undefined) {
+        var definedSet = Set.copyOf(defined);
+        var undefinedSet = Set.copyOf(undefined);
+        return name -> definedSet.contains(name)
+                ? Definedness.DEFINED
+                : undefinedSet.contains(name)
+                ? Definedness.UNDEFINED
+                : Definedness.UNKNOWN;
+    }
+
+    /**
+        Whether a macro is defined.
+    */
+    enum Definedness {
+
+        /** The macro is defined. */
+        DEFINED,
+
+        /** The macro is not defined. */
+        UNDEFINED,
+
+        /** It is unknown whether the macro is defined. */
+        UNKNOWN
+    }
+}
@@ -0,0 +1,119 @@
+package com.maroontress.clione;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+    The table of the macros that are currently defined.
+
+    <p>The {@link MacroExpander} objects cache the results of expanding the
+    macros in this table. They discard the caches when the revision of this
+    table changes.</p>
+*/
+public final class MacroTable {
+
+    private final Map<String, Macro> map = new HashMap<>();
+    private long revision;
+
+    /**
+        Creates a new empty table.
+    */
+    public MacroTable() {
+    }
+
+    /**
+        Returns the macro of the specified name.
+
+        @param name The name of the macro.
+        @return The macro, or {@link Optional#empty()} if the macro is not
+            defined.
+    */
+    public Optional<Macro> get(String name) {
+        return Optional.ofNullable(map.get(name));
+    }
+
+    /**
+        Defines the specified macro.
+
+        <p>This replaces the macro of the same name if it has already been
+        defined.</p>
+
+        @param macro The macro.
+    */
+    public void define(Macro macro) {
+        map.put(macro.getName(), macro);
+        ++revision;
+    }
+
+    /**
+        Undefines the macro of the specified name.
+
+        @param name The name of the macro.
+    */
+    public void undef(String name) {
+        if (map.remove(name) != null) {
+            ++revision;
+        }
+    }
+
+    /**
+        Updates this table with the specified directive.
+
+        <p>This method defines or undefines the macro if the directive is a
+        well-formed {@code #define} or {@code #undef} directive,
+        respectively. Otherwise, it does nothing.</p>
+
+        @param directive The token of type {@link TokenType#DIRECTIVE}.
+        @return {@code true} if this table has been updated.
+    */
+    public boolean accept(Token directive) {
+        var maybeMacro = Macro.of(directive);
+        if (maybeMacro.isPresent()) {
+            define(maybeMacro.get());
+            return true;
+        }
+        var significant = directive.getChildren()
+                .stream()
+                .filter(t -> !Tokens.isDelimiterOrComment(t))
+                .iterator();
+        if (!significant.hasNext()) {
+            return false;
+        }
+        var name = significant.next();
+        if (!name.isType(TokenType.DIRECTIVE_NAME) || !name.isValue("undef")
+                || !significant.hasNext()) {
+            return false;
+        }
+        var macroName = significant.next();
+        if (!Tokens.isKeywordOrIdentifier(macroName)) {
+            return false;
+        }
+        var oldRevision = revision;
+        undef(macroName.getValue());
+        return revision != oldRevision;
+    }
+
+    /**
+        Returns the macros in this table.
+
+        @return The unmodifiable collection of the macros.
+    */
+    Collection<Macro> getMacros() {
+        return List.copyOf(map.values());
+    }
+
+    /**
+        Returns the revision of this table.
+
+        <p>The revision changes every time a macro is defined or
+        undefined.</p>
+
+        @return The revision.
+    */
+    public long getRevision() {
+        return revision;
+    }
+}
@@ -0,0 +1,320 @@
+package com.maroontress.clione;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+    The options of the {@link LexicalParser} object.
+
+    <p>The {@link #DEFAULT} options make the parser behave as the parser
+    that the other factory methods of {@link LexicalParser} return. Each
+    {@code with} method returns new options that differ from these options
+    only in the specified option.</p>
+
+    <p>Note that the {@link ParserOptions} object is an immutable object.</p>
+*/
+public final class ParserOptions {
+
+    /** The default options. */
+    public static final ParserOptions DEFAULT = new ParserOptions(null, null,
+            Collections.unmodifiableSet(EnumSet.allOf(TokenType.class)),
+            Trivia.TOKENS, false, Fidelity.FULL);
+
+    private final MacroOracle macroOracle;
+    private final LexerMetrics metrics;
+    private final Set<TokenType> tokenTypes;
+    private final Trivia trivia;
+    private final boolean lazyDirectives;
+    private final Fidelity fidelity;
+
+    private ParserOptions(MacroOracle macroOracle, LexerMetrics metrics,
+                          Set<TokenType> tokenTypes, Trivia trivia,
+                          boolean lazyDirectives, Fidelity fidelity) {
+        this.macroOracle = macroOracle;
+        this.metrics = metrics;
+        this.tokenTypes = tokenTypes;
+        this.trivia = trivia;
+        this.lazyDirectives = lazyDirectives;
+        this.fidelity = fidelity;
+    }
+
+    /**
+        Returns the oracle that tells whether a macro is defined.
+
+        <p>If the oracle is present, the parser tracks the conditional
+        directives ({@code #if}, {@code #ifdef}, {@code #ifndef}, {@code
+        #elif}, {@code #else}, and {@code #endif}) and does not return the
+        tokens in the groups that are known to be skipped. It still returns
+        the conditional directives themselves. It returns all the tokens of
+        the groups for which it cannot determine whether they are skipped,
+        for example, because the condition depends on the value of a macro or
+        on a macro whose definedness is unknown.</p>
+
+        @return The oracle, or {@link Optional#empty()} if the parser does
+            not skip any group. The default is empty.
+    */
+    public Optional<MacroOracle> getMacroOracle() {
+        return Optional.ofNullable(macroOracle);
+    }
+
+    /**
+        Returns new options with the specified oracle.
+
+        @param newMacroOracle The oracle that tells whether a macro is
+            defined.
+        @return The new options.
+        @see #getMacroOracle()
+    */
+    public ParserOptions withMacroOracle(MacroOracle newMacroOracle) {
+        return new ParserOptions(Objects.requireNonNull(newMacroOracle),
+                metrics, tokenTypes, trivia, lazyDirectives, fidelity);
+    }
+
+    /**
+        Returns the metrics that the parser updates.
+
+        @return The metrics, or {@link Optional#empty()} if the parser does
+            not collect the metrics. The default is empty.
+        @see LexerMetrics
+    */
+    public Optional<LexerMetrics> getMetrics() {
+        return Optional.ofNullable(metrics);
+    }
+
+    /**
+        Returns new options with the specified metrics.
+
+        @param newMetrics The metrics that the parser updates.
+        @return The new options.
+        @see #getMetrics()
+    */
+    public ParserOptions withMetrics(LexerMetrics newMetrics) {
+        return new ParserOptions(macroOracle,
+                Objects.requireNonNull(newMetrics), tokenTypes, trivia,
+                lazyDirectives, fidelity);
+    }
+
+    /**
+        Returns the types of the tokens that the parser returns.
+
+        <p>The parser does not return the tokens of the other types, nor
+        the child tokens of the other types in the directives. It skips the
+        delimiters and comments that are not wanted without creating their
+        tokens, which saves most of the cost of lexing them. Note that the
+        parser still reads the directives and tracks the conditional
+        directives even if {@link TokenType#DIRECTIVE} is not wanted, and
+        that the span of the directive covers only the child tokens that the
+        parser returns.</p>
+
+        @return The unmodifiable {@link Set} containing the token types. The
+            default contains all the token types.
+    */
+    public Set<TokenType> getTokenTypes() {
+        return tokenTypes;
+    }
+
+    /**
+        Returns new options with the specified token types.
+
+        <p>For example, the options that make the parser return neither the
+        delimiters nor the comments are created as follows:</p>
+        <pre>
+        var unwanted = EnumSet.of(TokenType.DELIMITER, TokenType.COMMENT);
+        var options = ParserOptions.DEFAULT.withTokenTypes(
+                EnumSet.complementOf(unwanted));</pre>
+
+        <p>With {@link Trivia#TOKENS}, the token that follows the
+        delimiters or comments that the parser does not return has the
+        {@link TokenFlag#LEADING_SPACE} flag instead of them.</p>
+
+        @param newTokenTypes The types of the tokens that the parser
+            returns. Note that this method copies the set, so changes to the
+            set do not affect the new options.
+        @return The new options.
+        @see #getTokenTypes()
+    */
+    public ParserOptions withTokenTypes(Set<TokenType> newTokenTypes) {
+        var set = EnumSet.noneOf(TokenType.class);
+        set.addAll(newTokenTypes);
+        return new ParserOptions(macroOracle, metrics,
+                Collections.unmodifiableSet(set), trivia, lazyDirectives,
+                fidelity);
+    }
+
+    /**
+        Returns how the parser returns the delimiters and comments.
+
+        @return The way to return the delimiters and comments. The default
+            is {@link Trivia#TOKENS}.
+    */
+    public Trivia getTrivia() {
+        return trivia;
+    }
+
+    /**
+        Returns new options with the specified way to return the delimiters
+        and comments.
+
+        @param newTrivia The way to return the delimiters and comments.
+        @return The new options.
+        @see #getTrivia()
+    */
+    public ParserOptions withTrivia(Trivia newTrivia) {
+        return new ParserOptions(macroOracle, metrics, tokenTypes,
+                Objects.requireNonNull(newTrivia), lazyDirectives, fidelity);
+    }
+
+    /**
+        Returns whether the parser tokenizes the child tokens of the
+        directives lazily.
+
+        <p>If this option is enabled, the parser reads the tokens of the
+        directive up to the directive name, and then skips the rest of the
+        logical line only taking string literals, character constants, and
+        comments into account. The directive retains the characters of the
+        line and tokenizes them when its {@link Token#getChildren()} method
+        is invoked for the first time, so the tools that ignore most of the
+        directives, such as {@code #define} and {@code #pragma}, save the
+        cost of tokenizing their bodies.</p>
+
+        <p>The span of the lazy directive covers the whole logical line,
+        regardless of the token types and the trivia that the parser
+        returns. The parser still tokenizes the following directives
+        eagerly:</p>
+        <ul>
+        <li>The directives whose name is not recognized</li>
+        <li>The directives that take a header name, such as {@code
+        #include} and {@code #embed}</li>
+        <li>The directives that the parser tracks if the macro oracle is
+        present, that is, the conditional directives, {@code #define}, and
+        {@code #undef}</li>
+        </ul>
+        <p>Note that the parser with the metrics tokenizes the child tokens
+        to count them, immediately after it reads the directive.</p>
+
+        @return {@code true} if the parser tokenizes the child tokens of the
+            directives lazily. The default is {@code false}.
+        @see #getMacroOracle()
+    */
+    public boolean hasLazyDirectives() {
+        return lazyDirectives;
+    }
+
+    /**
+        Returns new options with the specified laziness of the directives.
+
+        @param newLazyDirectives Whether the parser tokenizes the child
+            tokens of the directives lazily.
+        @return The new options.
+        @see #hasLazyDirectives()
+    */
+    public ParserOptions withLazyDirectives(boolean newLazyDirectives) {
+        return new ParserOptions(macroOracle, metrics, tokenTypes, trivia,
+                newLazyDirectives, fidelity);
+    }
+
+    /**
+        Returns how faithfully the tokens that the parser returns represent
+        the source file.
+
+        <p>The parser with {@link Fidelity#SPANS} or {@link Fidelity#TEXT}
+        reads the whole source file into memory at first, and then reads
+        most of the tokens, delimiters, and comments directly from it,
+        without creating the {@link SourceChar} object for each character.
+        It reads the others as the parser with {@link Fidelity#FULL} does,
+        that is, the directives and the skipped groups, and the tokens that
+        contain the trigraph sequences, the backslashes followed by a
+        newline character, the digraph sequences, the universal character
+        names, or the non-ASCII characters, and the unterminated ones.</p>
+
+        <p>Note that the parser with the metrics does not read any token
+        directly, so that it counts every character it reads.</p>
+
+        @return The fidelity. The default is {@link Fidelity#FULL}.
+    */
+    public Fidelity getFidelity() {
+        return fidelity;
+    }
+
+    /**
+        Returns new options with the specified fidelity.
+
+        @param newFidelity How faithfully the tokens represent the source
+            file.
+        @return The new options.
+        @see #getFidelity()
+    */
+    public ParserOptions withFidelity(Fidelity newFidelity) {
+        return new ParserOptions(macroOracle, metrics, tokenTypes, trivia,
+                lazyDirectives, Objects.requireNonNull(newFidelity));
+    }
+
+    /**
+        The ways to return the delimiters and comments, which are called
+        trivia.
+    */
+    public enum Trivia {
+
+        /**
+            The parser returns the delimiters and comments as the tokens,
+            and the tokens do not have {@link TokenFlag#START_OF_LINE}. The
+            tokens have {@link TokenFlag#LEADING_SPACE} only if they follow
+            the delimiters or comments that the parser does not return
+            because of {@link ParserOptions#withTokenTypes(Set)}.
+        */
+        TOKENS,
+
+        /**
+            The parser does not return the delimiters and comments, and the
+            tokens that follow them, including the child tokens of the
+            directives, have {@link TokenFlag#LEADING_SPACE} and {@link
+            TokenFlag#START_OF_LINE} instead. The
+            delimiters and comments are skipped without creating their
+            tokens.
+        */
+        FLAGS,
+
+        /**
+            The parser does the same as {@link #FLAGS}, and the tokens also
+            have the spans of the delimiters and comments that precede them.
+
+            @see Token#getLeadingTrivia()
+        */
+        RANGES
+    }
+
+    /**
+        The levels of how faithfully the tokens represent the source file.
+    */
+    public enum Fidelity {
+
+        /**
+            The tokens have the characters that have their own spans and
+            child characters, that is, the characters substituted for the
+            trigraph and digraph sequences and the characters that follow a
+            backslash followed by a newline character have the original
+            characters as their children.
+        */
+        FULL,
+
+        /**
+            The tokens have the same types, strings, flags, and spans as
+            {@link #FULL}, but the parser does not create the characters of
+            the tokens that it reads directly from the source file. Their
+            {@link Token#getChars()} method creates the characters whenever
+            it is invoked.
+        */
+        SPANS,
+
+        /**
+            The tokens have the same types, strings, and flags as {@link
+            #FULL}, but their spans are meaningless because the parser does
+            not index the lines of the source file. The parser does not
+            create the characters as {@link #SPANS}.
+        */
+        TEXT
+    }
+}
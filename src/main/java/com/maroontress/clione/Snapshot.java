@@ -0,0 +1,215 @@
+package com.maroontress.clione;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.maroontress.clione.impl.SnapshotInput;
+import com.maroontress.clione.impl.SnapshotOutput;
+
+/**
+    The snapshot of the state after processing the common prefix of
+    translation units, such as a header file that all the source files
+    include first.
+
+    <p>The snapshot has the token buffers of the files, the macros that are
+    defined, and the include guards of the files. It is written in the
+    compact binary form, in which the token buffers are written as their
+    arrays, so reading it is much faster than lexing the files again. Each
+    translation unit can resume from the snapshot with its own copies of
+    the macro table and the include guards.</p>
+
+    <p>Note that the {@link Snapshot} object is an immutable object.</p>
+*/
+public final class Snapshot {
+
+    private static final int MAGIC = 0x434c4e53;
+    private static final int VERSION = 3;
+
+    private final Map<String, TokenBuffer> buffers;
+    private final List<Macro> macros;
+    private final IncludeGuards guards;
+
+    private Snapshot(Map<String, TokenBuffer> buffers, List<Macro> macros,
+                     IncludeGuards guards) {
+        this.buffers = Collections.unmodifiableMap(buffers);
+        this.macros = List.copyOf(macros);
+        this.guards = guards;
+    }
+
+    /**
+        Returns a new snapshot of the specified state.
+
+        @param buffers The map of the name of each file to its token buffer.
+        @param table The macro table.
+        @param guards The include guards.
+        @return The new snapshot.
+    */
+    public static Snapshot of(Map<String, TokenBuffer> buffers,
+                              MacroTable table, IncludeGuards guards) {
+        var newGuards = new IncludeGuards();
+        guards.forEach(newGuards::record);
+        return new Snapshot(new LinkedHashMap<>(buffers),
+                new ArrayList<>(table.getMacros()), newGuards);
+    }
+
+    /**
+        Returns the token buffers.
+
+        @return The unmodifiable map of the name of each file to its token
+            buffer.
+    */
+    public Map<String, TokenBuffer> getBuffers() {
+        return buffers;
+    }
+
+    /**
+        Returns a new macro table that contains the macros of this snapshot.
+
+        @return The new macro table.
+    */
+    public MacroTable newMacroTable() {
+        var table = new MacroTable();
+        macros.forEach(table::define);
+        return table;
+    }
+
+    /**
+        Returns new include guards that have the files of this snapshot.
+
+        @return The new include guards.
+    */
+    public IncludeGuards newIncludeGuards() {
+        var newGuards = new IncludeGuards();
+        guards.forEach(newGuards::record);
+        return newGuards;
+    }
+
+    /**
+        Writes this snapshot to the specified stream.
+
+        <p>This method flushes the stream, but does not close it.</p>
+
+        @param out The output stream.
+        @throws IOException If an I/O error occurs.
+    */
+    public void writeTo(OutputStream out) throws IOException {
+        var data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        var s = new SnapshotOutput(data);
+        s.writeInt(buffers.size());
+        for (var e : buffers.entrySet()) {
+            s.writeString(e.getKey());
+            e.getValue().writeTo(s);
+        }
+        s.writeInt(macros.size());
+        for (var m : macros) {
+            writeMacro(s, m);
+        }
+        s.writeInt(guards.size());
+        try {
+            guards.forEach((file, guard, once) -> {
+                try {
+                    s.writeString(file.toString());
+                    s.writeString(guard);
+                    s.writeBoolean(once);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        data.flush();
+    }
+
+    /**
+        Reads a snapshot from the specified stream.
+
+        <p>This method does not close the stream.</p>
+
+        @param in The input stream.
+        @return The new snapshot.
+        @throws IOException If an I/O error occurs.
+        @throws StreamCorruptedException If the stream does not contain a
+            snapshot of this version.
+    */
+    public static Snapshot readFrom(InputStream in) throws IOException {
+        var data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new StreamCorruptedException("not a snapshot");
+        }
+        var s = new SnapshotInput(data);
+        var buffers = new LinkedHashMap<String, TokenBuffer>();
+        var bufferCount = s.readInt();
+        for (var k = 0; k < bufferCount; ++k) {
+            var name = s.readString();
+            buffers.put(name, TokenBuffer.readFrom(s));
+        }
+        var macroCount = s.readInt();
+        var macros = new ArrayList<Macro>(macroCount);
+        for (var k = 0; k < macroCount; ++k) {
+            macros.add(readMacro(s));
+        }
+        var guards = new IncludeGuards();
+        var guardCount = s.readInt();
+        for (var k = 0; k < guardCount; ++k) {
+            var file = Path.of(s.readString());
+            var guard = s.readString();
+            guards.record(file, guard, s.readBoolean());
+        }
+        return new Snapshot(buffers, macros, guards);
+    }
+
+    private static void writeMacro(SnapshotOutput s, Macro m)
+            throws IOException {
+        s.writeString(m.getName());
+        s.writeBoolean(m.isFunctionLike());
+        s.writeBoolean(m.isVariadic());
+        var parameters = m.getParameters();
+        var size = m.isVariadic()
+                ? parameters.size() - 1
+                : parameters.size();
+        s.writeInt(size);
+        for (var k = 0; k < size; ++k) {
+            s.writeString(parameters.get(k));
+        }
+        var replacement = m.getReplacement();
+        s.writeInt(replacement.size());
+        for (var t : replacement) {
+            s.writeToken(t);
+        }
+    }
+
+    private static Macro readMacro(SnapshotInput s) throws IOException {
+        var name = s.readString();
+        var functionLike = s.readBoolean();
+        var variadic = s.readBoolean();
+        var size = s.readInt();
+        var parameters = new ArrayList<String>(size);
+        for (var k = 0; k < size; ++k) {
+            parameters.add(s.readString());
+        }
+        var replacementSize = s.readInt();
+        var replacement = new ArrayList<Token>(replacementSize);
+        for (var k = 0; k < replacementSize; ++k) {
+            replacement.add(s.readToken());
+        }
+        return functionLike
+                ? Macro.functionLike(name, parameters, variadic, replacement)
+                : Macro.objectLike(name, replacement);
+    }
+}
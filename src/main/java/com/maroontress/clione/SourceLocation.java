@@ -3,11 +3,18 @@ package com.maroontress.clione;
 /**
     The location of the source file.
 
+    <p>The location is represented either with its line and column numbers
+    or with its offset and the {@link LineMap} of the source file. In the
+    latter case, the line and column numbers are resolved only when they
+    are requested.</p>
+
     <p>Note that the {@link SourceLocation} instance is an immutable
     object.</p>
 */
 public final class SourceLocation {
 
+    private final LineMap map;
+    private final int offset;
     private final int line;
     private final int column;
 
@@ -26,17 +33,37 @@ public final class SourceLocation {
         if (column <= 0) {
             throw new IllegalArgumentException("column must be greater than 0");
         }
+        this.map = null;
+        this.offset = -1;
         this.line = line;
         this.column = column;
     }
 
+    /**
+        Creates a new instance with the offset.
+
+        @param map The mapping from offsets to line and column numbers of the
+            source file.
+        @param offset The offset in the source file.
+        @throws IllegalArgumentException If the {@code offset} is negative.
+    */
+    public SourceLocation(LineMap map, int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        this.map = map;
+        this.offset = offset;
+        this.line = 0;
+        this.column = 0;
+    }
+
     /**
         Returns the line number.
 
         @return The line number.
     */
     public int getLine() {
-        return line;
+        return (map == null) ? line : map.getLine(offset);
     }
 
     /**
@@ -45,7 +72,18 @@ public final class SourceLocation {
         @return The column number.
     */
     public int getColumn() {
-        return column;
+        return (map == null) ? column : map.getColumn(offset);
+    }
+
+    /**
+        Returns the offset in the source file.
+
+        @return The offset, or {@code -1} if this location has been created
+            with its line and column numbers.
+        @see LineMap
+    */
+    public int getOffset() {
+        return offset;
     }
 
     /**
@@ -62,6 +100,6 @@ public final class SourceLocation {
     */
     @Override
     public String toString() {
-        return "L" + line + ":" + column;
+        return "L" + getLine() + ":" + getColumn();
     }
 }
@@ -2,6 +2,8 @@ package com.maroontress.clione;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.IntStream;
 
 /**
@@ -63,6 +65,60 @@ public interface Token {
     */
     List<Token> getChildren();
 
+    /**
+        Returns the flags of this token.
+
+        <p>The default implementation returns an empty set.</p>
+
+        @return The unmodifiable set containing the flags of this token.
+        @see ParserOptions#getTrivia()
+    */
+    default Set<TokenFlag> getFlags() {
+        return Set.of();
+    }
+
+    /**
+        Tests whether this token has the specified flag.
+
+        @param flag The flag.
+        @return {@code true} if this token has the flag.
+    */
+    default boolean hasFlag(TokenFlag flag) {
+        return getFlags().contains(flag);
+    }
+
+    /**
+        Returns the span of the delimiters and comments that precede this
+        token and that the parser has folded into the flags.
+
+        <p>The span starts at the first character following the previous
+        token, and ends at the last character preceding this token. The
+        default implementation returns an empty value.</p>
+
+        @return The span of the delimiters and comments, or {@link
+            Optional#empty()} if there are none or the parser does not retain
+            them.
+        @see ParserOptions.Trivia#RANGES
+    */
+    default Optional<SourceSpan> getLeadingTrivia() {
+        return Optional.empty();
+    }
+
+    /**
+        Returns the kind of this token.
+
+        <p>The default implementation looks up the kind with the type and
+        the string of this token. The tokens that the parser creates have
+        the kinds that it has assigned when it recognizes them.</p>
+
+        @return The kind of the punctuator or keyword, or {@link
+            TokenKind#NONE} if this token is neither of them.
+        @see TokenKind#of(TokenType, String)
+    */
+    default TokenKind getKind() {
+        return TokenKind.of(getType(), getValue());
+    }
+
     /**
         Returns a new token that has the same content of this token but
         has the specified token type.
@@ -0,0 +1,674 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import com.maroontress.clione.impl.CompactToken;
+import com.maroontress.clione.impl.FlaggedToken;
+import com.maroontress.clione.impl.IndexedChar;
+import com.maroontress.clione.impl.LineIndex;
+import com.maroontress.clione.impl.SnapshotInput;
+import com.maroontress.clione.impl.SnapshotOutput;
+import com.maroontress.clione.impl.SourceChars;
+
+/**
+    The unmodifiable list of all the tokens in a source file, which stores
+    them in the arrays rather than in individual {@link Token} objects.
+
+    <p>The {@link TokenBuffer} object has the types, the offsets, the
+    flags, the spans of the leading trivia, and the parents of the tokens,
+    and the characters of all the tokens, in separate arrays in the order of
+    the source file. The child tokens of the
+    tokens of type {@link TokenType#DIRECTIVE} are also stored in them, each
+    following its parent token.</p>
+
+    <p>The {@link #get(int)} method returns a new {@link Token} object that
+    is only the view of the arrays, so it is cheap to create. However, the
+    tokens that have any characters substituted for digraph or trigraph
+    sequences, or following a backslash followed by a newline character, are
+    kept as they are, and the method returns them.</p>
+
+    <p>The {@link #getType(int)}, {@link #getKind(int)}, and {@link
+    #getValue(int)} methods return the type, the kind, and the string of the
+    token without creating the view.</p>
+
+    <p>Note that the {@link TokenBuffer} object is an immutable object.</p>
+*/
+public final class TokenBuffer extends AbstractList<Token>
+        implements RandomAccess {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private static final TokenKind[] KINDS = TokenKind.values();
+
+    private final Storage storage;
+    private final int from;
+    private final int to;
+
+    private TokenBuffer(Storage storage, int from, int to) {
+        this.storage = storage;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+        Returns a new buffer containing all the tokens that the specified
+        parser returns.
+
+        <p>This method invokes the {@link LexicalParser#next()} method of the
+        {@code parser} until it returns an empty token, but does not close
+        the {@code parser}.</p>
+
+        @param parser The lexical parser.
+        @return The new buffer.
+        @throws IOException If an I/O error occurs.
+    */
+    public static TokenBuffer of(LexicalParser parser) throws IOException {
+        var builder = new Builder();
+        for (;;) {
+            var maybeToken = parser.next();
+            if (maybeToken.isEmpty()) {
+                break;
+            }
+            builder.addRoot(maybeToken.get());
+        }
+        var storage = builder.toStorage();
+        return new TokenBuffer(storage, 0, storage.roots.length);
+    }
+
+    /**
+        Writes this buffer to the specified snapshot output.
+
+        @param out The snapshot output.
+        @throws IOException If an I/O error occurs.
+    */
+    void writeTo(SnapshotOutput out) throws IOException {
+        storage.writeTo(out);
+        out.writeInt(from);
+        out.writeInt(to);
+    }
+
+    /**
+        Reads a buffer from the specified snapshot input.
+
+        @param in The snapshot input.
+        @return The new buffer.
+        @throws IOException If an I/O error occurs.
+    */
+    static TokenBuffer readFrom(SnapshotInput in) throws IOException {
+        var storage = Storage.readFrom(in);
+        var from = in.readInt();
+        var to = in.readInt();
+        if (from > to || to > storage.roots.length) {
+            throw new StreamCorruptedException("malformed range");
+        }
+        return new TokenBuffer(storage, from, to);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Token get(int k) {
+        return storage.getToken(toNode(k));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    /**
+        Returns a view of the portion of this buffer between the specified
+        {@code fromIndex}, inclusive, and {@code toIndex}, exclusive.
+
+        <p>The buffer this method returns shares the arrays with this
+        buffer.</p>
+
+        @param fromIndex The low endpoint (inclusive).
+        @param toIndex The high endpoint (exclusive).
+        @return The view of the specified range within this buffer.
+        @throws IndexOutOfBoundsException If an endpoint index value is out of
+            range.
+    */
+    @Override
+    public TokenBuffer subList(int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, size());
+        return new TokenBuffer(storage, from + fromIndex, from + toIndex);
+    }
+
+    /**
+        Returns the type of the token at the specified position in this
+        buffer.
+
+        @param k The index of the token.
+        @return The type of the token.
+        @throws IndexOutOfBoundsException If the index is out of range.
+    */
+    public TokenType getType(int k) {
+        return storage.getType(toNode(k));
+    }
+
+    /**
+        Returns the kind of the token at the specified position in this
+        buffer.
+
+        @param k The index of the token.
+        @return The kind of the token.
+        @throws IndexOutOfBoundsException If the index is out of range.
+        @see Token#getKind()
+    */
+    public TokenKind getKind(int k) {
+        return storage.getKind(toNode(k));
+    }
+
+    /**
+        Returns a new string representing the token at the specified position
+        in this buffer.
+
+        @param k The index of the token.
+        @return The new string representing the token.
+        @throws IndexOutOfBoundsException If the index is out of range.
+        @see Token#getValue()
+    */
+    public String getValue(int k) {
+        return storage.getValue(toNode(k));
+    }
+
+    private int toNode(int k) {
+        Objects.checkIndex(k, size());
+        return storage.roots[from + k];
+    }
+
+    /**
+        The arrays of the tokens.
+
+        <p>The tokens are in preorder, so that the child tokens follow their
+        parent token. The characters of the token at {@code n} are in the
+        range from {@code textStarts[n]} to {@code textStarts[n + 1]} of
+        the {@code text}.</p>
+    */
+    private static final class Storage {
+
+        private final LineIndex index;
+        private final byte[] types;
+        private final byte[] kinds;
+        private final byte[] flags;
+        private final int[] triviaStarts;
+        private final int[] triviaEnds;
+        private final int[] parents;
+        private final int[] textStarts;
+        private final char[] text;
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] roots;
+        private final Map<Integer, Token> irregulars;
+
+        Storage(Builder b) {
+            var n = b.count;
+            index = b.index;
+            types = Arrays.copyOf(b.types, n);
+            kinds = Arrays.copyOf(b.kinds, n);
+            flags = Arrays.copyOf(b.flags, n);
+            triviaStarts = Arrays.copyOf(b.triviaStarts, n);
+            triviaEnds = Arrays.copyOf(b.triviaEnds, n);
+            parents = Arrays.copyOf(b.parents, n);
+            textStarts = Arrays.copyOf(b.textStarts, n + 1);
+            textStarts[n] = b.text.length();
+            text = b.text.toString().toCharArray();
+            starts = Arrays.copyOf(b.starts, n);
+            ends = Arrays.copyOf(b.ends, n);
+            roots = Arrays.copyOf(b.roots, b.rootCount);
+            irregulars = Map.copyOf(b.irregulars);
+        }
+
+        /**
+            Writes the arrays, where the offsets and the text starts are
+            written as the differences from the previous ones so that they
+            are small numbers.
+        */
+        void writeTo(SnapshotOutput out) throws IOException {
+            out.writeBoolean(index != null);
+            if (index != null) {
+                out.writeLineIndex(index);
+            }
+            writeNodes(out);
+            out.writeChars(new String(text));
+            out.writeInt(roots.length);
+            var lastRoot = 0;
+            for (var r : roots) {
+                out.writeInt(r - lastRoot);
+                lastRoot = r;
+            }
+            out.writeInt(irregulars.size());
+            for (var e : irregulars.entrySet()) {
+                out.writeInt(e.getKey());
+                out.writeToken(e.getValue(), index);
+            }
+        }
+
+        private void writeNodes(SnapshotOutput out) throws IOException {
+            var n = types.length;
+            out.writeInt(n);
+            var lastStart = 0;
+            for (var k = 0; k < n; ++k) {
+                out.writeInt(types[k]);
+                out.writeInt(k - parents[k]);
+                out.writeInt(textStarts[k + 1] - textStarts[k]);
+                out.writeSignedInt(starts[k] - lastStart);
+                out.writeSignedInt(ends[k] - starts[k]);
+                out.writeInt(flags[k]);
+                // Zero means no trivia, since the trivia precedes the token
+                out.writeInt((triviaStarts[k] < 0)
+                        ? 0
+                        : starts[k] - triviaStarts[k]);
+                if (triviaStarts[k] >= 0) {
+                    out.writeInt(starts[k] - triviaEnds[k]);
+                }
+                if (starts[k] >= 0) {
+                    lastStart = starts[k];
+                }
+            }
+        }
+
+        static Storage readFrom(SnapshotInput in) throws IOException {
+            var b = new Builder();
+            b.readFrom(in);
+            return b.toStorage();
+        }
+
+        Token getToken(int n) {
+            var token = irregulars.get(n);
+            return (token != null) ? token : new View(this, n);
+        }
+
+        TokenType getType(int n) {
+            return TYPES[types[n]];
+        }
+
+        TokenKind getKind(int n) {
+            return KINDS[kinds[n] & 0xff];
+        }
+
+        SourceSpan getTrivia(int n) {
+            if (triviaStarts[n] < 0) {
+                return null;
+            }
+            return new SourceSpan(new SourceLocation(index, triviaStarts[n]),
+                    new SourceLocation(index, triviaEnds[n]));
+        }
+
+        String getValue(int n) {
+            var start = textStarts[n];
+            return new String(text, start, textStarts[n + 1] - start);
+        }
+
+        boolean isValue(int n, String value) {
+            var start = textStarts[n];
+            var size = textStarts[n + 1] - start;
+            if (value.length() != size) {
+                return false;
+            }
+            for (var k = 0; k < size; ++k) {
+                if (value.charAt(k) != text[start + k]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        List<Token> getChildren(int n) {
+            var list = new ArrayList<Token>();
+            var count = parents.length;
+            for (var k = n + 1; k < count && parents[k] >= n; ++k) {
+                if (parents[k] == n) {
+                    list.add(getToken(k));
+                }
+            }
+            return List.copyOf(list);
+        }
+    }
+
+    /**
+        The view of the token in the storage.
+    */
+    private static final class View implements Token {
+
+        private final Storage s;
+        private final int n;
+
+        View(Storage s, int n) {
+            this.s = s;
+            this.n = n;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getValue() {
+            return s.getValue(n);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public SourceSpan getSpan() {
+            var start = new SourceLocation(s.index, s.starts[n]);
+            var children = getChildren();
+            if (children.isEmpty()) {
+                var end = new SourceLocation(s.index, s.ends[n]);
+                return new SourceSpan(start, end);
+            }
+            var end = children.get(children.size() - 1)
+                    .getSpan()
+                    .getEnd();
+            return new SourceSpan(start, end);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public List<SourceChar> getChars() {
+            var textStart = s.textStarts[n];
+            var size = s.textStarts[n + 1] - textStart;
+            var offset = s.starts[n];
+            return new CharList(size) {
+                @Override
+                public SourceChar get(int k) {
+                    Objects.checkIndex(k, size);
+                    var c = s.text[textStart + k];
+                    return SourceChars.of(c, s.index, offset + k);
+                }
+            };
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public TokenType getType() {
+            return s.getType(n);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public TokenKind getKind() {
+            return s.getKind(n);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public List<Token> getChildren() {
+            return s.getChildren(n);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Set<TokenFlag> getFlags() {
+            return FlaggedToken.toSet(s.flags[n]);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasFlag(TokenFlag flag) {
+            return (s.flags[n] & FlaggedToken.bitOf(flag)) != 0;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Optional<SourceSpan> getLeadingTrivia() {
+            return Optional.ofNullable(s.getTrivia(n));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Token withType(TokenType newType) {
+            return toToken().withType(newType);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Token withChildren(Collection<Token> newChildren) {
+            return toToken().withChildren(newChildren);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isValue(String value) {
+            return s.isValue(n, value);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return "[value=" + getValue() + ", "
+                    + "span=" + getSpan() + ", "
+                    + "chars=" + getChars() + ", "
+                    + "type=" + getType() + ", "
+                    + "children=" + getChildren() + "]";
+        }
+
+        private Token toToken() {
+            var token = CompactToken.of(getValue(), getType(), s.index,
+                            s.starts[n])
+                    .withChildren(getChildren());
+            return FlaggedToken.of(token, s.flags[n], s.getTrivia(n));
+        }
+    }
+
+    /**
+        The unmodifiable list of the characters with the fixed size.
+    */
+    private abstract static class CharList extends AbstractList<SourceChar>
+            implements RandomAccess {
+
+        private final int size;
+
+        CharList(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public final int size() {
+            return size;
+        }
+    }
+
+    /**
+        The builder of the storage.
+    */
+    private static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 256;
+
+        private final StringBuilder text = new StringBuilder();
+        private final Map<Integer, Token> irregulars = new HashMap<>();
+        private LineIndex index;
+        private byte[] types = new byte[INITIAL_CAPACITY];
+        private byte[] kinds = new byte[INITIAL_CAPACITY];
+        private byte[] flags = new byte[INITIAL_CAPACITY];
+        private int[] triviaStarts = new int[INITIAL_CAPACITY];
+        private int[] triviaEnds = new int[INITIAL_CAPACITY];
+        private int[] parents = new int[INITIAL_CAPACITY];
+        private int[] textStarts = new int[INITIAL_CAPACITY];
+        private int[] starts = new int[INITIAL_CAPACITY];
+        private int[] ends = new int[INITIAL_CAPACITY];
+        private int[] roots = new int[INITIAL_CAPACITY];
+        private int count;
+        private int rootCount;
+
+        void addRoot(Token token) {
+            if (rootCount == roots.length) {
+                roots = Arrays.copyOf(roots, rootCount * 2);
+            }
+            roots[rootCount] = count;
+            ++rootCount;
+            add(token, -1);
+        }
+
+        Storage toStorage() {
+            return new Storage(this);
+        }
+
+        /**
+            Reads the arrays that {@link Storage#writeTo(SnapshotOutput)}
+            writes.
+        */
+        void readFrom(SnapshotInput in) throws IOException {
+            if (in.readBoolean()) {
+                index = in.readLineIndex();
+            }
+            readNodes(in);
+            var chars = in.readChars();
+            if (chars.length() != textStarts[count]) {
+                throw new StreamCorruptedException("malformed text");
+            }
+            text.append(chars);
+            // The kinds are not written, since they depend only on the
+            // types and the strings.
+            for (var k = 0; k < count; ++k) {
+                var start = textStarts[k];
+                var value = chars.substring(start, textStarts[k + 1]);
+                kinds[k] = (byte) TokenKind.of(TYPES[types[k]], value)
+                        .ordinal();
+            }
+            rootCount = in.readInt();
+            roots = new int[rootCount];
+            var lastRoot = 0;
+            for (var k = 0; k < rootCount; ++k) {
+                roots[k] = lastRoot + in.readInt();
+                lastRoot = roots[k];
+            }
+            var irregularCount = in.readInt();
+            for (var k = 0; k < irregularCount; ++k) {
+                var key = in.readInt();
+                irregulars.put(key, in.readToken(index));
+            }
+        }
+
+        private void readNodes(SnapshotInput in) throws IOException {
+            var n = in.readInt();
+            count = n;
+            types = new byte[n];
+            kinds = new byte[n];
+            flags = new byte[n];
+            triviaStarts = new int[n];
+            triviaEnds = new int[n];
+            parents = new int[n];
+            textStarts = new int[n + 1];
+            starts = new int[n];
+            ends = new int[n];
+            var lastStart = 0;
+            for (var k = 0; k < n; ++k) {
+                types[k] = (byte) in.readType().ordinal();
+                parents[k] = k - in.readInt();
+                textStarts[k + 1] = textStarts[k] + in.readInt();
+                starts[k] = lastStart + in.readSignedInt();
+                ends[k] = starts[k] + in.readSignedInt();
+                flags[k] = (byte) in.readInt();
+                var triviaStart = in.readInt();
+                triviaStarts[k] = (triviaStart == 0)
+                        ? -1
+                        : starts[k] - triviaStart;
+                triviaEnds[k] = (triviaStart == 0)
+                        ? -1
+                        : starts[k] - in.readInt();
+                if (starts[k] >= 0) {
+                    lastStart = starts[k];
+                }
+            }
+        }
+
+        private void add(Token token, int parent) {
+            if (count == types.length) {
+                var capacity = count * 2;
+                types = Arrays.copyOf(types, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+                flags = Arrays.copyOf(flags, capacity);
+                triviaStarts = Arrays.copyOf(triviaStarts, capacity);
+                triviaEnds = Arrays.copyOf(triviaEnds, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                textStarts = Arrays.copyOf(textStarts, capacity + 1);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+            }
+            var n = count;
+            ++count;
+            types[n] = (byte) token.getType().ordinal();
+            kinds[n] = (byte) token.getKind().ordinal();
+            flags[n] = (byte) FlaggedToken.bitsOf(token);
+            parents[n] = parent;
+            textStarts[n] = text.length();
+            text.append(token.getValue());
+            var trivia = token.getLeadingTrivia().orElse(null);
+            var plain = (token instanceof FlaggedToken)
+                    ? ((FlaggedToken) token).getToken()
+                    : token;
+            if (!isRegular(plain) || !isRegular(trivia)) {
+                if (index == null) {
+                    // The snapshot writes the offsets of the irregular
+                    // tokens with the line index.
+                    index = indexOf(token);
+                }
+                irregulars.put(n, token);
+                starts[n] = -1;
+                ends[n] = -1;
+                triviaStarts[n] = -1;
+                triviaEnds[n] = -1;
+                return;
+            }
+            triviaStarts[n] = (trivia == null)
+                    ? -1
+                    : trivia.getStart().getOffset();
+            triviaEnds[n] = (trivia == null)
+                    ? -1
+                    : trivia.getEnd().getOffset();
+            var compact = (CompactToken) plain;
+            index = compact.getIndex();
+            starts[n] = compact.getStartOffset();
+            ends[n] = compact.getEndOffset();
+            for (var child : token.getChildren()) {
+                add(child, n);
+            }
+        }
+
+        private static LineIndex indexOf(Token token) {
+            for (var c : token.getChars()) {
+                var leaf = c;
+                while (!leaf.getChildren().isEmpty()) {
+                    leaf = leaf.getChildren().get(0);
+                }
+                if (leaf instanceof IndexedChar) {
+                    return ((IndexedChar) leaf).getIndex();
+                }
+            }
+            for (var child : token.getChildren()) {
+                var index = indexOf(child);
+                if (index != null) {
+                    return index;
+                }
+            }
+            return null;
+        }
+
+        private static boolean isRegular(SourceSpan trivia) {
+            return trivia == null
+                    || (trivia.getStart().getOffset() >= 0
+                        && trivia.getEnd().getOffset() >= 0);
+        }
+
+        private boolean isRegular(Token token) {
+            if (!(token instanceof CompactToken)) {
+                return false;
+            }
+            var compact = (CompactToken) token;
+            return !compact.hasExceptionalChars()
+                    && (index == null || index == compact.getIndex());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.maroontress.clione;
+
+/**
+    The constants representing the properties of the token that the token
+    itself does not tell.
+
+    <p>The {@link LexicalParser} object sets {@link #START_OF_LINE} only if
+    its {@link ParserOptions} fold the delimiters and comments into the
+    flags, and {@link #LEADING_SPACE} also if they exclude the delimiters or
+    comments from the token types. It always sets the other flags,
+    which it records while it reads the characters of the token, so that
+    the clients need not walk the characters of every token and their child
+    characters to find out them.</p>
+
+    @see Token#getFlags()
+    @see ParserOptions#getTrivia()
+*/
+public enum TokenFlag {
+
+    /**
+        The token is preceded by a delimiter or a comment on the same line,
+        that is, by the one between the token and the previous token or the
+        start of the line.
+
+        <p>For example, the identifier {@code F} in {@code #define F (x)}
+        has this flag, but the left parenthesis in {@code #define F(x)} does
+        not.</p>
+    */
+    LEADING_SPACE,
+
+    /**
+        The token is the first token of the line other than the delimiters
+        and comments.
+
+        <p>Note that the token following a comment that contains a newline
+        character is not the first token of the line, unless a newline
+        character also precedes it outside the comments.</p>
+    */
+    START_OF_LINE,
+
+    /**
+        The token contains a character substituted for a trigraph sequence.
+    */
+    TRIGRAPH,
+
+    /**
+        The token contains a character substituted for a digraph sequence.
+
+        <p>For example, the punctuator {@code <:} has this flag.</p>
+    */
+    DIGRAPH,
+
+    /**
+        The token contains a character that follows a backslash followed by
+        a newline character, that is, the token spans the lines joined with
+        the line splicing.
+    */
+    SPLICE,
+
+    /**
+        The token contains a universal character name ({@code \}{@code
+        uXXXX} or {@code \}{@code UXXXXXXXX}), in the identifier or in the
+        escape sequence of the string literal or character constant.
+    */
+    UCN,
+
+    /**
+        The string literal, character constant, header name, or comment is
+        not terminated before the end of the line or EOF.
+    */
+    UNTERMINATED
+}
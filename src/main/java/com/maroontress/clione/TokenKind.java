@@ -0,0 +1,357 @@
+package com.maroontress.clione;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+    The kinds of the punctuators and keywords.
+
+    <p>The parser assigns the kind to each token of type {@link
+    TokenType#OPERATOR} or {@link TokenType#PUNCTUATOR} when it recognizes
+    the token, so that the clients can switch on the kind rather than
+    compare the strings. The digraph sequences have the same kinds as the
+    punctuators that they represent, for example, {@code <:} has {@link
+    #LEFT_BRACKET}. The tokens of type {@link TokenType#RESERVED} have the
+    kinds of the keywords of C23 and the earlier standards, or {@link
+    #NONE} if the reserved words contain other words. The tokens of the
+    other types have {@link #NONE}.</p>
+
+    <p>The constants are only appended in the future versions, so their
+    ordinals are small and stable integers.</p>
+
+    @see Token#getKind()
+*/
+public enum TokenKind {
+
+    /** The token is neither a punctuator nor a keyword. */
+    NONE(""),
+    /** {@code [}. */
+    LEFT_BRACKET("["),
+    /** {@code ]}. */
+    RIGHT_BRACKET("]"),
+    /** {@code (}. */
+    LEFT_PAREN("("),
+    /** {@code )}. */
+    RIGHT_PAREN(")"),
+    /** <code>&#123;</code>. */
+    LEFT_BRACE("{"),
+    /** <code>&#125;</code>. */
+    RIGHT_BRACE("}"),
+    /** {@code .}. */
+    PERIOD("."),
+    /** {@code ->}. */
+    ARROW("->"),
+    /** {@code ++}. */
+    PLUS_PLUS("++"),
+    /** {@code --}. */
+    MINUS_MINUS("--"),
+    /** {@code &}. */
+    AMPERSAND("&"),
+    /** {@code *}. */
+    STAR("*"),
+    /** {@code +}. */
+    PLUS("+"),
+    /** {@code -}. */
+    MINUS("-"),
+    /** {@code ~}. */
+    TILDE("~"),
+    /** {@code !}. */
+    EXCLAMATION("!"),
+    /** {@code /}. */
+    SLASH("/"),
+    /** {@code %}. */
+    PERCENT("%"),
+    /** {@code <<}. */
+    LESS_LESS("<<"),
+    /** {@code >>}. */
+    GREATER_GREATER(">>"),
+    /** {@code <}. */
+    LESS("<"),
+    /** {@code >}. */
+    GREATER(">"),
+    /** {@code <=}. */
+    LESS_EQUAL("<="),
+    /** {@code >=}. */
+    GREATER_EQUAL(">="),
+    /** {@code ==}. */
+    EQUAL_EQUAL("=="),
+    /** {@code !=}. */
+    EXCLAMATION_EQUAL("!="),
+    /** {@code ^}. */
+    CARET("^"),
+    /** {@code |}. */
+    PIPE("|"),
+    /** {@code &&}. */
+    AMPERSAND_AMPERSAND("&&"),
+    /** {@code ||}. */
+    PIPE_PIPE("||"),
+    /** {@code ?}. */
+    QUESTION("?"),
+    /** {@code :}. */
+    COLON(":"),
+    /** {@code ;}. */
+    SEMICOLON(";"),
+    /** {@code ...}. */
+    ELLIPSIS("..."),
+    /** {@code =}. */
+    EQUAL("="),
+    /** {@code *=}. */
+    STAR_EQUAL("*="),
+    /** {@code /=}. */
+    SLASH_EQUAL("/="),
+    /** {@code %=}. */
+    PERCENT_EQUAL("%="),
+    /** {@code +=}. */
+    PLUS_EQUAL("+="),
+    /** {@code -=}. */
+    MINUS_EQUAL("-="),
+    /** {@code <<=}. */
+    LESS_LESS_EQUAL("<<="),
+    /** {@code >>=}. */
+    GREATER_GREATER_EQUAL(">>="),
+    /** {@code &=}. */
+    AMPERSAND_EQUAL("&="),
+    /** {@code ^=}. */
+    CARET_EQUAL("^="),
+    /** {@code |=}. */
+    PIPE_EQUAL("|="),
+    /** {@code ,}. */
+    COMMA(","),
+    /** {@code #}. */
+    HASH("#"),
+    /** {@code ##}. */
+    HASH_HASH("##"),
+    /** {@code auto}. */
+    AUTO("auto"),
+    /** {@code break}. */
+    BREAK("break"),
+    /** {@code case}. */
+    CASE("case"),
+    /** {@code char}. */
+    CHAR("char"),
+    /** {@code const}. */
+    CONST("const"),
+    /** {@code continue}. */
+    CONTINUE("continue"),
+    /** {@code default}. */
+    DEFAULT("default"),
+    /** {@code do}. */
+    DO("do"),
+    /** {@code double}. */
+    DOUBLE("double"),
+    /** {@code else}. */
+    ELSE("else"),
+    /** {@code enum}. */
+    ENUM("enum"),
+    /** {@code extern}. */
+    EXTERN("extern"),
+    /** {@code float}. */
+    FLOAT("float"),
+    /** {@code for}. */
+    FOR("for"),
+    /** {@code goto}. */
+    GOTO("goto"),
+    /** {@code if}. */
+    IF("if"),
+    /** {@code inline}. */
+    INLINE("inline"),
+    /** {@code int}. */
+    INT("int"),
+    /** {@code long}. */
+    LONG("long"),
+    /** {@code register}. */
+    REGISTER("register"),
+    /** {@code restrict}. */
+    RESTRICT("restrict"),
+    /** {@code return}. */
+    RETURN("return"),
+    /** {@code short}. */
+    SHORT("short"),
+    /** {@code signed}. */
+    SIGNED("signed"),
+    /** {@code sizeof}. */
+    SIZEOF("sizeof"),
+    /** {@code static}. */
+    STATIC("static"),
+    /** {@code struct}. */
+    STRUCT("struct"),
+    /** {@code switch}. */
+    SWITCH("switch"),
+    /** {@code typedef}. */
+    TYPEDEF("typedef"),
+    /** {@code union}. */
+    UNION("union"),
+    /** {@code unsigned}. */
+    UNSIGNED("unsigned"),
+    /** {@code void}. */
+    VOID("void"),
+    /** {@code volatile}. */
+    VOLATILE("volatile"),
+    /** {@code while}. */
+    WHILE("while"),
+    /** {@code _Alignas}. */
+    _ALIGNAS("_Alignas"),
+    /** {@code _Alignof}. */
+    _ALIGNOF("_Alignof"),
+    /** {@code _Atomic}. */
+    _ATOMIC("_Atomic"),
+    /** {@code _Bool}. */
+    _BOOL("_Bool"),
+    /** {@code _Complex}. */
+    _COMPLEX("_Complex"),
+    /** {@code _Generic}. */
+    _GENERIC("_Generic"),
+    /** {@code _Imaginary}. */
+    _IMAGINARY("_Imaginary"),
+    /** {@code _Noreturn}. */
+    _NORETURN("_Noreturn"),
+    /** {@code _Static_assert}. */
+    _STATIC_ASSERT("_Static_assert"),
+    /** {@code _Thread_local}. */
+    _THREAD_LOCAL("_Thread_local"),
+    /** {@code alignas} (C23). */
+    ALIGNAS("alignas"),
+    /** {@code alignof} (C23). */
+    ALIGNOF("alignof"),
+    /** {@code bool} (C23). */
+    BOOL("bool"),
+    /** {@code constexpr} (C23). */
+    CONSTEXPR("constexpr"),
+    /** {@code false} (C23). */
+    FALSE("false"),
+    /** {@code nullptr} (C23). */
+    NULLPTR("nullptr"),
+    /** {@code static_assert} (C23). */
+    STATIC_ASSERT("static_assert"),
+    /** {@code thread_local} (C23). */
+    THREAD_LOCAL("thread_local"),
+    /** {@code true} (C23). */
+    TRUE("true"),
+    /** {@code typeof} (C23). */
+    TYPEOF("typeof"),
+    /** {@code typeof_unqual} (C23). */
+    TYPEOF_UNQUAL("typeof_unqual"),
+    /** {@code _BitInt} (C23). */
+    _BITINT("_BitInt"),
+    /** {@code _Decimal128} (C23). */
+    _DECIMAL128("_Decimal128"),
+    /** {@code _Decimal32} (C23). */
+    _DECIMAL32("_Decimal32"),
+    /** {@code _Decimal64} (C23). */
+    _DECIMAL64("_Decimal64");
+
+    private final String spelling;
+    private final boolean keyword;
+
+    TokenKind(String spelling) {
+        this.spelling = spelling;
+        this.keyword = !spelling.isEmpty()
+                && Character.isJavaIdentifierStart(spelling.charAt(0));
+    }
+
+    /**
+        Returns the spelling of this kind.
+
+        @return The spelling, or the empty string if this kind is {@link
+            #NONE}.
+    */
+    public String getSpelling() {
+        return spelling;
+    }
+
+    /**
+        Returns whether this kind is a punctuator.
+
+        @return {@code true} if this kind is a punctuator.
+    */
+    public boolean isPunctuator() {
+        return !keyword && this != NONE;
+    }
+
+    /**
+        Returns whether this kind is a keyword.
+
+        @return {@code true} if this kind is a keyword.
+    */
+    public boolean isKeyword() {
+        return keyword;
+    }
+
+    /**
+        Returns the kind of the punctuator or keyword that has the specified
+        spelling.
+
+        <p>The digraph sequences, including {@code %:%:}, have the kinds of
+        the punctuators that they represent.</p>
+
+        @param spelling The spelling.
+        @return The kind, or {@link #NONE} if the spelling is neither a
+            punctuator nor a keyword.
+    */
+    public static TokenKind ofSpelling(String spelling) {
+        var kind = Table.PUNCTUATORS.get(spelling);
+        if (kind != null) {
+            return kind;
+        }
+        return Table.KEYWORDS.getOrDefault(spelling, NONE);
+    }
+
+    /**
+        Returns the kind of the token that has the specified type and
+        string.
+
+        @param type The token type.
+        @param value The string of the token.
+        @return The kind of the punctuator if the type is {@link
+            TokenType#OPERATOR} or {@link TokenType#PUNCTUATOR}, the kind of
+            the keyword if the type is {@link TokenType#RESERVED}, or
+            {@link #NONE} otherwise or if the string is not the one of them.
+    */
+    public static TokenKind of(TokenType type, String value) {
+        if (type == TokenType.OPERATOR || type == TokenType.PUNCTUATOR) {
+            return Table.PUNCTUATORS.getOrDefault(value, NONE);
+        }
+        if (type == TokenType.RESERVED) {
+            return Table.KEYWORDS.getOrDefault(value, NONE);
+        }
+        return NONE;
+    }
+
+    /**
+        The maps from the spellings to the kinds.
+    */
+    private static final class Table {
+
+        private static final Map<String, TokenKind> PUNCTUATORS
+                = newPunctuatorMap();
+
+        private static final Map<String, TokenKind> KEYWORDS
+                = newKeywordMap();
+
+        private static Map<String, TokenKind> newPunctuatorMap() {
+            var map = new HashMap<String, TokenKind>();
+            for (var k : values()) {
+                if (k.isPunctuator()) {
+                    map.put(k.spelling, k);
+                }
+            }
+            map.put("<:", LEFT_BRACKET);
+            map.put(":>", RIGHT_BRACKET);
+            map.put("<%", LEFT_BRACE);
+            map.put("%>", RIGHT_BRACE);
+            map.put("%:", HASH);
+            map.put("%:%:", HASH_HASH);
+            return Map.copyOf(map);
+        }
+
+        private static Map<String, TokenKind> newKeywordMap() {
+            var map = new HashMap<String, TokenKind>();
+            for (var k : values()) {
+                if (k.keyword) {
+                    map.put(k.spelling, k);
+                }
+            }
+            return Map.copyOf(map);
+        }
+    }
+}
@@ -1,23 +1,18 @@
 package com.maroontress.clione;
 
 import java.io.IOException;
-import java.io.StringReader;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Deque;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
 import com.maroontress.clione.impl.DirectiveParseKit;
-import com.maroontress.clione.impl.ReaderSource;
 import com.maroontress.clione.impl.ReparseSource;
-import com.maroontress.clione.impl.SourceChars;
+import com.maroontress.clione.impl.StringizedToken;
 import com.maroontress.clione.impl.TokenBuilder;
-import com.maroontress.clione.impl.Transcriber;
+import com.maroontress.clione.impl.TokenClassifier;
 import com.maroontress.clione.impl.DirectiveParseKit.TokenListConsumer;
 
 /**
@@ -62,10 +57,10 @@ public final class Tokens {
             String filename,
             Set<String> reservedWords,
             Function<DirectiveParseKit, TokenListConsumer> toConsumer) {
-        var charList = tokens.stream()
-                .flatMap(t -> t.getChars().stream())
-                .toList();
-        var source = new ReparseSource(charList, filename);
+        var tokenList = (tokens instanceof List)
+                ? (List<Token>) tokens
+                : List.copyOf(tokens);
+        var source = new ReparseSource(tokenList, filename);
         var list = new ArrayList<Token>();
         var kit = new DirectiveParseKit(source, reservedWords);
         try {
@@ -91,6 +86,9 @@ public final class Tokens {
         <li>Any sequence of one or more whitespace tokens between
             non-whitespace tokens is collapsed to a single ASCII space
             (U+0020).</li>
+        <li>A token other than the first one that has the {@link
+            TokenFlag#LEADING_SPACE} flag is preceded by a single ASCII
+            space, as if whitespace tokens preceded it.</li>
         <li>Whitespace that belongs to embedded string-literal tokens (i.e.,
             tokens that are not whitespace) is preserved and is not collapsed.
             </li>
@@ -120,35 +118,7 @@ public final class Tokens {
             > of whitespace in the middle of the text (but not inside embedded
             > string literals) is collapsed to a single space.
         */
-        var queue = new ArrayDeque<>(tokens);
-        trimLeading(queue);
-        trimTrailing(queue);
-
-        var doubleQuote = newSourceChar('"', where);
-        var singleSpace = newSourceChar(' ', where);
-        var backslash = newSourceChar('\\', where);
-        var builder = new TokenBuilder();
-        builder.append(doubleQuote);
-        for (;;) {
-            if (queue.isEmpty()) {
-                break;
-            }
-            var token = queue.removeFirst();
-            if (isDelimiterOrComment(token)) {
-                trimLeading(queue);
-                builder.append(singleSpace);
-                continue;
-            }
-            token.getChars().forEach(c -> {
-                var raw = c.toChar();
-                if (raw == '\\' || raw == '"') {
-                    builder.append(backslash);
-                }
-                builder.append(c);
-            });
-        }
-        builder.append(doubleQuote);
-        return builder.toToken(TokenType.STRING);
+        return StringizedToken.of(tokens, where);
     }
 
     /**
@@ -185,53 +155,8 @@ public final class Tokens {
         if (reservedWords.contains(tokenString)) {
             return builder.toToken(TokenType.RESERVED);
         }
-        return getTokenType(tokenString)
-                .map(builder::toToken)
-                .orElseGet(() -> builder.toToken(TokenType.UNKNOWN));
-    }
-
-    private static Optional<TokenType> getTokenType(String tokenString) {
-        var source = new ReaderSource(new StringReader(tokenString), null);
-        var x = new Transcriber(source);
-        try {
-            var type = x.readToken();
-            /*
-                TokenBuilder#toTokenString() never returns an empty string,
-                so the null-check below is unnecessary:
-
-                    if (type == null) {
-                        return Optional.empty();
-                    }
-
-                We therefore assume 'type' is non-null here.
-            */
-            var nextType = x.readToken();
-            if (nextType != null) {
-                // This means the concatenated string represents more than one
-                // tokens.
-                return Optional.empty();
-            }
-            return Optional.of(type);
-        } catch (IOException e) {
-            // This should not happen with StringReader.
-            return Optional.empty();
-        }
-    }
-
-    private static void trimLeading(Deque<Token> queue) {
-        while (!queue.isEmpty() && isDelimiterOrComment(queue.peekFirst())) {
-            queue.removeFirst();
-        }
-    }
-
-    private static void trimTrailing(Deque<Token> queue) {
-        while (!queue.isEmpty() && isDelimiterOrComment(queue.peekLast())) {
-            queue.removeLast();
-        }
-    }
-
-    private static SourceChar newSourceChar(char c, SourceLocation location) {
-        return SourceChars.of(c, location.getColumn(), location.getLine());
+        return builder.toToken(TokenClassifier.classifyPaste(
+                left.getType(), right.getType(), tokenString));
     }
 
     /**
@@ -0,0 +1,250 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.SourceLocation;
+
+/**
+    This source reads all the characters from upstream reader into the
+    buffer when they are requested for the first time, unifying newlines
+    and building the line index.
+
+    <p>Like {@link ReaderSource}, the characters that this source returns
+    have their offset. In addition, this source allows the {@link
+    FastScanner} object to read the characters in the buffer directly,
+    without creating the {@link SourceChar} objects.</p>
+*/
+public final class BufferSource implements Source {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final boolean indexesLines;
+    private final Deque<SourceChar> stack;
+    private Reader reader;
+    private LineIndex index;
+    private char[] buffer;
+    private int length;
+    private int offset;
+
+    /**
+        Creates a new source.
+
+        @param reader The reader from which characters will be read.
+        @param filename The filename.
+        @param indexesLines Whether this source builds the line index. If
+            it is {@code false}, the line index has only the first line, so
+            the line and column numbers of the characters are meaningless.
+    */
+    public BufferSource(Reader reader, String filename,
+                        boolean indexesLines) {
+        this.reader = reader;
+        this.index = new LineIndex(filename);
+        this.indexesLines = indexesLines;
+        stack = new ArrayDeque<>();
+    }
+
+    /**
+        Resets this source so that it reads characters from the specified
+        reader.
+
+        <p>This source creates a new line index, so the characters that it
+        has returned remain valid.</p>
+
+        @param newReader The reader from which characters will be read.
+        @param filename The filename.
+    */
+    public void reset(Reader newReader, String filename) {
+        reader = newReader;
+        index = new LineIndex(filename);
+        stack.clear();
+        buffer = null;
+        length = 0;
+        offset = 0;
+    }
+
+    /**
+        Returns the offset of the next character, discarding the characters
+        that have been pushed back, so that the buffer can be read directly.
+
+        <p>The characters that have been pushed back must be the ones that
+        have been read last, as the sources downstream do, so discarding
+        them moves the current location back to the first of them.</p>
+
+        @return The offset of the next character.
+        @throws IOException If an I/O error occurs.
+    */
+    public int rewind() throws IOException {
+        fill();
+        var c = stack.peekFirst();
+        if (c != null) {
+            offset = offsetOf(c);
+            stack.clear();
+        }
+        return offset;
+    }
+
+    /**
+        Moves the current location to the specified offset.
+
+        <p>This source must have no characters that have been pushed back,
+        that is, the {@link #rewind()} method must have been invoked since
+        this source has pushed back the last character.</p>
+
+        @param newOffset The offset of the next character.
+    */
+    public void seek(int newOffset) {
+        offset = newOffset;
+    }
+
+    /**
+        Returns the buffer, which may be longer than the source file.
+
+        <p>The {@link #rewind()} method must have been invoked before this
+        method.</p>
+
+        @return The buffer.
+    */
+    public char[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+        Returns the number of the characters in the buffer.
+
+        <p>The {@link #rewind()} method must have been invoked before this
+        method.</p>
+
+        @return The number of the characters.
+    */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+        Returns the line index of the source file.
+
+        @return The line index.
+    */
+    public LineIndex getIndex() {
+        return index;
+    }
+
+    /**
+        Returns a new {@link SourceChar} object at the specified offset.
+
+        @param k The offset, which must be less than {@link #getLength()}.
+        @return The new {@link SourceChar} object.
+    */
+    public SourceChar getCharAt(int k) {
+        return SourceChars.of(buffer[k], index, k);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getFilename() {
+        return index.getFilename();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceLocation getLocation() {
+        return new SourceLocation(index, offset);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceChar getChar() throws IOException {
+        {
+            var c = stack.pollFirst();
+            if (c != null) {
+                return c;
+            }
+        }
+        fill();
+        if (offset == length) {
+            return SourceChars.eof(getFilename());
+        }
+        var o = offset;
+        ++offset;
+        return getCharAt(o);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void ungetChar(SourceChar c) {
+        if (c.isEof()) {
+            throw new IllegalArgumentException("c is EOF");
+        }
+        stack.addFirst(c);
+    }
+
+    private void fill() throws IOException {
+        if (buffer != null) {
+            return;
+        }
+        var chunk = new char[CHUNK_SIZE];
+        var a = new char[CHUNK_SIZE];
+        var n = 0;
+        var followsCr = false;
+        for (;;) {
+            var m = reader.read(chunk, 0, CHUNK_SIZE);
+            if (m == -1) {
+                break;
+            }
+            if (n + m > a.length) {
+                a = Arrays.copyOf(a, Math.max(a.length * 2, n + m));
+            }
+            for (var k = 0; k < m; ++k) {
+                // replace \r\n and \r with \n
+                var c = chunk[k];
+                if (c == '\n' && followsCr) {
+                    followsCr = false;
+                    continue;
+                }
+                followsCr = c == '\r';
+                a[n] = followsCr ? '\n' : c;
+                ++n;
+            }
+        }
+        buffer = a;
+        length = n;
+        if (indexesLines) {
+            indexLines();
+        }
+    }
+
+    private void indexLines() {
+        var a = buffer;
+        var n = length;
+        for (var k = 0; k < n; ++k) {
+            var c = a[k];
+            if (c == '\n') {
+                index.addLineStart(k + 1);
+            } else if (k > 0 && Character.isLowSurrogate(c)
+                    && Character.isHighSurrogate(a[k - 1])) {
+                index.addLowSurrogate(k);
+            }
+        }
+    }
+
+    private static int offsetOf(SourceChar c) {
+        var first = c;
+        for (;;) {
+            var children = first.getChildren();
+            if (children.isEmpty()) {
+                return ((IndexedChar) first).getOffset();
+            }
+            first = children.get(0);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.maroontress.clione.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.SourceLocation;
+
+/**
+    The source that reads characters from the in-memory character sequence.
+
+    <p>Unlike {@link ReaderSource}, this source neither builds the line index
+    nor unifies newlines, so the locations of the characters it returns are
+    meaningless. It is intended to classify the text that is not a part of
+    the source file.</p>
+*/
+public final class CharSequenceSource implements Source {
+
+    private static final LineIndex NO_INDEX = new LineIndex(null);
+
+    private final CharSequence chars;
+    private final Deque<SourceChar> stack;
+    private int offset;
+
+    /**
+        Creates a new source.
+
+        @param chars The character sequence.
+    */
+    public CharSequenceSource(CharSequence chars) {
+        this.chars = chars;
+        stack = new ArrayDeque<>();
+    }
+
+    /**
+        Returns whether this source has no more characters.
+
+        @return {@code true} if the next {@link #getChar()} returns EOF.
+    */
+    public boolean isEmpty() {
+        return stack.isEmpty() && offset == chars.length();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getFilename() {
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceLocation getLocation() {
+        return new SourceLocation(NO_INDEX, offset);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceChar getChar() {
+        var c = stack.pollFirst();
+        if (c != null) {
+            return c;
+        }
+        if (offset == chars.length()) {
+            return SourceChars.eof(null);
+        }
+        var o = offset;
+        ++offset;
+        return SourceChars.of(chars.charAt(o), NO_INDEX, o);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void ungetChar(SourceChar c) {
+        if (c.isEof()) {
+            throw new IllegalArgumentException("c is EOF");
+        }
+        stack.addFirst(c);
+    }
+}
@@ -0,0 +1,386 @@
+package com.maroontress.clione.impl;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.SourceLocation;
+import com.maroontress.clione.SourceSpan;
+import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenKind;
+import com.maroontress.clione.TokenType;
+
+/**
+    The implementation of a preprocessing token that does not keep its
+    characters.
+
+    <p>This token has its string, the offsets of its first and last
+    characters in the source file, and the line index of the source file.
+    It keeps only the exceptional characters, which have their child
+    characters (that is, the characters substituted for digraph or trigraph
+    sequences, and the characters that follow a backslash followed by a
+    newline character). The other characters are created from the offsets
+    whenever they are requested.</p>
+
+    <p>Note that the {@link CompactToken} object is an immutable object.</p>
+*/
+public final class CompactToken implements Token {
+
+    private static final int[] EMPTY_POSITIONS = {};
+    private static final SourceChar[] EMPTY_CHARS = {};
+
+    private final String value;
+    private final TokenType type;
+    private final TokenKind kind;
+    private final List<Token> children;
+    private final LineIndex index;
+    private final int start;
+    private final int end;
+    private final int[] positions;
+    private final int[] ends;
+    private final SourceChar[] exceptions;
+
+    private CompactToken(String value, TokenType type, TokenKind kind,
+                         List<Token> children, LineIndex index, int start,
+                         int end, Exceptions exceptions) {
+        this.value = value;
+        this.type = type;
+        this.kind = (kind != null) ? kind : TokenKind.of(type, value);
+        this.children = children;
+        this.index = index;
+        this.start = start;
+        this.end = end;
+        this.positions = exceptions.getPositions();
+        this.ends = exceptions.getEnds();
+        this.exceptions = exceptions.getChars();
+    }
+
+    private CompactToken(CompactToken token, TokenType type,
+                         Collection<Token> children) {
+        this.value = token.value;
+        this.type = type;
+        this.kind = (type == token.type)
+                ? token.kind
+                : TokenKind.of(type, value);
+        this.children = List.copyOf(children);
+        this.index = token.index;
+        this.start = token.start;
+        this.end = token.end;
+        this.positions = token.positions;
+        this.ends = token.ends;
+        this.exceptions = token.exceptions;
+    }
+
+    /**
+        Returns a new token that represents the specified characters with the
+        specified token type, or {@code null} if the characters cannot be
+        represented compactly.
+
+        <p>The characters can be represented compactly if and only if all
+        the leaf characters are {@link IndexedChar} objects that have the same
+        line index and the contiguous offsets.</p>
+
+        @param chars The non-empty collection of {@link SourceChar} objects
+            that compose the token. It must not contain any character
+            representing EOF.
+        @param type The token type.
+        @return The new token, or {@code null}.
+    */
+    public static Token of(Collection<SourceChar> chars, TokenType type) {
+        return of(chars, type, List.of());
+    }
+
+    /**
+        Returns a new token that represents the specified characters with the
+        specified token type and the specified child tokens, or {@code null}
+        if the characters cannot be represented compactly.
+
+        @param chars The non-empty collection of {@link SourceChar} objects
+            that compose the token. It must not contain any character
+            representing EOF.
+        @param type The token type.
+        @param children The child tokens.
+        @return The new token, or {@code null}.
+        @see #of(Collection, TokenType)
+    */
+    public static Token of(Collection<SourceChar> chars, TokenType type,
+                           Collection<Token> children) {
+        return of(chars, type, null, children);
+    }
+
+    /**
+        Returns a new token that represents the specified characters with the
+        specified token type, kind, and child tokens, or {@code null} if the
+        characters cannot be represented compactly.
+
+        @param chars The non-empty collection of {@link SourceChar} objects
+            that compose the token. It must not contain any character
+            representing EOF.
+        @param type The token type.
+        @param kind The kind that has been found when the token has been
+            recognized, or {@code null} if it is to be looked up with the
+            type and the string of the token.
+        @param children The child tokens.
+        @return The new token, or {@code null}.
+        @see #of(Collection, TokenType)
+    */
+    public static Token of(Collection<SourceChar> chars, TokenType type,
+                           TokenKind kind, Collection<Token> children) {
+        var size = chars.size();
+        var b = new StringBuilder(size);
+        var exceptions = new Exceptions();
+        LineIndex index = null;
+        var start = 0;
+        var next = 0;
+        var k = 0;
+        for (var c : chars) {
+            var first = firstLeaf(c);
+            var last = lastLeaf(c);
+            if (first == null || last == null) {
+                return null;
+            }
+            var offset = first.getOffset();
+            if (index == null) {
+                index = first.getIndex();
+                start = offset;
+            } else if (offset != next) {
+                return null;
+            }
+            if (first.getIndex() != index || last.getIndex() != index) {
+                return null;
+            }
+            next = last.getOffset() + 1;
+            if (c != first) {
+                exceptions.add(k, next - 1, c);
+            }
+            b.append(c.toChar());
+            ++k;
+        }
+        return new CompactToken(b.toString(), type, kind,
+                List.copyOf(children), index, start, next - 1, exceptions);
+    }
+
+    /**
+        Returns a new token that represents the specified string with the
+        specified token type, whose characters have no child characters and
+        have the contiguous offsets.
+
+        @param value The non-empty string of the token.
+        @param type The token type.
+        @param index The line index of the source file.
+        @param start The offset of the first character in the source file.
+        @return The new token.
+    */
+    public static CompactToken of(String value, TokenType type,
+                                  LineIndex index, int start) {
+        var end = start + value.length() - 1;
+        return new CompactToken(value, type, null, List.of(), index, start,
+                end, new Exceptions());
+    }
+
+    /**
+        Returns the line index of the source file.
+
+        @return The line index.
+    */
+    public LineIndex getIndex() {
+        return index;
+    }
+
+    /**
+        Returns the offset of the first character of this token in the source
+        file.
+
+        @return The start offset.
+    */
+    public int getStartOffset() {
+        return start;
+    }
+
+    /**
+        Returns the offset of the last character of this token in the source
+        file.
+
+        <p>Note that the offset does not depend on the child tokens.</p>
+
+        @return The end offset.
+    */
+    public int getEndOffset() {
+        return end;
+    }
+
+    /**
+        Returns whether this token has the characters that have their child
+        characters.
+
+        @return {@code true} if this token has any characters substituted for
+            digraph or trigraph sequences, or following a backslash followed
+            by a newline character.
+    */
+    public boolean hasExceptionalChars() {
+        return exceptions.length != 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getValue() {
+        return value;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceSpan getSpan() {
+        var startLocation = new SourceLocation(index, start);
+        if (children.isEmpty()) {
+            return new SourceSpan(startLocation,
+                    new SourceLocation(index, end));
+        }
+        var endLocation = children.get(children.size() - 1)
+                .getSpan()
+                .getEnd();
+        return new SourceSpan(startLocation, endLocation);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<SourceChar> getChars() {
+        return new CharList();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TokenType getType() {
+        return type;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TokenKind getKind() {
+        return kind;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Token> getChildren() {
+        return children;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Token withType(TokenType newType) {
+        return new CompactToken(this, newType, children);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Token withChildren(Collection<Token> newChildren) {
+        return new CompactToken(this, type, newChildren);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isValue(String s) {
+        return value.equals(s);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "[value=" + value + ", "
+                + "span=" + getSpan() + ", "
+                + "chars=" + getChars() + ", "
+                + "type=" + type + ", "
+                + "children=" + children + "]";
+    }
+
+    private SourceChar getChar(int k) {
+        var i = Arrays.binarySearch(positions, k);
+        if (i >= 0) {
+            return exceptions[i];
+        }
+        var p = -i - 1;
+        var offset = (p == 0)
+                ? start + k
+                : ends[p - 1] + k - positions[p - 1];
+        return new IndexedChar(value.charAt(k), index, offset);
+    }
+
+    private static IndexedChar firstLeaf(SourceChar c) {
+        var leaf = c;
+        var list = leaf.getChildren();
+        while (!list.isEmpty()) {
+            leaf = list.get(0);
+            list = leaf.getChildren();
+        }
+        return (leaf instanceof IndexedChar) ? (IndexedChar) leaf : null;
+    }
+
+    private static IndexedChar lastLeaf(SourceChar c) {
+        var leaf = c;
+        var list = leaf.getChildren();
+        while (!list.isEmpty()) {
+            leaf = list.get(list.size() - 1);
+            list = leaf.getChildren();
+        }
+        return (leaf instanceof IndexedChar) ? (IndexedChar) leaf : null;
+    }
+
+    /**
+        The unmodifiable view of the characters of this token.
+    */
+    private final class CharList extends AbstractList<SourceChar>
+            implements RandomAccess {
+
+        @Override
+        public SourceChar get(int k) {
+            if (k < 0 || k >= value.length()) {
+                throw new IndexOutOfBoundsException(k);
+            }
+            return getChar(k);
+        }
+
+        @Override
+        public int size() {
+            return value.length();
+        }
+    }
+
+    /**
+        The builder of the sparse arrays of the exceptional characters.
+    */
+    private static final class Exceptions {
+
+        private int[] positions = EMPTY_POSITIONS;
+        private int[] ends = EMPTY_POSITIONS;
+        private SourceChar[] chars = EMPTY_CHARS;
+        private int size;
+
+        void add(int position, int end, SourceChar c) {
+            if (size == positions.length) {
+                var n = Math.max(4, size * 2);
+                positions = Arrays.copyOf(positions, n);
+                ends = Arrays.copyOf(ends, n);
+                chars = Arrays.copyOf(chars, n);
+            }
+            positions[size] = position;
+            ends[size] = end;
+            chars[size] = c;
+            ++size;
+        }
+
+        int[] getPositions() {
+            return (size == 0) ? EMPTY_POSITIONS
+                    : Arrays.copyOf(positions, size);
+        }
+
+        int[] getEnds() {
+            return (size == 0) ? EMPTY_POSITIONS : Arrays.copyOf(ends, size);
+        }
+
+        SourceChar[] getChars() {
+            return (size == 0) ? EMPTY_CHARS : Arrays.copyOf(chars, size);
+        }
+    }
+}
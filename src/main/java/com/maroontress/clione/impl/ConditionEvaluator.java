@@ -0,0 +1,408 @@
+package com.maroontress.clione.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import com.maroontress.clione.MacroOracle.Definedness;
+import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenType;
+import com.maroontress.clione.Tokens;
+
+/**
+    Evaluates the controlling expression of the {@code #if} and {@code #elif}
+    directives without macro replacement.
+
+    <p>The value of each subexpression is either known or unknown. The
+    {@code defined} operator is known if the definedness of the macro is
+    known. An identifier is known to be zero if the macro is known to be
+    undefined. Otherwise, the value of an identifier is unknown, because
+    this evaluator does not know the replacement list of the macro. An
+    operator whose operands are unknown results in unknown, except that
+    {@code &&}, {@code ||}, and {@code ?:} are known when the known operand
+    determines the result.</p>
+
+    <p>This evaluator also results in unknown if the expression contains
+    something that it does not support, such as character constants,
+    unsigned integers, or function-like macros.</p>
+*/
+public final class ConditionEvaluator {
+
+    private final List<Token> tokens;
+    private final Function<String, Definedness> definedness;
+    private int position;
+
+    private ConditionEvaluator(List<Token> tokens,
+                               Function<String, Definedness> definedness) {
+        this.tokens = tokens;
+        this.definedness = definedness;
+    }
+
+    /**
+        Evaluates the specified tokens.
+
+        @param tokens The tokens of the controlling expression. They may
+            contain delimiters, comments, and the token of type {@link
+            TokenType#DIRECTIVE_END}.
+        @param definedness The function that returns whether the macro of
+            the specified name is defined.
+        @return {@code true} or {@code false} if the value of the expression
+            is known to be nonzero or zero, respectively. Otherwise, {@link
+            Optional#empty()}.
+    */
+    public static Optional<Boolean> evaluate(
+            List<Token> tokens, Function<String, Definedness> definedness) {
+        var list = new ArrayList<Token>();
+        for (var t : tokens) {
+            if (Tokens.isDelimiterOrComment(t)
+                    || t.isType(TokenType.DIRECTIVE_END)) {
+                continue;
+            }
+            list.add(t);
+        }
+        var e = new ConditionEvaluator(list, definedness);
+        try {
+            var value = e.conditional();
+            if (e.position != list.size()) {
+                return Optional.empty();
+            }
+            return value.map(v -> v != 0);
+        } catch (SyntaxException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private Optional<Long> conditional() {
+        var c = logicalOr();
+        if (!accept("?")) {
+            return c;
+        }
+        var t = conditional();
+        expect(":");
+        var f = conditional();
+        if (c.isEmpty()) {
+            return t.isPresent() && t.equals(f) ? t : Optional.empty();
+        }
+        return (c.get() != 0) ? t : f;
+    }
+
+    private Optional<Long> logicalOr() {
+        var left = logicalAnd();
+        while (accept("||")) {
+            var right = logicalAnd();
+            left = isKnown(left, 1) || isKnown(right, 1)
+                    ? Optional.of(1L)
+                    : isKnown(left, 0) && isKnown(right, 0)
+                    ? Optional.of(0L)
+                    : Optional.empty();
+        }
+        return left;
+    }
+
+    private Optional<Long> logicalAnd() {
+        var left = inclusiveOr();
+        while (accept("&&")) {
+            var right = inclusiveOr();
+            left = isKnown(left, 0) || isKnown(right, 0)
+                    ? Optional.of(0L)
+                    : isKnown(left, 1) && isKnown(right, 1)
+                    ? Optional.of(1L)
+                    : Optional.empty();
+        }
+        return left;
+    }
+
+    private Optional<Long> inclusiveOr() {
+        var left = exclusiveOr();
+        while (accept("|")) {
+            left = apply(left, exclusiveOr(), (a, b) -> a | b);
+        }
+        return left;
+    }
+
+    private Optional<Long> exclusiveOr() {
+        var left = and();
+        while (accept("^")) {
+            left = apply(left, and(), (a, b) -> a ^ b);
+        }
+        return left;
+    }
+
+    private Optional<Long> and() {
+        var left = equality();
+        while (accept("&")) {
+            left = apply(left, equality(), (a, b) -> a & b);
+        }
+        return left;
+    }
+
+    private Optional<Long> equality() {
+        var left = relational();
+        for (;;) {
+            if (accept("==")) {
+                left = apply(left, relational(), (a, b) -> toLong(a == b));
+            } else if (accept("!=")) {
+                left = apply(left, relational(), (a, b) -> toLong(a != b));
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Optional<Long> relational() {
+        var left = shift();
+        for (;;) {
+            if (accept("<")) {
+                left = apply(left, shift(), (a, b) -> toLong(a < b));
+            } else if (accept(">")) {
+                left = apply(left, shift(), (a, b) -> toLong(a > b));
+            } else if (accept("<=")) {
+                left = apply(left, shift(), (a, b) -> toLong(a <= b));
+            } else if (accept(">=")) {
+                left = apply(left, shift(), (a, b) -> toLong(a >= b));
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Optional<Long> shift() {
+        var left = additive();
+        for (;;) {
+            if (accept("<<")) {
+                left = applyPartially(left, additive(),
+                        (a, b) -> isShiftable(a, b)
+                                ? Optional.of(a << b)
+                                : Optional.empty());
+            } else if (accept(">>")) {
+                left = applyPartially(left, additive(),
+                        (a, b) -> isShiftable(a, b)
+                                ? Optional.of(a >> b)
+                                : Optional.empty());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Optional<Long> additive() {
+        var left = multiplicative();
+        for (;;) {
+            if (accept("+")) {
+                left = applyExactly(left, multiplicative(), Math::addExact);
+            } else if (accept("-")) {
+                left = applyExactly(left, multiplicative(),
+                        Math::subtractExact);
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Optional<Long> multiplicative() {
+        var left = unary();
+        for (;;) {
+            if (accept("*")) {
+                left = applyExactly(left, unary(), Math::multiplyExact);
+            } else if (accept("/")) {
+                left = applyPartially(left, unary(), (a, b) -> (b == 0)
+                        ? Optional.empty()
+                        : Optional.of(a / b));
+            } else if (accept("%")) {
+                left = applyPartially(left, unary(), (a, b) -> (b == 0)
+                        ? Optional.empty()
+                        : Optional.of(a % b));
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Optional<Long> unary() {
+        if (accept("!")) {
+            return unary().map(v -> toLong(v == 0));
+        }
+        if (accept("~")) {
+            return unary().map(v -> ~v);
+        }
+        if (accept("-")) {
+            return unary().flatMap(v -> (v == Long.MIN_VALUE)
+                    ? Optional.empty()
+                    : Optional.of(-v));
+        }
+        if (accept("+")) {
+            return unary();
+        }
+        return primary();
+    }
+
+    private Optional<Long> primary() {
+        var token = poll();
+        if (token.isValue("(")) {
+            var value = conditional();
+            expect(")");
+            return value;
+        }
+        if (token.isType(TokenType.NUMBER)) {
+            return parseNumber(token.getValue());
+        }
+        if (token.isType(TokenType.CHARACTER)) {
+            return Optional.empty();
+        }
+        if (!Tokens.isKeywordOrIdentifier(token)) {
+            throw new SyntaxException();
+        }
+        if (token.isValue("defined")) {
+            return defined();
+        }
+        if (accept("(")) {
+            // Function-like macro
+            skipArguments();
+            return Optional.empty();
+        }
+        var name = token.getValue();
+        return (definedness.apply(name) == Definedness.UNDEFINED)
+                ? Optional.of(0L)
+                : Optional.empty();
+    }
+
+    private Optional<Long> defined() {
+        var hasParen = accept("(");
+        var token = poll();
+        if (!Tokens.isKeywordOrIdentifier(token)) {
+            throw new SyntaxException();
+        }
+        if (hasParen) {
+            expect(")");
+        }
+        var d = definedness.apply(token.getValue());
+        return (d == Definedness.DEFINED)
+                ? Optional.of(1L)
+                : (d == Definedness.UNDEFINED)
+                ? Optional.of(0L)
+                : Optional.empty();
+    }
+
+    private void skipArguments() {
+        var depth = 1;
+        while (depth > 0) {
+            var token = poll();
+            if (token.isValue("(")) {
+                ++depth;
+            } else if (token.isValue(")")) {
+                --depth;
+            }
+        }
+    }
+
+    private Token poll() {
+        if (position == tokens.size()) {
+            throw new SyntaxException();
+        }
+        var token = tokens.get(position);
+        ++position;
+        return token;
+    }
+
+    private boolean accept(String value) {
+        if (position == tokens.size()) {
+            return false;
+        }
+        var token = tokens.get(position);
+        if (token.isType(TokenType.STRING)
+                || token.isType(TokenType.CHARACTER)
+                || !token.isValue(value)) {
+            return false;
+        }
+        ++position;
+        return true;
+    }
+
+    private void expect(String value) {
+        if (!accept(value)) {
+            throw new SyntaxException();
+        }
+    }
+
+    private static Optional<Long> parseNumber(String s) {
+        var end = s.length();
+        while (end > 0) {
+            var c = s.charAt(end - 1);
+            if (c == 'l' || c == 'L') {
+                --end;
+                continue;
+            }
+            if (c == 'u' || c == 'U') {
+                // Unsigned arithmetic is not supported.
+                return Optional.empty();
+            }
+            break;
+        }
+        var digits = s.substring(0, end);
+        try {
+            if (digits.startsWith("0x") || digits.startsWith("0X")) {
+                return Optional.of(Long.parseLong(digits.substring(2), 16));
+            }
+            if (digits.startsWith("0") && digits.length() > 1) {
+                return Optional.of(Long.parseLong(digits.substring(1), 8));
+            }
+            return Optional.of(Long.parseLong(digits));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isKnown(Optional<Long> value, long truth) {
+        return value.isPresent() && toLong(value.get() != 0) == truth;
+    }
+
+    private static boolean isShiftable(long a, long b) {
+        return a >= 0 && b >= 0 && b < Long.SIZE;
+    }
+
+    private static long toLong(boolean b) {
+        return b ? 1 : 0;
+    }
+
+    private static Optional<Long> applyPartially(Optional<Long> left,
+            Optional<Long> right, Operator operator) {
+        if (left.isEmpty() || right.isEmpty()) {
+            return Optional.empty();
+        }
+        return operator.apply(left.get(), right.get());
+    }
+
+    private static Optional<Long> apply(Optional<Long> left,
+            Optional<Long> right, SimpleOperator operator) {
+        return applyPartially(left, right,
+                (a, b) -> Optional.of(operator.apply(a, b)));
+    }
+
+    private static Optional<Long> applyExactly(Optional<Long> left,
+            Optional<Long> right, SimpleOperator operator) {
+        return applyPartially(left, right, (a, b) -> {
+            try {
+                return Optional.of(operator.apply(a, b));
+            } catch (ArithmeticException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Operator {
+        Optional<Long> apply(long a, long b);
+    }
+
+    @FunctionalInterface
+    private interface SimpleOperator {
+        long apply(long a, long b);
+    }
+
+    /**
+        Thrown when the expression is ill-formed.
+    */
+    private static final class SyntaxException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,218 @@
+package com.maroontress.clione.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import com.maroontress.clione.MacroOracle;
+import com.maroontress.clione.MacroOracle.Definedness;
+import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenType;
+import com.maroontress.clione.Tokens;
+
+/**
+    The stack of the conditional directives, which tells whether the group
+    that follows the directive is known to be skipped.
+
+    <p>This stack also tracks the {@code #define} and {@code #undef}
+    directives, so that the definedness of the macros that the source file
+    defines or undefines overrides the one that the oracle tells. The
+    definedness of the macro is unknown if the directive is in a group that
+    is not known to be processed.</p>
+*/
+public final class ConditionalStack {
+
+    private static final Set<DirectiveName> TRACKED = EnumSet.of(
+            DirectiveName.IF, DirectiveName.IFDEF, DirectiveName.IFNDEF,
+            DirectiveName.ELIF, DirectiveName.ELIFDEF, DirectiveName.ELIFNDEF,
+            DirectiveName.ELSE, DirectiveName.ENDIF, DirectiveName.DEFINE,
+            DirectiveName.UNDEF);
+
+    private final MacroOracle oracle;
+    private final Map<String, Definedness> macros;
+    private final Deque<Group> stack;
+
+    /**
+        Creates a new instance.
+
+        @param oracle The oracle that tells whether a macro is defined.
+    */
+    public ConditionalStack(MacroOracle oracle) {
+        this.oracle = oracle;
+        macros = new HashMap<>();
+        stack = new ArrayDeque<>();
+    }
+
+    /**
+        Returns whether this stack tracks the directives of the specified
+        name.
+
+        @param name The directive name.
+        @return {@code true} if the {@link #accept(Token)} method uses the
+            child tokens of the directives of the name.
+    */
+    public static boolean tracks(DirectiveName name) {
+        return TRACKED.contains(name);
+    }
+
+    /**
+        Clears this stack and the definedness of the macros that the source
+        file has defined or undefined.
+    */
+    public void clear() {
+        macros.clear();
+        stack.clear();
+    }
+
+    /**
+        Updates this stack with the specified directive, and returns whether
+        the group that follows the directive is known to be skipped.
+
+        @param directive The token of type {@link TokenType#DIRECTIVE}.
+        @return {@code true} if the group that follows the directive is known
+            to be skipped.
+    */
+    public boolean accept(Token directive) {
+        var children = directive.getChildren();
+        var size = children.size();
+        var k = 0;
+        while (k < size && !children.get(k).isType(TokenType.DIRECTIVE_NAME)) {
+            ++k;
+        }
+        if (k == size) {
+            return false;
+        }
+        var name = DirectiveName.find(children.get(k));
+        var rest = children.subList(k + 1, size);
+        if (name == null) {
+            return false;
+        }
+        switch (name) {
+        case IF:
+            return push(evaluate(rest));
+        case IFDEF:
+            return push(testMacro(rest, Definedness.DEFINED));
+        case IFNDEF:
+            return push(testMacro(rest, Definedness.UNDEFINED));
+        case ELIF:
+            return next(() -> evaluate(rest));
+        case ELIFDEF:
+            return next(() -> testMacro(rest, Definedness.DEFINED));
+        case ELIFNDEF:
+            return next(() -> testMacro(rest, Definedness.UNDEFINED));
+        case ELSE:
+            return next(() -> Optional.of(true));
+        case ENDIF:
+            stack.pollFirst();
+            return false;
+        case DEFINE:
+            update(rest, Definedness.DEFINED);
+            return false;
+        case UNDEF:
+            update(rest, Definedness.UNDEFINED);
+            return false;
+        default:
+            return false;
+        }
+    }
+
+    private boolean push(Optional<Boolean> condition) {
+        var group = new Group();
+        stack.addFirst(group);
+        return group.enter(condition);
+    }
+
+    private boolean next(Supplier<Optional<Boolean>> condition) {
+        var group = stack.peekFirst();
+        if (group == null) {
+            return false;
+        }
+        if (group.isTaken()) {
+            return group.enter(Optional.of(false));
+        }
+        return group.enter(condition.get());
+    }
+
+    private Optional<Boolean> evaluate(List<Token> tokens) {
+        return ConditionEvaluator.evaluate(tokens, this::getDefinedness);
+    }
+
+    private Optional<Boolean> testMacro(List<Token> tokens,
+                                        Definedness expected) {
+        return findName(tokens).map(this::getDefinedness)
+                .flatMap(d -> (d == Definedness.UNKNOWN)
+                        ? Optional.empty()
+                        : Optional.of(d == expected));
+    }
+
+    private void update(List<Token> tokens, Definedness definedness) {
+        findName(tokens).ifPresent(n -> macros.put(n, isCertain()
+                ? definedness
+                : Definedness.UNKNOWN));
+    }
+
+    private Definedness getDefinedness(String name) {
+        var d = macros.get(name);
+        return (d != null) ? d : oracle.test(name);
+    }
+
+    private boolean isCertain() {
+        return stack.stream()
+                .allMatch(Group::isCertain);
+    }
+
+    private static Optional<String> findName(List<Token> tokens) {
+        return tokens.stream()
+                .filter(t -> !Tokens.isDelimiterOrComment(t))
+                .findFirst()
+                .filter(Tokens::isKeywordOrIdentifier)
+                .map(Token::getValue);
+    }
+
+    /**
+        The group of the conditional directives from {@code #if},
+        {@code #ifdef}, or {@code #ifndef} to {@code #endif}.
+    */
+    private static final class Group {
+
+        private boolean taken;
+        private boolean uncertain;
+        private boolean certain;
+
+        /**
+            Enters the next branch with the specified condition.
+
+            @param condition The condition of the branch.
+            @return {@code true} if the branch is known to be skipped.
+        */
+        boolean enter(Optional<Boolean> condition) {
+            if (condition.isEmpty()) {
+                uncertain = true;
+                certain = false;
+                return false;
+            }
+            if (!condition.get()) {
+                certain = false;
+                return true;
+            }
+            // The following branches are skipped even if it is unknown
+            // whether the preceding branches are.
+            taken = true;
+            certain = !uncertain;
+            return false;
+        }
+
+        boolean isTaken() {
+            return taken;
+        }
+
+        boolean isCertain() {
+            return certain;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+import com.maroontress.clione.Include;
+import com.maroontress.clione.IncludeScanner;
+import com.maroontress.clione.SourceSpan;
+import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenType;
+import com.maroontress.clione.Tokens;
+
+/**
+    The default implementation of {@link IncludeScanner}.
+
+    <p>This scanner reads the whole source file into the buffer, and skips
+    the lines other than the directives directly on the buffer with the
+    {@link FastScanner}, falling back to the sources that replace the
+    trigraph sequences and splice the lines only where they appear.</p>
+*/
+public final class DefaultIncludeScanner implements IncludeScanner {
+
+    private final Source source;
+    private final LineScanner scanner;
+    private final DirectiveParseKit kit;
+
+    /**
+        Creates a new instance.
+
+        @param reader The reader that provides the stream of the source file.
+        @param filename The filename.
+        @param reservedWords The collection that contains reserved keywords.
+            Note that the constructor copies the collection, so changes to the
+            collection do not affect this instance.
+    */
+    public DefaultIncludeScanner(Reader reader, String filename,
+            Collection<String> reservedWords) {
+        var buffer = new BufferSource(reader, filename, true);
+        var switches = Switches.WITH_DIGRAPHS;
+        source = new PhaseTwoSource(new PhaseOneSource(buffer));
+        scanner = new LineScanner(source, switches,
+                new FastScanner(buffer, switches, true));
+        kit = new DirectiveParseKit(source, Set.copyOf(reservedWords));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<Include> next() throws IOException {
+        for (;;) {
+            var sharp = scanner.nextDirective();
+            if (sharp == null) {
+                return Optional.empty();
+            }
+            var include = readInclude(sharp);
+            if (include != null) {
+                return Optional.of(include);
+            }
+        }
+    }
+
+    private Include readInclude(Token sharp) throws IOException {
+        for (;;) {
+            var child = kit.newDirectiveChildToken();
+            if (child == null || child.isType(TokenType.DIRECTIVE_END)) {
+                return null;
+            }
+            if (Tokens.isDelimiterOrComment(child)) {
+                continue;
+            }
+            if (DirectiveName.find(child) != DirectiveName.INCLUDE) {
+                scanner.skipLine();
+                return null;
+            }
+            var tokens = new ArrayList<Token>();
+            kit.addIncludeDirectiveTokens(tokens);
+            var last = tokens.isEmpty()
+                    ? child
+                    : tokens.get(tokens.size() - 1);
+            var span = new SourceSpan(sharp.getSpan(), last.getSpan());
+            if (last.isType(TokenType.DIRECTIVE_END)) {
+                tokens.remove(tokens.size() - 1);
+            }
+            return new Include(span, tokens);
+        }
+    }
+}
@@ -4,17 +4,21 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
-import com.maroontress.clione.Keywords;
+import com.maroontress.clione.Dialect;
+import com.maroontress.clione.LexerMetrics;
+import com.maroontress.clione.LexerMetrics.Phase;
 import com.maroontress.clione.LexicalParser;
+import com.maroontress.clione.ParserOptions;
+import com.maroontress.clione.ParserOptions.Fidelity;
 import com.maroontress.clione.SourceChar;
 import com.maroontress.clione.SourceLocation;
 import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenFlag;
 import com.maroontress.clione.TokenType;
 import com.maroontress.clione.Tokens;
 
@@ -23,11 +27,36 @@ import com.maroontress.clione.Tokens;
 */
 public final class DefaultLexicalParser implements LexicalParser {
 
-    private final Source source;
+    /**
+        The directives that take a header name, which the line scanner does
+        not recognize.
+    */
+    private static final Set<DirectiveName> HEADER_NAME_DIRECTIVES
+            = EnumSet.of(DirectiveName.INCLUDE, DirectiveName.EMBED,
+                    DirectiveName.INCLUDE_NEXT, DirectiveName.IMPORT);
+
+    private final ReaderSource readerSource;
+    private final BufferSource bufferSource;
+    private final PhaseTwoSource source;
     private final Set<String> reservedWords;
+    private final Switches switches;
+    private final Set<DirectiveName> directiveNames;
+    private final Set<TokenType> tokenTypes;
+    private final boolean wantsAllTypes;
+    private final FastScanner fastScanner;
+    private final TriviaSkipper skipper;
     private final DirectiveParseKit kit;
-    private final Map<String, AddTokens> addTokensMap;
-    private boolean isTheFirstTokenFound;
+    private final LineScanner scanner;
+    private final RecordingSource recorder;
+    private final LineScanner recordingScanner;
+    private final LazyDirectiveToken.Factory lazyFactory;
+    private final ConditionalStack conditionals;
+    private final LexerMetrics metrics;
+    private LexingEvent session;
+    private long tokenCount;
+    private long lexingTime;
+    private boolean isAtLineStart = true;
+    private boolean isSkipping;
 
     /**
         Creates a new instance.
@@ -40,27 +69,110 @@ public final class DefaultLexicalParser implements LexicalParser {
     */
     public DefaultLexicalParser(Reader reader, String filename,
             Collection<String> reservedWords) {
-        this(reader, filename, Set.copyOf(reservedWords));
+        this(reader, filename, reservedWords, ParserOptions.DEFAULT);
     }
 
-    private DefaultLexicalParser(Reader reader, String filename,
-            Set<String> reservedWords) {
-        source = new PhaseTwoSource(new PhaseOneSource(
-                new ReaderSource(reader, filename)));
-        this.reservedWords = reservedWords;
-        kit = new DirectiveParseKit(source, reservedWords);
-        var map = new HashMap<String, AddTokens>();
-        map.put("include", kit::addIncludeDirectiveTokens);
-        map.put("line", kit::addLineDirectiveTokens);
-        addTokensMap = map;
+    /**
+        Creates a new instance with the specified options.
+
+        @param reader The reader that provides the stream of the source file.
+        @param filename The filename.
+        @param reservedWords The collection that contains reserved keywords.
+            Note that the constructor copies the collection, so changes to the
+            collection do not affect this instance.
+        @param options The options.
+    */
+    public DefaultLexicalParser(Reader reader, String filename,
+            Collection<String> reservedWords, ParserOptions options) {
+        this(reader, filename, Dialect.C11.withReservedWords(reservedWords),
+                options);
+    }
+
+    /**
+        Creates a new instance with the specified dialect and options.
+
+        @param reader The reader that provides the stream of the source file.
+        @param filename The filename.
+        @param dialect The dialect.
+        @param options The options.
+    */
+    public DefaultLexicalParser(Reader reader, String filename,
+            Dialect dialect, ParserOptions options) {
+        metrics = options.getMetrics().orElse(null);
+        var fidelity = options.getFidelity();
+        Source bottom;
+        if (fidelity == Fidelity.FULL) {
+            readerSource = new ReaderSource(reader, filename);
+            bufferSource = null;
+            bottom = readerSource;
+        } else {
+            readerSource = null;
+            bufferSource = new BufferSource(reader, filename,
+                    fidelity == Fidelity.SPANS);
+            bottom = bufferSource;
+        }
+        var upstream = (metrics == null)
+                ? bottom
+                : new MeteredSource(bottom, metrics);
+        source = new PhaseTwoSource(dialect.hasTrigraphs()
+                ? new PhaseOneSource(upstream)
+                : upstream);
+        reservedWords = dialect.getReservedWords();
+        switches = Switches.of(dialect.hasDigraphs());
+        // The metrics count the characters that the source reads.
+        fastScanner = (bufferSource != null && metrics == null)
+                ? new FastScanner(bufferSource, switches,
+                        dialect.hasTrigraphs())
+                : null;
+        directiveNames = toDirectiveNames(dialect.getDirectiveNames());
+        tokenTypes = EnumSet.noneOf(TokenType.class);
+        tokenTypes.addAll(options.getTokenTypes());
+        wantsAllTypes = tokenTypes.size() == TokenType.values().length;
+        skipper = new TriviaSkipper(source, fastScanner, tokenTypes,
+                options.getTrivia());
+        kit = new DirectiveParseKit(source, reservedWords, switches, skipper);
+        scanner = new LineScanner(source, switches, fastScanner);
+        recorder = new RecordingSource(source);
+        recordingScanner = new LineScanner(recorder, switches);
+        lazyFactory = options.hasLazyDirectives()
+                ? new LazyDirectiveToken.Factory(reservedWords, switches,
+                        tokenTypes, options.getTrivia())
+                : null;
+        conditionals = options.getMacroOracle()
+                .map(ConditionalStack::new)
+                .orElse(null);
+        session = new LexingEvent();
+        session.begin();
     }
 
     /** {@inheritDoc} */
     @Override
     public void close() throws IOException {
+        endSession();
         source.close();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void reset(Reader reader, String filename) {
+        endSession();
+        if (bufferSource != null) {
+            bufferSource.reset(reader, filename);
+        } else {
+            readerSource.reset(reader, filename);
+        }
+        source.reset();
+        if (conditionals != null) {
+            conditionals.clear();
+        }
+        isAtLineStart = true;
+        isSkipping = false;
+        tokenCount = 0;
+        lexingTime = 0;
+        session = new LexingEvent();
+        session.begin();
+    }
+
     /** {@inheritDoc} */
     @Override
     public Optional<SourceChar> getEof() throws IOException {
@@ -87,7 +199,19 @@ public final class DefaultLexicalParser implements LexicalParser {
     /** {@inheritDoc} */
     @Override
     public Optional<Token> next() throws IOException {
-        return Optional.ofNullable(newToken());
+        if (session == null || !session.isEnabled()) {
+            return Optional.ofNullable(newToken());
+        }
+        // The session measures only the time spent in this method.
+        var start = System.nanoTime();
+        var token = newToken();
+        lexingTime += System.nanoTime() - start;
+        if (token == null) {
+            endSession();
+        } else {
+            ++tokenCount;
+        }
+        return Optional.ofNullable(token);
     }
 
     /** {@inheritDoc} */
@@ -97,64 +221,290 @@ public final class DefaultLexicalParser implements LexicalParser {
     }
 
     private Token newToken() throws IOException {
-        var x = new Transcriber(source);
-        var type = x.readToken();
+        if (wantsAllTypes) {
+            return nextToken();
+        }
+        for (;;) {
+            var token = nextToken();
+            if (token == null) {
+                return null;
+            }
+            if (tokenTypes.contains(token.getType())) {
+                return removeUnwantedChildren(token);
+            }
+        }
+    }
+
+    private Token removeUnwantedChildren(Token token) {
+        if (LazyDirectiveToken.isLazy(token)) {
+            // The lazy directive removes them when it tokenizes them.
+            return token;
+        }
+        var children = token.getChildren();
+        var list = new ArrayList<Token>(children.size());
+        for (var t : children) {
+            if (tokenTypes.contains(t.getType())) {
+                list.add(t);
+            }
+        }
+        return (list.size() == children.size())
+                ? token
+                : token.withChildren(list);
+    }
+
+    private Token nextToken() throws IOException {
+        var event = new SlowTokenEvent();
+        event.begin();
+        var token = (metrics != null)
+                ? readMeteredToken()
+                : readNextToken();
+        event.end();
+        if (token != null && event.shouldCommit()) {
+            commit(event, token);
+        }
+        isSkipping = token != null
+                && conditionals != null
+                && token.isType(TokenType.DIRECTIVE)
+                && conditionals.accept(token);
+        return token;
+    }
+
+    private void commit(SlowTokenEvent event, Token token) {
+        var start = token.getSpan().getStart();
+        event.filename = getFilename();
+        event.tokenType = token.getType().name();
+        event.line = start.getLine();
+        event.column = start.getColumn();
+        event.length = token.getValue().length();
+        event.commit();
+    }
+
+    private void endSession() {
+        if (session == null) {
+            return;
+        }
+        session.end();
+        if (session.shouldCommit()) {
+            session.filename = getFilename();
+            session.characters = source.getLocation().getOffset();
+            session.tokens = tokenCount;
+            session.lexingTime = lexingTime;
+            session.commit();
+        }
+        session = null;
+    }
+
+    private Token readMeteredToken() throws IOException {
+        var start = System.nanoTime();
+        var token = readNextToken();
+        var time = System.nanoTime() - start;
+        var phase = isSkipping
+                ? Phase.SKIP
+                : (token != null && token.isType(TokenType.DIRECTIVE))
+                ? Phase.DIRECTIVE
+                : Phase.TOKEN;
+        metrics.recordTime(phase, time);
+        if (token != null) {
+            metrics.recordToken(token);
+        }
+        return token;
+    }
+
+    private Token readNextToken() throws IOException {
+        return isSkipping ? skipGroup() : readToken();
+    }
+
+    private Token readToken() throws IOException {
+        skipper.skip(Chars::isDelimiter);
+        if (skipper.hasSkippedNewline()) {
+            isAtLineStart = true;
+        }
+        var flags = skipper.getFlags(isAtLineStart);
+        var trivia = skipper.getSpan();
+        return skipper.decorate(transcribeToken(), flags, trivia);
+    }
+
+    private Token transcribeToken() throws IOException {
+        if (fastScanner != null) {
+            var token = fastScanner.scan(isAtLineStart);
+            if (token != null) {
+                return completeToken(token);
+            }
+        }
+        var x = new Transcriber(source, switches);
+        var type = isAtLineStart ? x.readLineStartToken() : x.readToken();
         if (type == null) {
             return null;
         }
-        var token = x.toToken(type);
-        if (type == TokenType.DELIMITER && token.isValue("\n")) {
-            isTheFirstTokenFound = false;
-            return token;
+        if (type == TokenType.DIRECTIVE) {
+            return (lazyFactory != null)
+                    ? newLazyDirective(x.toToken(type))
+                    : x.toToken(type, newDirectiveChildTokens());
         }
-        if (type == TokenType.DELIMITER || type == TokenType.COMMENT) {
+        return completeToken(x.toToken(type));
+    }
+
+    /**
+        Updates whether the parser is at the start of the line with the
+        specified token other than the directive, and returns the token
+        normalized.
+
+        @param token The token.
+        @return The normalized token.
+    */
+    private Token completeToken(Token token) {
+        var type = token.getType();
+        if (type == TokenType.DELIMITER) {
+            if (token.getValue().indexOf('\n') != -1) {
+                isAtLineStart = true;
+            }
             return token;
         }
-        if (!isTheFirstTokenFound
-                && type == TokenType.PUNCTUATOR
-                && token.isValue("#")) {
-            return newDirectiveToken(token.withType(TokenType.DIRECTIVE));
+        if (type == TokenType.COMMENT) {
+            return token;
         }
-        isTheFirstTokenFound = true;
+        isAtLineStart = false;
         return Tokens.normalizeToken(token, reservedWords);
     }
 
-    private Token newDirectiveToken(Token token) throws IOException {
-        var children = newDirectiveChildTokens();
-        return token.withChildren(children);
+    /**
+        Skips the lines up to the {@code #elif}, {@code #elifdef}, {@code
+        #elifndef}, {@code #else}, or {@code #endif} directive that ends the
+        group being skipped, and returns the directive.
+
+        @return The directive, or {@code null} if EOF is reached.
+        @throws IOException If an I/O error occurs.
+    */
+    private Token skipGroup() throws IOException {
+        var depth = 0;
+        for (;;) {
+            var sharp = scanner.nextDirective();
+            if (sharp == null) {
+                return null;
+            }
+            var children = new ArrayList<Token>();
+            var name = readDirectiveName(children);
+            if (name == null) {
+                if (!endsWithDirectiveEnd(children)) {
+                    scanner.skipLine();
+                }
+                continue;
+            }
+            if (name == DirectiveName.IF
+                    || name == DirectiveName.IFDEF
+                    || name == DirectiveName.IFNDEF) {
+                ++depth;
+            } else if (depth > 0) {
+                if (name == DirectiveName.ENDIF) {
+                    --depth;
+                }
+            } else if (name == DirectiveName.ELIF
+                    || name == DirectiveName.ELIFDEF
+                    || name == DirectiveName.ELIFNDEF
+                    || name == DirectiveName.ELSE
+                    || name == DirectiveName.ENDIF) {
+                name.addTokens(kit, children);
+                // The scanner has discarded the delimiters preceding the
+                // number sign, so the directive has no LEADING_SPACE flag.
+                return skipper.decorate(sharp.withChildren(children),
+                        FlaggedToken.bitOf(TokenFlag.START_OF_LINE), null);
+            }
+            scanner.skipLine();
+        }
+    }
+
+    /**
+        Returns the directive that tokenizes the child tokens following the
+        directive name lazily, if possible.
+
+        <p>The source must be just after the number sign.</p>
+
+        @param sharp The token of the number sign without child tokens.
+        @return The new directive.
+        @throws IOException If an I/O error occurs.
+    */
+    private Token newLazyDirective(Token sharp) throws IOException {
+        var children = new ArrayList<Token>();
+        var name = readDirectiveName(children);
+        if (name == null
+                || HEADER_NAME_DIRECTIVES.contains(name)
+                || (conditionals != null && ConditionalStack.tracks(name))) {
+            addChildTokens(name, children);
+            return sharp.withChildren(children);
+        }
+        recordingScanner.skipLine();
+        var rest = recorder.take();
+        return rest.isEmpty()
+                ? sharp.withChildren(children)
+                : lazyFactory.newToken(sharp, children, name, rest,
+                        getFilename());
     }
 
     private List<Token> newDirectiveChildTokens() throws IOException {
         var children = new ArrayList<Token>();
+        var name = readDirectiveName(children);
+        addChildTokens(name, children);
+        return children;
+    }
+
+    private void addChildTokens(DirectiveName name, List<Token> children)
+            throws IOException {
+        if (name != null) {
+            name.addTokens(kit, children);
+        } else if (!endsWithDirectiveEnd(children)) {
+            // INVALID
+            kit.addDirectiveTokens(children);
+        }
+    }
+
+    /**
+        Reads the tokens up to the directive name, and adds them to the
+        specified list.
+
+        @param children The list of the child tokens of the directive.
+        @return The directive name, or {@code null} if the token following
+            the delimiters and comments is not a directive name.
+        @throws IOException If an I/O error occurs.
+    */
+    private DirectiveName readDirectiveName(List<Token> children)
+            throws IOException {
         for (;;) {
             var child = kit.newDirectiveChildToken();
             if (child == null) {
-                return children;
+                return null;
             }
             if (child.isType(TokenType.DIRECTIVE_END)) {
                 children.add(child);
-                return children;
+                return null;
             }
             if (Tokens.isDelimiterOrComment(child)) {
                 children.add(child);
                 continue;
             }
-            var value = child.getValue();
-            if (!Keywords.PP_DIRECTIVE_NAMES.contains(value)) {
-                // INVALID
-                children.add(child);
-                kit.addDirectiveTokens(children);
-                return children;
+            var found = DirectiveName.find(child);
+            var name = (found != null && directiveNames.contains(found))
+                    ? found
+                    : null;
+            children.add((name == null)
+                    ? child
+                    : child.withType(TokenType.DIRECTIVE_NAME));
+            return name;
+        }
+    }
+
+    private static Set<DirectiveName> toDirectiveNames(Set<String> names) {
+        var set = EnumSet.noneOf(DirectiveName.class);
+        for (var n : DirectiveName.values()) {
+            if (names.contains(n.getName())) {
+                set.add(n);
             }
-            children.add(child.withType(TokenType.DIRECTIVE_NAME));
-            addTokensMap.getOrDefault(value, kit::addDirectiveTokens)
-                    .accept(children);
-            return children;
         }
+        return set;
     }
 
-    @FunctionalInterface
-    private interface AddTokens {
-        void accept(List<Token> list) throws IOException;
+    private static boolean endsWithDirectiveEnd(List<Token> children) {
+        return !children.isEmpty()
+                && children.get(children.size() - 1)
+                        .isType(TokenType.DIRECTIVE_END);
     }
 }
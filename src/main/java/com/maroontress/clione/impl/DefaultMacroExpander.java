@@ -0,0 +1,581 @@
+package com.maroontress.clione.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import com.maroontress.clione.Macro;
+import com.maroontress.clione.MacroExpander;
+import com.maroontress.clione.MacroTable;
+import com.maroontress.clione.Token;
+import com.maroontress.clione.Tokens;
+
+/**
+    The default implementation of {@link MacroExpander}.
+
+    <p>The tokens to be rescanned are a stack of frames. Expanding a macro
+    pushes a new frame, which refers to the replacement list of the macro
+    (or the result of substituting the arguments) and the hide set that is
+    added to each token of the frame when it is read. So rescanning does
+    not copy the token lists.</p>
+*/
+public final class DefaultMacroExpander implements MacroExpander {
+
+    private static final Set<String> EMPTY = Set.of();
+
+    private final MacroTable table;
+    private final Set<String> reservedWords;
+    private final Map<String, Optional<List<Entry>>> cache;
+    private long revision;
+
+    /**
+        Creates a new instance.
+
+        @param table The table of the macros.
+        @param reservedWords The set of the reserved words.
+    */
+    public DefaultMacroExpander(MacroTable table, Set<String> reservedWords) {
+        this.table = table;
+        this.reservedWords = reservedWords;
+        cache = new HashMap<>();
+        revision = table.getRevision();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Token> expand(List<Token> tokens) {
+        var input = new Input();
+        input.push(new Frame(tokens, null, EMPTY));
+        var out = new ArrayList<Entry>();
+        expand(input, out);
+        var list = new ArrayList<Token>(out.size());
+        for (var e : out) {
+            list.add(e.token);
+        }
+        return list;
+    }
+
+    /**
+        Expands the tokens that the specified input provides, and adds the
+        result to the specified list.
+
+        @param input The input.
+        @param out The list to which the result is added.
+        @return {@code false} if the arguments of a function-like macro are
+            not terminated.
+    */
+    private boolean expand(Input input, List<Entry> out) {
+        var terminated = true;
+        for (;;) {
+            var e = input.poll();
+            if (e == null) {
+                return terminated;
+            }
+            var macro = findMacro(e);
+            if (macro == null) {
+                out.add(e);
+                continue;
+            }
+            if (!macro.isFunctionLike()) {
+                expandObjectLike(e, macro, input, out);
+                continue;
+            }
+            var next = input.peekSignificant();
+            if (next == null || !next.isValue("(")) {
+                out.add(e);
+                continue;
+            }
+            var consumed = new ArrayList<Entry>();
+            var args = readArguments(input, macro, consumed);
+            if (args == null || !matches(macro, args)) {
+                terminated &= args != null;
+                out.add(e);
+                input.push(Frame.of(consumed));
+                continue;
+            }
+            var rightParen = consumed.get(consumed.size() - 1);
+            var hideSet = addName(intersect(e.hideSet, rightParen.hideSet),
+                    macro.getName());
+            input.push(substitute(macro, args, hideSet));
+        }
+    }
+
+    private void expandObjectLike(Entry e, Macro macro, Input input,
+                                  List<Entry> out) {
+        if (e.hideSet.isEmpty()) {
+            var cached = getCache(macro);
+            if (cached.isPresent()) {
+                /*
+                    The function-like macro at the end of the result may be
+                    invoked with the tokens that follow, so the tokens from
+                    the last significant one are rescanned.
+                */
+                var list = cached.get();
+                var k = lastSignificant(list);
+                out.addAll(list.subList(0, k));
+                input.push(Frame.of(list.subList(k, list.size())));
+                return;
+            }
+        }
+        input.push(substitute(macro, List.of(),
+                addName(e.hideSet, macro.getName())));
+    }
+
+    private Optional<List<Entry>> getCache(Macro macro) {
+        var newRevision = table.getRevision();
+        if (newRevision != revision) {
+            cache.clear();
+            revision = newRevision;
+        }
+        var name = macro.getName();
+        var cached = cache.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        var input = new Input();
+        input.push(substitute(macro, List.of(), Set.of(name)));
+        var out = new ArrayList<Entry>();
+        var result = expand(input, out)
+                ? Optional.<List<Entry>>of(List.copyOf(out))
+                : Optional.<List<Entry>>empty();
+        cache.put(name, result);
+        return result;
+    }
+
+    private Macro findMacro(Entry e) {
+        var token = e.token;
+        if (!Tokens.isKeywordOrIdentifier(token)) {
+            return null;
+        }
+        var name = token.getValue();
+        if (e.hideSet.contains(name)) {
+            return null;
+        }
+        return table.get(name).orElse(null);
+    }
+
+    private static List<List<Entry>> readArguments(Input input, Macro macro,
+            List<Entry> consumed) {
+        for (;;) {
+            var e = input.poll();
+            consumed.add(e);
+            if (!Tokens.isDelimiterOrComment(e.token)) {
+                break;
+            }
+        }
+        var lastIndex = macro.getParameters().size() - 1;
+        var variadic = macro.isVariadic();
+        var args = new ArrayList<List<Entry>>();
+        var arg = new ArrayList<Entry>();
+        var depth = 0;
+        for (;;) {
+            var e = input.poll();
+            if (e == null) {
+                return null;
+            }
+            consumed.add(e);
+            var token = e.token;
+            if (token.isValue("(")) {
+                ++depth;
+            } else if (token.isValue(")")) {
+                if (depth == 0) {
+                    args.add(trim(arg));
+                    return args;
+                }
+                --depth;
+            } else if (token.isValue(",") && depth == 0
+                    && !(variadic && args.size() == lastIndex)) {
+                args.add(trim(arg));
+                arg = new ArrayList<>();
+                continue;
+            }
+            arg.add(e);
+        }
+    }
+
+    private static boolean matches(Macro macro, List<List<Entry>> args) {
+        var n = macro.getParameters().size();
+        if (n == 0) {
+            return args.size() == 1 && args.get(0).isEmpty();
+        }
+        if (macro.isVariadic() && args.size() == n - 1) {
+            args.add(List.of());
+            return true;
+        }
+        return args.size() == n;
+    }
+
+    /**
+        Returns the frame of the replacement list in which the parameters
+        are replaced with the arguments and the {@code #} and {@code ##}
+        operators are applied.
+
+        @param macro The macro.
+        @param args The arguments.
+        @param hideSet The hide set that is added to the tokens.
+        @return The new frame.
+    */
+    private Frame substitute(Macro macro, List<List<Entry>> args,
+                             Set<String> hideSet) {
+        var body = macro.getReplacement();
+        if (!macro.isFunctionLike() && !hasPasting(body)) {
+            return new Frame(body, null, hideSet);
+        }
+        var kit = new SubstitutionKit(macro, args);
+        var size = body.size();
+        var k = 0;
+        while (k < size) {
+            var token = body.get(k);
+            var next = nextSignificant(body, k + 1);
+            var nextToken = (next < size) ? body.get(next) : null;
+            if (isStringizing(token) && nextToken != null) {
+                var p = kit.indexOf(nextToken);
+                if (p >= 0) {
+                    kit.add(Tokens.stringize(kit.rawTokens(p),
+                            token.getSpan().getStart()), EMPTY);
+                    k = next + 1;
+                    continue;
+                }
+            }
+            if (isPasting(token) && nextToken != null && kit.hasLeft()) {
+                var p = kit.indexOf(nextToken);
+                kit.paste((p >= 0)
+                        ? args.get(p)
+                        : List.of(new Entry(nextToken, EMPTY)));
+                k = next + 1;
+                continue;
+            }
+            var p = kit.indexOf(token);
+            if (p < 0) {
+                kit.add(token, EMPTY);
+            } else if (nextToken != null && isPasting(nextToken)) {
+                kit.addRaw(p);
+            } else {
+                kit.addAll(expandArgument(kit, p));
+            }
+            ++k;
+        }
+        return kit.toFrame(hideSet);
+    }
+
+    private List<Entry> expandArgument(SubstitutionKit kit, int index) {
+        var expanded = kit.getExpanded(index);
+        if (expanded != null) {
+            return expanded;
+        }
+        var input = new Input();
+        input.push(Frame.of(kit.getRaw(index)));
+        var out = new ArrayList<Entry>();
+        expand(input, out);
+        kit.setExpanded(index, out);
+        return out;
+    }
+
+    private Token paste(Token left, Token right) {
+        return Tokens.concatenate(left, right, reservedWords);
+    }
+
+    private static boolean hasPasting(List<Token> body) {
+        for (var t : body) {
+            if (isPasting(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isStringizing(Token token) {
+        return token.isValue("#");
+    }
+
+    private static boolean isPasting(Token token) {
+        return token.isValue("##");
+    }
+
+    private static int nextSignificant(List<Token> list, int start) {
+        var size = list.size();
+        var k = start;
+        while (k < size && Tokens.isDelimiterOrComment(list.get(k))) {
+            ++k;
+        }
+        return k;
+    }
+
+    private static int lastSignificant(List<Entry> list) {
+        var k = list.size();
+        while (k > 0) {
+            --k;
+            if (!Tokens.isDelimiterOrComment(list.get(k).token)) {
+                return k;
+            }
+        }
+        return 0;
+    }
+
+    private static List<Entry> trim(List<Entry> list) {
+        var start = 0;
+        var end = list.size();
+        while (start < end
+                && Tokens.isDelimiterOrComment(list.get(start).token)) {
+            ++start;
+        }
+        while (end > start
+                && Tokens.isDelimiterOrComment(list.get(end - 1).token)) {
+            --end;
+        }
+        return list.subList(start, end);
+    }
+
+    private static Set<String> addName(Set<String> hideSet, String name) {
+        return union(hideSet, Set.of(name));
+    }
+
+    private static Set<String> union(Set<String> s1, Set<String> s2) {
+        if (s1.isEmpty() || s2.containsAll(s1)) {
+            return s2;
+        }
+        if (s2.isEmpty() || s1.containsAll(s2)) {
+            return s1;
+        }
+        var set = new HashSet<>(s1);
+        set.addAll(s2);
+        return Set.copyOf(set);
+    }
+
+    private static Set<String> intersect(Set<String> s1, Set<String> s2) {
+        if (s1.isEmpty() || s2.containsAll(s1)) {
+            return s1;
+        }
+        if (s2.isEmpty() || s1.containsAll(s2)) {
+            return s2;
+        }
+        var set = new HashSet<>(s1);
+        set.retainAll(s2);
+        return Set.copyOf(set);
+    }
+
+    /**
+        The token with its hide set.
+    */
+    private static final class Entry {
+
+        private final Token token;
+        private final Set<String> hideSet;
+
+        Entry(Token token, Set<String> hideSet) {
+            this.token = token;
+            this.hideSet = hideSet;
+        }
+    }
+
+    /**
+        The tokens to be rescanned.
+    */
+    private static final class Frame {
+
+        private final List<Token> tokens;
+        private final List<Set<String>> hideSets;
+        private final Set<String> hideSet;
+        private int position;
+
+        /**
+            Creates a new instance.
+
+            @param tokens The tokens.
+            @param hideSets The hide sets of the tokens, or {@code null} if
+                they are all empty.
+            @param hideSet The hide set that is added to each token.
+        */
+        Frame(List<Token> tokens, List<Set<String>> hideSets,
+              Set<String> hideSet) {
+            this.tokens = tokens;
+            this.hideSets = hideSets;
+            this.hideSet = hideSet;
+        }
+
+        static Frame of(List<Entry> entries) {
+            var size = entries.size();
+            var tokens = new ArrayList<Token>(size);
+            var hideSets = new ArrayList<Set<String>>(size);
+            for (var e : entries) {
+                tokens.add(e.token);
+                hideSets.add(e.hideSet);
+            }
+            return new Frame(tokens, hideSets, EMPTY);
+        }
+
+        boolean hasNext() {
+            return position < tokens.size();
+        }
+
+        Entry next() {
+            var k = position;
+            ++position;
+            var token = tokens.get(k);
+            return (hideSets == null)
+                    ? new Entry(token, hideSet)
+                    : new Entry(token, union(hideSets.get(k), hideSet));
+        }
+
+        Token peekSignificant() {
+            var k = nextSignificant(tokens, position);
+            return (k < tokens.size()) ? tokens.get(k) : null;
+        }
+    }
+
+    /**
+        The stack of the frames.
+    */
+    private static final class Input {
+
+        private final Deque<Frame> frames = new ArrayDeque<>();
+
+        void push(Frame frame) {
+            if (frame.hasNext()) {
+                frames.push(frame);
+            }
+        }
+
+        Entry poll() {
+            for (;;) {
+                var frame = frames.peek();
+                if (frame == null) {
+                    return null;
+                }
+                if (frame.hasNext()) {
+                    return frame.next();
+                }
+                frames.pop();
+            }
+        }
+
+        Token peekSignificant() {
+            for (var frame : frames) {
+                var token = frame.peekSignificant();
+                if (token != null) {
+                    return token;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+        The result of the substitution being built.
+
+        <p>The {@code null} token represents the placemarker.</p>
+    */
+    private final class SubstitutionKit {
+
+        private final Macro macro;
+        private final List<List<Entry>> args;
+        private final List<List<Entry>> expandedArgs;
+        private final List<Token> tokens;
+        private final List<Set<String>> hideSets;
+
+        SubstitutionKit(Macro macro, List<List<Entry>> args) {
+            this.macro = macro;
+            this.args = args;
+            expandedArgs = new ArrayList<>(
+                    Collections.nCopies(args.size(), null));
+            tokens = new ArrayList<>();
+            hideSets = new ArrayList<>();
+        }
+
+        int indexOf(Token token) {
+            if (!macro.isFunctionLike()
+                    || !Tokens.isKeywordOrIdentifier(token)) {
+                return -1;
+            }
+            return macro.getParameters().indexOf(token.getValue());
+        }
+
+        List<Entry> getRaw(int index) {
+            return args.get(index);
+        }
+
+        List<Token> rawTokens(int index) {
+            var list = new ArrayList<Token>();
+            for (var e : args.get(index)) {
+                list.add(e.token);
+            }
+            return list;
+        }
+
+        List<Entry> getExpanded(int index) {
+            return expandedArgs.get(index);
+        }
+
+        void setExpanded(int index, List<Entry> expanded) {
+            expandedArgs.set(index, expanded);
+        }
+
+        void add(Token token, Set<String> hideSet) {
+            tokens.add(token);
+            hideSets.add(hideSet);
+        }
+
+        void addAll(List<Entry> entries) {
+            for (var e : entries) {
+                add(e.token, e.hideSet);
+            }
+        }
+
+        void addRaw(int index) {
+            var arg = args.get(index);
+            if (arg.isEmpty()) {
+                add(null, EMPTY);
+                return;
+            }
+            addAll(arg);
+        }
+
+        boolean hasLeft() {
+            return !tokens.isEmpty();
+        }
+
+        void paste(List<Entry> right) {
+            var last = tokens.size() - 1;
+            while (last > 0 && tokens.get(last) != null
+                    && Tokens.isDelimiterOrComment(tokens.get(last))) {
+                tokens.remove(last);
+                hideSets.remove(last);
+                --last;
+            }
+            if (right.isEmpty()) {
+                return;
+            }
+            var left = tokens.get(last);
+            var first = right.get(0);
+            if (left == null) {
+                tokens.set(last, first.token);
+                hideSets.set(last, first.hideSet);
+            } else {
+                tokens.set(last, DefaultMacroExpander.this.paste(
+                        left, first.token));
+                hideSets.set(last, EMPTY);
+            }
+            addAll(right.subList(1, right.size()));
+        }
+
+        Frame toFrame(Set<String> hideSet) {
+            var size = tokens.size();
+            var newTokens = new ArrayList<Token>(size);
+            var newHideSets = new ArrayList<Set<String>>(size);
+            for (var k = 0; k < size; ++k) {
+                var token = tokens.get(k);
+                if (token != null) {
+                    newTokens.add(token);
+                    newHideSets.add(hideSets.get(k));
+                }
+            }
+            return new Frame(newTokens, newHideSets, hideSet);
+        }
+    }
+}
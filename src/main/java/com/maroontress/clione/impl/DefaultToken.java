@@ -27,8 +27,16 @@ public final class DefaultToken implements Token {
         this(chars, type, List.of());
     }
 
-    private DefaultToken(Collection<SourceChar> chars, TokenType type,
-                         Collection<Token> children) {
+    /**
+        Creates a new instance with the child tokens.
+
+        @param chars The collection of {@link SourceChar} objects that compose
+            this token. It must not contain any character representing EOF.
+        @param type The token type of this token.
+        @param children The child tokens.
+    */
+    public DefaultToken(Collection<SourceChar> chars, TokenType type,
+                        Collection<Token> children) {
         this.chars = List.copyOf(chars);
         this.type = type;
         this.children = List.copyOf(children);
@@ -43,9 +43,22 @@ public final class Digraphs {
         stores in its builder.
 
         @param x The transcriber.
-        @return The token type ({@link TokenType#PUNCTUATOR}).
+        @return The token type ({@link TokenType#DIRECTIVE}).
     */
     public static TokenType toDirective(Transcriber x) {
+        x.getBuilder().replaceDigraph('#');
+        return TokenType.DIRECTIVE;
+    }
+
+    /**
+        Substitutes a number sign (that appears other than at the start of
+        the line) for the character sequence that the specified transcriber
+        stores in its builder.
+
+        @param x The transcriber.
+        @return The token type ({@link TokenType#PUNCTUATOR}).
+    */
+    public static TokenType toNumberSign(Transcriber x) {
         x.getBuilder().replaceDigraph('#');
         return TokenType.PUNCTUATOR;
     }
@@ -0,0 +1,167 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import com.maroontress.clione.Keywords;
+import com.maroontress.clione.Token;
+
+/**
+    The names of the preprocessing directives.
+
+    <p>Each constant has the way to read the tokens that follow the
+    directive name. The {@link #find(Token)} method compares the token with
+    only the names that have the same length, so it does not create a
+    string nor look up a hash table.</p>
+
+    <p>The constants include the names that are not in {@link
+    Keywords#PP_DIRECTIVE_NAMES}. The parser recognizes only the names that
+    its {@link com.maroontress.clione.Dialect Dialect} enables.</p>
+
+    @see Keywords#PP_DIRECTIVE_NAMES
+    @see Keywords#C23_PP_DIRECTIVE_NAMES
+*/
+public enum DirectiveName {
+
+    /** {@code include}. */
+    INCLUDE("include", DirectiveParseKit::addIncludeDirectiveTokens),
+    /** {@code define}. */
+    DEFINE("define"),
+    /** {@code undef}. */
+    UNDEF("undef"),
+    /** {@code if}. */
+    IF("if"),
+    /** {@code ifdef}. */
+    IFDEF("ifdef"),
+    /** {@code ifndef}. */
+    IFNDEF("ifndef"),
+    /** {@code elif}. */
+    ELIF("elif"),
+    /** {@code else}. */
+    ELSE("else"),
+    /** {@code endif}. */
+    ENDIF("endif"),
+    /** {@code line}. */
+    LINE("line", DirectiveParseKit::addLineDirectiveTokens),
+    /** {@code error}. */
+    ERROR("error"),
+    /** {@code pragma}. */
+    PRAGMA("pragma"),
+    /** {@code elifdef} (C23). */
+    ELIFDEF("elifdef"),
+    /** {@code elifndef} (C23). */
+    ELIFNDEF("elifndef"),
+    /** {@code embed} (C23). */
+    EMBED("embed", DirectiveParseKit::addIncludeDirectiveTokens),
+    /** {@code warning} (C23). */
+    WARNING("warning"),
+    /** {@code include_next} (GNU extension). */
+    INCLUDE_NEXT("include_next", DirectiveParseKit::addIncludeDirectiveTokens),
+    /** {@code import} (GNU extension). */
+    IMPORT("import", DirectiveParseKit::addIncludeDirectiveTokens),
+    /** {@code ident} (GNU extension). */
+    IDENT("ident");
+
+    private final String name;
+    private final TokenAdder adder;
+
+    DirectiveName(String name) {
+        this(name, DirectiveParseKit::addDirectiveTokens);
+    }
+
+    DirectiveName(String name, TokenAdder adder) {
+        this.name = name;
+        this.adder = adder;
+    }
+
+    /**
+        Returns the directive name.
+
+        @return The directive name.
+    */
+    public String getName() {
+        return name;
+    }
+
+    /**
+        Adds the tokens that follow the directive name to the specified list.
+
+        @param kit The kit that reads the tokens of the directive.
+        @param list The list of tokens.
+        @throws IOException If an I/O error occurs.
+    */
+    public void addTokens(DirectiveParseKit kit, List<Token> list)
+            throws IOException {
+        adder.accept(kit, list);
+    }
+
+    /**
+        Returns the directive name that the specified token represents.
+
+        @param token The token.
+        @return The directive name, or {@code null} if the token does not
+            represent any directive name.
+    */
+    public static DirectiveName find(Token token) {
+        var size = token.getChars().size();
+        if (size >= Table.BY_LENGTH.size()) {
+            return null;
+        }
+        for (var n : Table.BY_LENGTH.get(size)) {
+            if (token.isValue(n.name)) {
+                return n;
+            }
+        }
+        return null;
+    }
+
+    /**
+        Returns the directive name of the specified string.
+
+        @param name The string.
+        @return The directive name, or {@code null} if there is no directive
+            name that is equal to the string.
+    */
+    public static DirectiveName of(String name) {
+        var size = name.length();
+        if (size >= Table.BY_LENGTH.size()) {
+            return null;
+        }
+        for (var n : Table.BY_LENGTH.get(size)) {
+            if (n.name.equals(name)) {
+                return n;
+            }
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface TokenAdder {
+        void accept(DirectiveParseKit kit, List<Token> list)
+                throws IOException;
+    }
+
+    private static final class Table {
+
+        /** The directive names grouped by their length. */
+        static final List<List<DirectiveName>> BY_LENGTH = newTable();
+
+        private static List<List<DirectiveName>> newTable() {
+            var max = 0;
+            for (var n : values()) {
+                max = Math.max(max, n.name.length());
+            }
+            var table = new ArrayList<List<DirectiveName>>();
+            for (var k = 0; k <= max; ++k) {
+                table.add(new ArrayList<>());
+            }
+            for (var n : values()) {
+                table.get(n.name.length()).add(n);
+            }
+            return table.stream()
+                    .map(List::copyOf)
+                    .collect(Collectors.toUnmodifiableList());
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.maroontress.clione.impl;
 
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
+import com.maroontress.clione.ParserOptions.Trivia;
 import com.maroontress.clione.Token;
 import com.maroontress.clione.TokenType;
 import com.maroontress.clione.Tokens;
@@ -19,16 +21,38 @@ public final class DirectiveParseKit {
 
     private final Source source;
     private final Set<String> reservedWords;
+    private final Switches switches;
+    private final TriviaSkipper skipper;
 
     /**
-        Constructs a new instance.
+        Constructs a new instance that recognizes the digraph sequences and
+        returns the tokens of all types.
 
         @param source The source.
         @param reservedWords The set of reserved words.
     */
     public DirectiveParseKit(Source source, Set<String> reservedWords) {
+        this(source, reservedWords, Switches.WITH_DIGRAPHS,
+                new TriviaSkipper(source, EnumSet.allOf(TokenType.class),
+                        Trivia.TOKENS));
+    }
+
+    /**
+        Constructs a new instance with the specified switches and skipper.
+
+        @param source The source.
+        @param reservedWords The set of reserved words.
+        @param switches The switches that map a character to a tokenizer.
+        @param skipper The skipper of the delimiters and comments that are
+            not added to the list of tokens, which also adds the flags to the
+            tokens that follow them.
+    */
+    public DirectiveParseKit(Source source, Set<String> reservedWords,
+                             Switches switches, TriviaSkipper skipper) {
         this.source = source;
         this.reservedWords = reservedWords;
+        this.switches = switches;
+        this.skipper = skipper;
     }
 
     /**
@@ -141,12 +165,15 @@ public final class DirectiveParseKit {
     }
 
     private Token newChildToken(NextTokenReader reader) throws IOException {
-        var x = new Transcriber(source);
+        skipper.skip(Chars::isDirectiveDelimiter);
+        var x = new Transcriber(source, switches);
         var type = reader.apply(x);
         if (type == null) {
             return null;
         }
-        return Tokens.normalizeToken(x.toToken(type), reservedWords);
+        var token = Tokens.normalizeToken(x.toToken(type), reservedWords);
+        return skipper.decorate(token, skipper.getFlags(false),
+                skipper.getSpan());
     }
 
     @FunctionalInterface
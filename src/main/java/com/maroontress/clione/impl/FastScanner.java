@@ -0,0 +1,467 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenType;
+
+/**
+    The scanner that reads the tokens directly from the buffer of the
+    {@link BufferSource} object, without creating the {@link SourceChar}
+    objects.
+
+    <p>This scanner reads only the tokens that the {@link Transcriber}
+    object reads in the default context or at the start of the line, and
+    that consist of the characters as they are. It gives up reading the
+    token that contains the trigraph sequence, the backslash followed by a
+    newline character, the digraph sequence, the universal character name,
+    or the non-ASCII character outside the identifiers, the unterminated
+    token, and the number sign that starts a directive. In that case, it
+    returns {@code null} without reading any character, so that the
+    transcriber reads the token instead.</p>
+
+    <p>The non-ASCII characters of the identifiers, including the
+    supplementary characters represented with the surrogate pairs, are
+    looked up in the tables of {@link IdentifierChars} as the transcriber
+    does.</p>
+
+    <p>The tokens that this scanner returns are the {@link CompactToken}
+    objects, which are the same as the ones that the transcriber returns.
+    Note that the identifiers are not normalized.</p>
+*/
+public final class FastScanner {
+
+    /** The end offset that indicates this scanner gives up reading. */
+    public static final int GIVE_UP = -1;
+
+    private static final int ASCII = 128;
+
+    private static final boolean[] DELIMITER = newTable(Chars::isDelimiter);
+
+    private static final boolean[] FIRST_NAME = newTable(Chars::isFirstName);
+
+    private static final boolean[] NAME = newTable(IdentifierChars::isPart);
+
+    private static final boolean[] DIGIT = newTable(Chars::isDigit);
+
+    private static final boolean[] PP_NUMBER
+            = newTable(Chars::isPreprocessingNumber);
+
+    private final BufferSource source;
+    private final OperatorDfa defaultDfa;
+    private final OperatorDfa lineStartDfa;
+    private final boolean trigraphs;
+    private char[] buffer;
+    private int length;
+
+    /**
+        Creates a new instance.
+
+        @param source The source whose buffer this scanner reads.
+        @param switches The switches whose automata recognize the operators
+            and punctuators.
+        @param trigraphs Whether the source replaces the trigraph
+            sequences.
+    */
+    public FastScanner(BufferSource source, Switches switches,
+                       boolean trigraphs) {
+        this.source = source;
+        this.defaultDfa = switches.getDefaultOperators();
+        this.lineStartDfa = switches.getLineStartOperators();
+        this.trigraphs = trigraphs;
+    }
+
+    /**
+        Starts reading the buffer at the current location of the source.
+
+        <p>This method discards the characters that the source has pushed
+        back. The other methods except {@link #scan(boolean)} must be
+        invoked after this method, before the source returns any
+        character.</p>
+
+        @return The offset of the next character.
+        @throws IOException If an I/O error occurs.
+    */
+    public int start() throws IOException {
+        var offset = source.rewind();
+        buffer = source.getBuffer();
+        length = source.getLength();
+        return offset;
+    }
+
+    /**
+        Returns the number of the characters in the buffer.
+
+        @return The number of the characters.
+    */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+        Returns the character at the specified offset.
+
+        @param k The offset, which must be less than {@link #getLength()}.
+        @return The character.
+    */
+    public char charAt(int k) {
+        return buffer[k];
+    }
+
+    /**
+        Returns whether the source substitutes another character for the
+        character at the specified offset, that is, whether the trigraph
+        sequence or the backslash followed by a newline character starts at
+        the offset.
+
+        <p>Note that this method returns {@code true} also if two question
+        marks that do not start a trigraph sequence are at the offset.</p>
+
+        @param k The offset, which must be less than {@link #getLength()}.
+        @return {@code true} if this scanner must give up reading the
+            character.
+    */
+    public boolean isBreak(int k) {
+        var a = buffer;
+        var c = a[k];
+        return k + 1 < length
+                && ((c == '\\' && a[k + 1] == '\n')
+                        || (trigraphs && c == '?' && a[k + 1] == '?'));
+    }
+
+    /**
+        Returns the end of the traditional comment starting at the
+        specified offset.
+
+        <p>The comment is unterminated if it does not end with the asterisk
+        and slash, in which case it ends at EOF.</p>
+
+        @param k The offset of the slash that starts the comment.
+        @return The offset just after the comment, or {@link #GIVE_UP}.
+    */
+    public int endOfComment(int k) {
+        var a = buffer;
+        var n = length;
+        for (var q = k + 2; q < n; ++q) {
+            if (isBreak(q)) {
+                return GIVE_UP;
+            }
+            if (a[q] != '*' || q + 1 == n) {
+                continue;
+            }
+            if (isBreak(q + 1)) {
+                return GIVE_UP;
+            }
+            if (a[q + 1] == '/') {
+                return q + 2;
+            }
+        }
+        return n;
+    }
+
+    /**
+        Returns the end of the single-line comment starting at the specified
+        offset.
+
+        @param k The offset of the slash that starts the comment.
+        @return The offset of the newline character or EOF that follows the
+            comment, or {@link #GIVE_UP}.
+    */
+    public int endOfSingleLineComment(int k) {
+        var a = buffer;
+        var n = length;
+        for (var q = k + 2; q < n; ++q) {
+            if (isBreak(q)) {
+                return GIVE_UP;
+            }
+            if (a[q] == '\n') {
+                return q;
+            }
+        }
+        return n;
+    }
+
+    /**
+        Moves the current location of the source to the specified offset.
+
+        @param k The offset of the next character.
+    */
+    public void moveTo(int k) {
+        source.seek(k);
+    }
+
+    /**
+        Returns a new {@link SourceChar} object at the specified offset.
+
+        @param k The offset, which must be less than {@link #getLength()}.
+        @return The new {@link SourceChar} object.
+    */
+    public SourceChar newChar(int k) {
+        return source.getCharAt(k);
+    }
+
+    /**
+        Reads a token in the default context or at the start of the line.
+
+        @param isAtLineStart Whether the token is at the start of the line.
+        @return The new token, or {@code null} if this scanner gives up
+            reading the token or reaches EOF.
+        @throws IOException If an I/O error occurs.
+    */
+    public Token scan(boolean isAtLineStart) throws IOException {
+        var p = start();
+        if (p == length || isBreak(p)) {
+            return null;
+        }
+        var c = buffer[p];
+        if (c >= ASCII) {
+            var next = nextOfIdentifierChar(p, true);
+            return (next == GIVE_UP)
+                    ? null
+                    : newToken(TokenType.IDENTIFIER, p, endOfIdentifier(next));
+        }
+        if (DELIMITER[c]) {
+            return newToken(TokenType.DELIMITER, p, endOfDelimiters(p));
+        }
+        if (FIRST_NAME[c]) {
+            return newToken(TokenType.IDENTIFIER, p, endOfIdentifier(p + 1));
+        }
+        if (DIGIT[c]) {
+            return newToken(TokenType.NUMBER, p, endOfNumber(p + 1));
+        }
+        if (c == '"') {
+            return newToken(TokenType.STRING, p, endOfLiteral(p, c));
+        }
+        if (c == '\'') {
+            return newToken(TokenType.CHARACTER, p, endOfLiteral(p, c));
+        }
+        if ((c == '/' || c == '.') && p + 1 < length) {
+            if (isBreak(p + 1)) {
+                return null;
+            }
+            var d = buffer[p + 1];
+            if (c == '/' && d == '*') {
+                var end = endOfComment(p);
+                return isTerminated(p, end)
+                        ? newToken(TokenType.COMMENT, p, end)
+                        : null;
+            }
+            if (c == '/' && d == '/') {
+                return newToken(TokenType.COMMENT, p,
+                        endOfSingleLineComment(p));
+            }
+            if (c == '.' && d < ASCII && DIGIT[d]) {
+                return newToken(TokenType.NUMBER, p, endOfNumber(p + 2));
+            }
+        }
+        return readOperator(p, isAtLineStart ? lineStartDfa : defaultDfa);
+    }
+
+    private Token readOperator(int p, OperatorDfa dfa) {
+        var a = buffer;
+        var n = length;
+        var state = dfa.start(a[p]);
+        if (state == 0) {
+            return null;
+        }
+        var accepted = state;
+        var end = p + 1;
+        var q = p + 1;
+        while (dfa.hasNext(state) && q < n) {
+            if (isBreak(q)) {
+                return null;
+            }
+            var next = dfa.next(state, a[q]);
+            if (next == 0) {
+                break;
+            }
+            state = next;
+            ++q;
+            if (dfa.isAccepting(state)) {
+                accepted = state;
+                end = q;
+            }
+        }
+        var type = dfa.getType(accepted);
+        // The tokenizers substitute the digraph sequences.
+        return (type == null || type == TokenType.DIRECTIVE)
+                ? null
+                : newToken(type, p, end);
+    }
+
+    private Token newToken(TokenType type, int start, int end) {
+        if (end == GIVE_UP) {
+            return null;
+        }
+        source.seek(end);
+        var value = new String(buffer, start, end - start);
+        return CompactToken.of(value, type, source.getIndex(), start);
+    }
+
+    private boolean isTerminated(int start, int end) {
+        return end != GIVE_UP
+                && end - start >= 4
+                && buffer[end - 2] == '*'
+                && buffer[end - 1] == '/';
+    }
+
+    private int endOfDelimiters(int p) {
+        var a = buffer;
+        var n = length;
+        var q = p + 1;
+        for (; q < n; ++q) {
+            if (isBreak(q)) {
+                return GIVE_UP;
+            }
+            var c = a[q];
+            if (c >= ASCII || !DELIMITER[c]) {
+                break;
+            }
+        }
+        return q;
+    }
+
+    /**
+        Returns the end of the identifier whose first character or
+        characters end at the specified offset.
+
+        @param p The offset of the character that follows the first
+            character of the identifier.
+        @return The offset just after the identifier, or {@link #GIVE_UP}.
+    */
+    private int endOfIdentifier(int p) {
+        var a = buffer;
+        var n = length;
+        var q = p;
+        while (q < n) {
+            if (isBreak(q)) {
+                return GIVE_UP;
+            }
+            var c = a[q];
+            if (c >= ASCII) {
+                var next = nextOfIdentifierChar(q, false);
+                if (next == GIVE_UP) {
+                    break;
+                }
+                q = next;
+                continue;
+            }
+            if (c == '\\') {
+                // Universal character names
+                return GIVE_UP;
+            }
+            if (c == '"' || c == '\'') {
+                // The encoding prefix
+                return GIVE_UP;
+            }
+            if (!NAME[c]) {
+                break;
+            }
+            ++q;
+        }
+        return q;
+    }
+
+    /**
+        Returns the offset of the character that follows the non-ASCII
+        character of the identifier at the specified offset.
+
+        <p>The character is either the one in the Basic Multilingual Plane
+        or the supplementary character represented with the surrogate
+        pair.</p>
+
+        @param p The offset of the non-ASCII character.
+        @param isFirst Whether the character is the first character of the
+            identifier.
+        @return The offset just after the character, or {@link #GIVE_UP} if
+            the identifier cannot contain the character.
+    */
+    private int nextOfIdentifierChar(int p, boolean isFirst) {
+        var a = buffer;
+        var c = a[p];
+        int codePoint;
+        int next;
+        if (Character.isHighSurrogate(c)) {
+            if (p + 1 == length || !Character.isLowSurrogate(a[p + 1])) {
+                return GIVE_UP;
+            }
+            codePoint = Character.toCodePoint(c, a[p + 1]);
+            next = p + 2;
+        } else {
+            codePoint = c;
+            next = p + 1;
+        }
+        var accepts = isFirst
+                ? IdentifierChars.isStart(codePoint)
+                : IdentifierChars.isPart(codePoint);
+        return accepts ? next : GIVE_UP;
+    }
+
+    private int endOfNumber(int p) {
+        var a = buffer;
+        var n = length;
+        var q = p;
+        for (; q < n; ++q) {
+            if (isBreak(q)) {
+                return GIVE_UP;
+            }
+            var c = a[q];
+            if (c < ASCII && PP_NUMBER[c]) {
+                continue;
+            }
+            var prev = a[q - 1];
+            if ((c == '+' || c == '-')
+                    && (prev == 'E' || prev == 'e'
+                        || prev == 'P' || prev == 'p')) {
+                continue;
+            }
+            break;
+        }
+        return q;
+    }
+
+    private int endOfLiteral(int p, char terminator) {
+        var a = buffer;
+        var n = length;
+        for (var q = p + 1; q < n; ++q) {
+            if (isBreak(q)) {
+                return GIVE_UP;
+            }
+            var c = a[q];
+            if (c == '\n') {
+                // Unterminated
+                return GIVE_UP;
+            }
+            if (c == terminator) {
+                return q + 1;
+            }
+            if (c != '\\') {
+                continue;
+            }
+            ++q;
+            if (q == n || isBreak(q)) {
+                return GIVE_UP;
+            }
+            var e = a[q];
+            if (e == 'u' || e == 'U') {
+                // Universal character names
+                return GIVE_UP;
+            }
+        }
+        // Unterminated
+        return GIVE_UP;
+    }
+
+    private static boolean[] newTable(CharPredicate predicate) {
+        var table = new boolean[ASCII];
+        for (var c = 0; c < ASCII; ++c) {
+            table[c] = predicate.test((char) c);
+        }
+        return table;
+    }
+
+    @FunctionalInterface
+    private interface CharPredicate {
+        boolean test(char c);
+    }
+}
@@ -0,0 +1,196 @@
+package com.maroontress.clione.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.SourceSpan;
+import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenFlag;
+import com.maroontress.clione.TokenKind;
+import com.maroontress.clione.TokenType;
+
+/**
+    The token that adds the flags and the span of the leading trivia to
+    another token.
+
+    <p>The flags are the bits of the ordinals of the {@link TokenFlag}
+    constants.</p>
+*/
+public final class FlaggedToken implements Token {
+
+    private static final TokenFlag[] FLAGS = TokenFlag.values();
+
+    private final Token token;
+    private final int flags;
+    private final SourceSpan trivia;
+
+    private FlaggedToken(Token token, int flags, SourceSpan trivia) {
+        this.token = token;
+        this.flags = flags;
+        this.trivia = trivia;
+    }
+
+    /**
+        Returns the token that has the specified flags and leading trivia.
+
+        <p>If the specified token is the {@link FlaggedToken} object, the
+        new token has the union of its flags and the specified flags, and
+        its trivia unless the specified trivia is not {@code null}.</p>
+
+        @param token The token.
+        @param flags The bits of the flags.
+        @param trivia The span of the leading trivia, or {@code null}.
+        @return The new token, or the specified token if the flags are zero
+            and the trivia is {@code null}.
+    */
+    public static Token of(Token token, int flags, SourceSpan trivia) {
+        if (flags == 0 && trivia == null) {
+            return token;
+        }
+        if (token instanceof FlaggedToken) {
+            var t = (FlaggedToken) token;
+            return new FlaggedToken(t.token, t.flags | flags,
+                    (trivia != null) ? trivia : t.trivia);
+        }
+        return new FlaggedToken(token, flags, trivia);
+    }
+
+    /**
+        Returns the bit of the specified flag.
+
+        @param flag The flag.
+        @return The bit.
+    */
+    public static int bitOf(TokenFlag flag) {
+        return 1 << flag.ordinal();
+    }
+
+    /**
+        Returns the bits of the flags of the specified token.
+
+        @param token The token.
+        @return The bits of the flags.
+    */
+    public static int bitsOf(Token token) {
+        if (token instanceof FlaggedToken) {
+            return ((FlaggedToken) token).flags;
+        }
+        var bits = 0;
+        for (var f : token.getFlags()) {
+            bits |= bitOf(f);
+        }
+        return bits;
+    }
+
+    /**
+        Returns the unmodifiable set of the flags that the specified bits
+        represent.
+
+        @param bits The bits of the flags.
+        @return The unmodifiable set of the flags.
+    */
+    public static Set<TokenFlag> toSet(int bits) {
+        if (bits == 0) {
+            return Set.of();
+        }
+        var set = EnumSet.noneOf(TokenFlag.class);
+        for (var f : FLAGS) {
+            if ((bits & bitOf(f)) != 0) {
+                set.add(f);
+            }
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    /**
+        Returns the token to which this token adds the flags.
+
+        @return The token.
+    */
+    public Token getToken() {
+        return token;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getValue() {
+        return token.getValue();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceSpan getSpan() {
+        return token.getSpan();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<SourceChar> getChars() {
+        return token.getChars();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TokenType getType() {
+        return token.getType();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Token> getChildren() {
+        return token.getChildren();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<TokenFlag> getFlags() {
+        return toSet(flags);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasFlag(TokenFlag flag) {
+        return (flags & bitOf(flag)) != 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<SourceSpan> getLeadingTrivia() {
+        return Optional.ofNullable(trivia);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TokenKind getKind() {
+        return token.getKind();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Token withType(TokenType newType) {
+        return new FlaggedToken(token.withType(newType), flags, trivia);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Token withChildren(Collection<Token> newChildren) {
+        return new FlaggedToken(token.withChildren(newChildren), flags,
+                trivia);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isValue(String value) {
+        return token.isValue(value);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return token.toString();
+    }
+}
@@ -0,0 +1,117 @@
+package com.maroontress.clione.impl;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+    Provides the precomputed tables of the characters that identifiers can
+    contain.
+
+    <p>The tables are equivalent to the {@link
+    Character#isUnicodeIdentifierStart(int)} and {@link
+    Character#isUnicodeIdentifierPart(int)} methods, except that the
+    characters that may be part of an identifier also include the
+    characters {@code [_A-Za-z0-9]}. The characters in the Basic
+    Multilingual Plane are looked up in the bit sets of 8 KiB each. The
+    supplementary characters are looked up in the sorted tables of the
+    ranges, which are created when they are first needed.</p>
+*/
+public final class IdentifierChars {
+
+    private static final int BMP_SIZE = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+
+    private static final IntPredicate START
+            = Character::isUnicodeIdentifierStart;
+
+    private static final IntPredicate PART
+            = c -> Character.isUnicodeIdentifierPart(c)
+                    || (c < BMP_SIZE && Chars.isName((char) c));
+
+    private static final long[] BMP_START = newBitSet(START);
+    private static final long[] BMP_PART = newBitSet(PART);
+
+    /** Prevents the class from being instantiated. */
+    private IdentifierChars() {
+        throw new AssertionError();
+    }
+
+    /**
+        Determines if the specified character may be the first character of
+        an identifier other than {@code [_A-Za-z]}.
+
+        @param c The code point of the character.
+        @return {@code true} if the character may start an identifier.
+    */
+    public static boolean isStart(int c) {
+        return (c < BMP_SIZE)
+                ? contains(BMP_START, c)
+                : contains(Supplementary.START, c);
+    }
+
+    /**
+        Determines if the specified character may be part of an identifier
+        as other than the first character.
+
+        @param c The code point of the character.
+        @return {@code true} if the character may be part of an identifier.
+    */
+    public static boolean isPart(int c) {
+        return (c < BMP_SIZE)
+                ? contains(BMP_PART, c)
+                : contains(Supplementary.PART, c);
+    }
+
+    private static boolean contains(long[] bitSet, int c) {
+        return (bitSet[c >>> 6] & (1L << c)) != 0;
+    }
+
+    /**
+        Returns whether the specified code point is in the ranges.
+
+        <p>The array contains the boundaries of the ranges in ascending
+        order. Each range starts at the element of an even index (inclusive)
+        and ends at the next element (exclusive).</p>
+    */
+    private static boolean contains(int[] bounds, int c) {
+        var k = Arrays.binarySearch(bounds, c);
+        var n = (k >= 0) ? k + 1 : -k - 1;
+        return (n & 1) == 1;
+    }
+
+    private static long[] newBitSet(IntPredicate p) {
+        var bitSet = new long[BMP_SIZE / Long.SIZE];
+        for (var c = 0; c < BMP_SIZE; ++c) {
+            if (p.test(c)) {
+                bitSet[c >>> 6] |= 1L << c;
+            }
+        }
+        return bitSet;
+    }
+
+    private static int[] newRanges(IntPredicate p) {
+        var bounds = new int[64];
+        var size = 0;
+        var inside = false;
+        for (var c = BMP_SIZE; c <= Character.MAX_CODE_POINT + 1; ++c) {
+            var member = c <= Character.MAX_CODE_POINT && p.test(c);
+            if (member == inside) {
+                continue;
+            }
+            if (size == bounds.length) {
+                bounds = Arrays.copyOf(bounds, size * 2);
+            }
+            bounds[size] = c;
+            ++size;
+            inside = member;
+        }
+        return Arrays.copyOf(bounds, size);
+    }
+
+    /**
+        The tables of the supplementary characters.
+    */
+    private static final class Supplementary {
+        private static final int[] START = newRanges(IdentifierChars.START);
+        private static final int[] PART = newRanges(IdentifierChars.PART);
+    }
+}
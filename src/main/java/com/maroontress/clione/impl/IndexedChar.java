@@ -0,0 +1,84 @@
+package com.maroontress.clione.impl;
+
+import java.util.List;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.SourceLocation;
+import com.maroontress.clione.SourceSpan;
+
+/**
+    The leaf character that has its offset in the source file and the line
+    index of the source file.
+
+    <p>The character has neither a span nor locations but the offset. It
+    creates them with the line index whenever its {@link #getSpan()} method
+    is invoked.</p>
+
+    <p>Note that the {@link IndexedChar} object is an immutable object.</p>
+*/
+public final class IndexedChar implements SourceChar {
+
+    private final LineIndex index;
+    private final int offset;
+    private final char c;
+
+    /**
+        Creates a new instance.
+
+        @param c The character that represents the new character.
+        @param index The line index of the source file.
+        @param offset The offset of the character in the source file.
+    */
+    public IndexedChar(char c, LineIndex index, int offset) {
+        this.c = c;
+        this.index = index;
+        this.offset = offset;
+    }
+
+    /**
+        Returns the line index of the source file.
+
+        @return The line index.
+    */
+    public LineIndex getIndex() {
+        return index;
+    }
+
+    /**
+        Returns the offset of this character in the source file.
+
+        @return The offset.
+    */
+    public int getOffset() {
+        return offset;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getFilename() {
+        return index.getFilename();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isEof() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public char toChar() {
+        return c;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceSpan getSpan() {
+        return new SourceSpan(new SourceLocation(index, offset));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<SourceChar> getChildren() {
+        return EMPTY_LIST;
+    }
+}
@@ -0,0 +1,199 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import com.maroontress.clione.ParserOptions.Trivia;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.SourceSpan;
+import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenType;
+
+/**
+    The directive that tokenizes its child tokens following the directive
+    name when they are requested for the first time.
+
+    <p>This token retains the characters of the rest of the logical line as
+    a single token, which is represented compactly in most cases. The child
+    tokens are computed at most once per thread that sees them missing, and
+    the computation is idempotent, so this token is thread-safe.</p>
+*/
+public final class LazyDirectiveToken implements Token {
+
+    private final Token sharp;
+    private final List<Token> head;
+    private final DirectiveName name;
+    private final Token rest;
+    private final String filename;
+    private final Factory factory;
+    private volatile List<Token> children;
+
+    private LazyDirectiveToken(Token sharp, List<Token> head,
+            DirectiveName name, Token rest, String filename,
+            Factory factory) {
+        this.sharp = sharp;
+        this.head = head;
+        this.name = name;
+        this.rest = rest;
+        this.filename = filename;
+        this.factory = factory;
+    }
+
+    /**
+        Returns whether the specified token is the {@link LazyDirectiveToken}
+        object, which may be decorated with the flags.
+
+        @param token The token.
+        @return {@code true} if the token is the lazy directive.
+    */
+    public static boolean isLazy(Token token) {
+        var t = (token instanceof FlaggedToken)
+                ? ((FlaggedToken) token).getToken()
+                : token;
+        return t instanceof LazyDirectiveToken;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getValue() {
+        return sharp.getValue();
+    }
+
+    /**
+        {@inheritDoc}
+
+        <p>The span covers the whole logical line, and this method does not
+        tokenize the child tokens.</p>
+    */
+    @Override
+    public SourceSpan getSpan() {
+        var start = sharp.getSpan().getStart();
+        var end = rest.getSpan().getEnd();
+        return new SourceSpan(start, end);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<SourceChar> getChars() {
+        return sharp.getChars();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TokenType getType() {
+        return sharp.getType();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Token> getChildren() {
+        var list = children;
+        if (list == null) {
+            list = factory.tokenize(head, name, rest, filename);
+            children = list;
+        }
+        return list;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Token withType(TokenType newType) {
+        return sharp.withType(newType).withChildren(getChildren());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Token withChildren(Collection<Token> newChildren) {
+        return sharp.withChildren(newChildren);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return sharp.withChildren(getChildren()).toString();
+    }
+
+    /**
+        The factory of the lazy directives, which has the configuration of
+        the parser to tokenize the child tokens.
+
+        <p>The factory is immutable, so the lazy directives do not refer to
+        the parser that has created them.</p>
+    */
+    public static final class Factory {
+
+        private final Set<String> reservedWords;
+        private final Switches switches;
+        private final Set<TokenType> tokenTypes;
+        private final Trivia trivia;
+
+        /**
+            Creates a new instance.
+
+            @param reservedWords The set of reserved words.
+            @param switches The switches that map a character to a
+                tokenizer.
+            @param tokenTypes The types of the child tokens that the
+                directives contain. Note that the constructor copies the
+                set.
+            @param trivia The way to return the delimiters and comments.
+        */
+        public Factory(Set<String> reservedWords, Switches switches,
+                       Set<TokenType> tokenTypes, Trivia trivia) {
+            this.reservedWords = reservedWords;
+            this.switches = switches;
+            this.tokenTypes = EnumSet.copyOf(tokenTypes);
+            this.trivia = trivia;
+        }
+
+        /**
+            Returns a new lazy directive.
+
+            @param sharp The token of the number sign, without child tokens,
+                which may have the flags.
+            @param head The child tokens up to and including the directive
+                name, which may contain the tokens of unwanted types.
+            @param name The directive name.
+            @param rest The non-empty characters of the rest of the logical
+                line following the directive name.
+            @param filename The filename.
+            @return The new token.
+        */
+        public Token newToken(Token sharp, List<Token> head,
+                DirectiveName name, List<SourceChar> rest, String filename) {
+            var token = CompactToken.of(rest, TokenType.UNKNOWN);
+            if (token == null) {
+                token = new DefaultToken(rest, TokenType.UNKNOWN);
+            }
+            // The number sign may have the flags such as DIGRAPH, which
+            // the lazy directive has instead of its number sign.
+            var plain = (sharp instanceof FlaggedToken)
+                    ? ((FlaggedToken) sharp).getToken()
+                    : sharp;
+            var lazy = new LazyDirectiveToken(plain, List.copyOf(head), name,
+                    token, filename, this);
+            return FlaggedToken.of(lazy, FlaggedToken.bitsOf(sharp), null);
+        }
+
+        private List<Token> tokenize(List<Token> head, DirectiveName name,
+                Token rest, String filename) {
+            var source = new ReparseSource(List.of(rest), filename);
+            var skipper = new TriviaSkipper(source, tokenTypes, trivia);
+            var kit = new DirectiveParseKit(source, reservedWords, switches,
+                    skipper);
+            var list = new ArrayList<>(head);
+            try {
+                name.addTokens(kit, list);
+            } catch (IOException e) {
+                // This should not happen with ReparseSource.
+                throw new UncheckedIOException(e);
+            }
+            list.removeIf(t -> !tokenTypes.contains(t.getType()));
+            return List.copyOf(list);
+        }
+    }
+}
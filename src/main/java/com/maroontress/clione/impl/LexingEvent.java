@@ -0,0 +1,46 @@
+package com.maroontress.clione.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+    The JFR event that the {@link DefaultLexicalParser} object emits when it
+    finishes lexing a source file.
+
+    <p>The event begins when the parser is created, and ends when the parser
+    reaches EOF or is closed, whichever comes first. So its duration
+    includes the time that the caller spends between the invocations of
+    the {@link DefaultLexicalParser#next()} method. The {@code lexingTime}
+    field is the time spent in that method only, which tells the slow
+    source files.</p>
+*/
+@Name("com.maroontress.clione.Lexing")
+@Label("Lexing")
+@Category("Clione")
+@Description("Lexing of a source file")
+public final class LexingEvent extends Event {
+
+    /** The filename. */
+    @Label("Filename")
+    String filename;
+
+    /** The number of the characters that have been read. */
+    @Label("Characters")
+    long characters;
+
+    /**
+        The number of the tokens that have been returned, excluding those
+        that the parser has discarded because of their types.
+    */
+    @Label("Tokens")
+    long tokens;
+
+    /** The total time spent in reading the tokens. */
+    @Label("Lexing Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long lexingTime;
+}
@@ -0,0 +1,188 @@
+package com.maroontress.clione.impl;
+
+import java.util.Arrays;
+import com.maroontress.clione.LineMap;
+
+/**
+    The index of the lines of a source file, which is built while scanning
+    the source file.
+
+    <p>This index has the sorted offsets where each line starts, and the
+    sorted offsets of the low surrogates that follow a high surrogate. It
+    resolves the line and column numbers of an offset with the binary search
+    of them.</p>
+
+    <p>Only the thread that scans the source file adds offsets to the index,
+    but the other threads may resolve the locations of the tokens they have
+    received while the index is still growing.</p>
+*/
+public final class LineIndex implements LineMap {
+
+    private final String filename;
+    private final Offsets lineStarts;
+    private final Offsets lowSurrogates;
+
+    /**
+        Creates a new instance.
+
+        @param filename The filename.
+    */
+    public LineIndex(String filename) {
+        this.filename = filename;
+        lineStarts = new Offsets();
+        lowSurrogates = new Offsets();
+        lineStarts.add(0);
+    }
+
+    /**
+        Returns a new instance that has the specified offsets.
+
+        @param filename The filename.
+        @param lineStarts The sorted offsets where each line starts, the
+            first of which must be zero.
+        @param lowSurrogates The sorted offsets of the low surrogates that
+            follow a high surrogate.
+        @return The new instance.
+        @throws IllegalArgumentException If {@code lineStarts} does not start
+            with zero.
+    */
+    public static LineIndex of(String filename, int[] lineStarts,
+                               int[] lowSurrogates) {
+        if (lineStarts.length == 0 || lineStarts[0] != 0) {
+            throw new IllegalArgumentException("lineStarts must start with 0");
+        }
+        var index = new LineIndex(filename);
+        for (var k = 1; k < lineStarts.length; ++k) {
+            index.addLineStart(lineStarts[k]);
+        }
+        for (var offset : lowSurrogates) {
+            index.addLowSurrogate(offset);
+        }
+        return index;
+    }
+
+    /**
+        Returns the filename.
+
+        @return The filename. Or {@code null} if no filename is specified.
+    */
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+        Adds the offset where a new line starts.
+
+        <p>The offset must be greater than the ones that have been added.</p>
+
+        @param offset The offset of the character following a newline.
+    */
+    public void addLineStart(int offset) {
+        lineStarts.add(offset);
+    }
+
+    /**
+        Adds the offset of the low surrogate that follows a high surrogate.
+
+        <p>The offset must be greater than the ones that have been added.</p>
+
+        @param offset The offset of the low surrogate.
+    */
+    public void addLowSurrogate(int offset) {
+        lowSurrogates.add(offset);
+    }
+
+    /**
+        Returns the offsets where each line starts.
+
+        @return The new array of the sorted offsets.
+    */
+    public int[] getLineStarts() {
+        return lineStarts.toArray();
+    }
+
+    /**
+        Returns the offsets of the low surrogates that follow a high
+        surrogate.
+
+        @return The new array of the sorted offsets.
+    */
+    public int[] getLowSurrogates() {
+        return lowSurrogates.toArray();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getLine(int offset) {
+        checkOffset(offset);
+        return lineStarts.countNotGreaterThan(offset);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getColumn(int offset) {
+        checkOffset(offset);
+        var start = lineStarts.get(lineStarts.countNotGreaterThan(offset) - 1);
+        var pairs = lowSurrogates.countNotGreaterThan(offset)
+                - lowSurrogates.countNotGreaterThan(start - 1);
+        return offset - start + 1 - pairs;
+    }
+
+    private static void checkOffset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+    }
+
+    /**
+        The growable sorted array of offsets.
+
+        <p>The fields are volatile so that the other threads can see the
+        offsets that have been added before the tokens were created.</p>
+    */
+    private static final class Offsets {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private volatile int[] array = new int[INITIAL_CAPACITY];
+        private volatile int size;
+
+        void add(int offset) {
+            var a = array;
+            var n = size;
+            if (n == a.length) {
+                a = Arrays.copyOf(a, n * 2);
+                a[n] = offset;
+                array = a;
+            } else {
+                a[n] = offset;
+            }
+            size = n + 1;
+        }
+
+        int get(int k) {
+            return array[k];
+        }
+
+        int[] toArray() {
+            var n = size;
+            return Arrays.copyOf(array, n);
+        }
+
+        int countNotGreaterThan(int offset) {
+            var n = size;
+            var a = array;
+            var low = 0;
+            var high = n;
+            while (low < high) {
+                var mid = (low + high) >>> 1;
+                if (a[mid] <= offset) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
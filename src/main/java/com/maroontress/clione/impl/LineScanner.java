@@ -0,0 +1,268 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenType;
+
+/**
+    Finds the preprocessing directives in the source, skipping the other
+    lines without creating tokens.
+
+    <p>This scanner reads the first token of each line with a
+    {@link Transcriber}, so that it recognizes the number sign with which the
+    directive starts exactly as the {@link DefaultLexicalParser} does. It
+    skips the rest of the line that does not start with a directive by
+    reading only the characters, taking string literals, character
+    constants, and comments into account.</p>
+
+    <p>If the scanner has the {@link FastScanner} object, it reads the first
+    token of each line and skips the rest of the line directly on the
+    buffer, until it meets the trigraph sequence or the backslash followed
+    by a newline character. From there, it reads the characters from the
+    source as usual.</p>
+*/
+public final class LineScanner {
+
+    private final Source source;
+    private final Switches switches;
+    private final FastScanner fast;
+
+    /**
+        Creates a new instance that recognizes the digraph sequences.
+
+        <p>The source must be at the start of the line.</p>
+
+        @param source The source.
+    */
+    public LineScanner(Source source) {
+        this(source, Switches.WITH_DIGRAPHS);
+    }
+
+    /**
+        Creates a new instance with the specified switches.
+
+        <p>The source must be at the start of the line.</p>
+
+        @param source The source.
+        @param switches The switches that map a character to a tokenizer.
+    */
+    public LineScanner(Source source, Switches switches) {
+        this(source, switches, null);
+    }
+
+    /**
+        Creates a new instance that reads the buffer of the source directly,
+        if possible.
+
+        <p>The source must be at the start of the line.</p>
+
+        @param source The source.
+        @param switches The switches that map a character to a tokenizer.
+        @param fast The scanner that reads the buffer of the source, or
+            {@code null}.
+    */
+    public LineScanner(Source source, Switches switches, FastScanner fast) {
+        this.source = source;
+        this.switches = switches;
+        this.fast = fast;
+    }
+
+    /**
+        Skips the lines up to the next preprocessing directive, and returns
+        the token of the number sign with which the directive starts.
+
+        <p>The source must be at the start of the line. When this method
+        returns the token, the source is just after the number sign.</p>
+
+        @return The token of type {@link TokenType#DIRECTIVE} without child
+            tokens, or {@code null} if this method reaches EOF.
+        @throws IOException If an I/O error occurs.
+    */
+    public Token nextDirective() throws IOException {
+        var s = source;
+        for (;;) {
+            if (fast != null) {
+                // The fast scanner gives up reading the directive.
+                var token = fast.scan(true);
+                if (token != null) {
+                    var type = token.getType();
+                    if (type != TokenType.DELIMITER
+                            && type != TokenType.COMMENT) {
+                        skipLine();
+                    }
+                    continue;
+                }
+            }
+            var i = s.getChar();
+            if (i.isEof()) {
+                return null;
+            }
+            if (Chars.isDelimiter(i.toChar())) {
+                continue;
+            }
+            s.ungetChar(i);
+            var x = new Transcriber(s, switches);
+            var type = x.readLineStartToken();
+            if (type == TokenType.DIRECTIVE) {
+                return x.toToken(type);
+            }
+            if (type != TokenType.COMMENT) {
+                skipLine();
+            }
+        }
+    }
+
+    /**
+        Skips the characters up to the end of the line, including the newline
+        character.
+
+        <p>The source must be at the boundary of the tokens. A newline
+        character in a comment does not end the line.</p>
+
+        @throws IOException If an I/O error occurs.
+    */
+    public void skipLine() throws IOException {
+        if (fast != null && skipLineFast()) {
+            return;
+        }
+        var s = source;
+        for (;;) {
+            var i = s.getChar();
+            if (i.isEof()) {
+                return;
+            }
+            var c = i.toChar();
+            if (c == '\n') {
+                return;
+            }
+            if (c == '"' || c == '\'') {
+                skipStringOrCharacter(c);
+            } else if (c == '/') {
+                skipCommentIfAny();
+            }
+        }
+    }
+
+    /**
+        Skips the characters up to the end of the line directly on the
+        buffer, until the fast scanner gives up reading them.
+
+        <p>If it gives up reading the string literal, the character
+        constant, or the comment, the source is moved back to the start of
+        it.</p>
+
+        @return {@code true} if this method has reached the end of the line
+            or EOF.
+        @throws IOException If an I/O error occurs.
+    */
+    private boolean skipLineFast() throws IOException {
+        var f = fast;
+        var p = f.start();
+        var n = f.getLength();
+        for (;;) {
+            if (p == n) {
+                f.moveTo(p);
+                return true;
+            }
+            if (f.isBreak(p)) {
+                f.moveTo(p);
+                return false;
+            }
+            var c = f.charAt(p);
+            var next = (c == '\n') ? p
+                    : (c == '"' || c == '\'') ? endOfStringOrCharacter(p, c)
+                    : (c == '/') ? endOfCommentIfAny(p)
+                    : p + 1;
+            if (next == p) {
+                f.moveTo(p + 1);
+                return true;
+            }
+            if (next == FastScanner.GIVE_UP) {
+                f.moveTo(p);
+                return false;
+            }
+            p = next;
+        }
+    }
+
+    private int endOfStringOrCharacter(int p, char terminator) {
+        var f = fast;
+        var n = f.getLength();
+        for (var q = p + 1; q < n; ++q) {
+            if (f.isBreak(q)) {
+                return FastScanner.GIVE_UP;
+            }
+            var c = f.charAt(q);
+            if (c == '\n') {
+                return q;
+            }
+            if (c == terminator) {
+                return q + 1;
+            }
+            if (c == '\\') {
+                ++q;
+                if (q < n && f.isBreak(q)) {
+                    return FastScanner.GIVE_UP;
+                }
+            }
+        }
+        return n;
+    }
+
+    private int endOfCommentIfAny(int p) {
+        var f = fast;
+        if (p + 1 == f.getLength()) {
+            return p + 1;
+        }
+        if (f.isBreak(p + 1)) {
+            return FastScanner.GIVE_UP;
+        }
+        var c = f.charAt(p + 1);
+        return (c == '*') ? f.endOfComment(p)
+                : (c == '/') ? f.endOfSingleLineComment(p)
+                : p + 1;
+    }
+
+    private void skipStringOrCharacter(char terminator) throws IOException {
+        var s = source;
+        for (;;) {
+            var i = s.getChar();
+            if (i.isEof()) {
+                return;
+            }
+            var c = i.toChar();
+            if (c == '\n') {
+                s.ungetChar(i);
+                return;
+            }
+            if (c == terminator) {
+                return;
+            }
+            if (c == '\\') {
+                // The backslash never precedes a newline character after
+                // line splicing, so the escaped character is never '\n'.
+                if (s.getChar().isEof()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void skipCommentIfAny() throws IOException {
+        var s = source;
+        var i = s.getChar();
+        if (i.isEof()) {
+            return;
+        }
+        var c = i.toChar();
+        if (c == '*') {
+            TriviaSkipper.skipComment(s);
+            return;
+        }
+        if (c == '/') {
+            TriviaSkipper.skipSingleLineComment(s);
+            return;
+        }
+        s.ungetChar(i);
+    }
+}
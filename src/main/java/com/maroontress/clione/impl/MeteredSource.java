@@ -0,0 +1,66 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import com.maroontress.clione.LexerMetrics;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.SourceLocation;
+
+/**
+    This source reads characters from upstream source, recording the
+    characters that are read and pushed back in the metrics.
+
+    <p>Since the sources downstream push back the characters to their
+    upstream source, this source placed just above the {@link ReaderSource}
+    object records all the pushbacks.</p>
+*/
+public final class MeteredSource implements Source {
+
+    private final Source source;
+    private final LexerMetrics metrics;
+
+    /**
+        Creates a new source.
+
+        @param source The upstream source.
+        @param metrics The metrics.
+    */
+    public MeteredSource(Source source, LexerMetrics metrics) {
+        this.source = source;
+        this.metrics = metrics;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getFilename() {
+        return source.getFilename();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceLocation getLocation() {
+        return source.getLocation();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceChar getChar() throws IOException {
+        var c = source.getChar();
+        if (!c.isEof()) {
+            metrics.recordRead();
+        }
+        return c;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void ungetChar(SourceChar c) {
+        metrics.recordPushback();
+        source.ungetChar(c);
+    }
+}
@@ -0,0 +1,232 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import com.maroontress.clione.TokenKind;
+import com.maroontress.clione.TokenType;
+
+/**
+    The deterministic finite automaton that recognizes the operators and
+    punctuators, including their digraph sequences.
+
+    <p>The automaton has the transition table indexed by the state and the
+    ASCII character. Each accepting state has either the token type or the
+    {@link Tokenizer} object that is invoked when the automaton stops at the
+    state, such as the one that substitutes the digraph sequence or reads
+    the rest of the comment. The state that has no transitions stops the
+    automaton without reading any more characters.</p>
+
+    <p>Each accepting state also has the {@link TokenKind} of its
+    sequence, which the automaton sets to the {@link TokenBuilder} object
+    so that the operator or punctuator has the kind without looking it
+    up.</p>
+
+    <p>The automaton recognizes the longest sequence of characters that
+    ends with an accepting state, pushing back the characters read after
+    it.</p>
+
+    <p>Note that the {@link OperatorDfa} instance is an immutable
+    object.</p>
+
+    @see Transcriber#readOperator(OperatorDfa)
+*/
+public final class OperatorDfa {
+
+    private static final int ALPHABET = 128;
+
+    private static final int NONE = 0;
+
+    private final int[] table;
+    private final boolean[] hasNext;
+    private final TokenType[] types;
+    private final TokenKind[] kinds;
+    private final Tokenizer[] actions;
+    private final Set<Character> firstChars;
+
+    private OperatorDfa(Builder b) {
+        var size = b.types.size();
+        table = new int[size * ALPHABET];
+        hasNext = new boolean[size];
+        for (var k = 0; k < size; ++k) {
+            var row = b.transitions.get(k);
+            System.arraycopy(row, 0, table, k * ALPHABET, ALPHABET);
+            hasNext[k] = b.hasNext.get(k);
+        }
+        types = b.types.toArray(new TokenType[size]);
+        kinds = b.kinds.toArray(new TokenKind[size]);
+        actions = b.actions.toArray(new Tokenizer[size]);
+        var set = new HashSet<Character>();
+        for (var c = 0; c < ALPHABET; ++c) {
+            if (table[c] != NONE) {
+                set.add((char) c);
+            }
+        }
+        firstChars = Set.copyOf(set);
+    }
+
+    /**
+        Returns a new case that maps the first characters of the sequences
+        to the tokenizer that runs this automaton.
+
+        @return The new case.
+    */
+    public Case toCase() {
+        return Case.of(firstChars, x -> x.readOperator(this));
+    }
+
+    /**
+        Returns the state after the specified first character.
+
+        @param c The first character.
+        @return The state, or zero if no sequence starts with the character.
+    */
+    public int start(char c) {
+        return next(NONE, c);
+    }
+
+    /**
+        Returns the state after the specified character.
+
+        @param state The current state.
+        @param c The character.
+        @return The next state, or zero if there is no transition.
+    */
+    public int next(int state, char c) {
+        return (c < ALPHABET) ? table[state * ALPHABET + c] : NONE;
+    }
+
+    /**
+        Returns whether the specified state has any transitions.
+
+        @param state The state.
+        @return {@code true} if the state has transitions.
+    */
+    public boolean hasNext(int state) {
+        return hasNext[state];
+    }
+
+    /**
+        Returns whether the specified state is an accepting state.
+
+        @param state The state.
+        @return {@code true} if the state is accepting.
+    */
+    public boolean isAccepting(int state) {
+        return types[state] != null || actions[state] != null;
+    }
+
+    /**
+        Returns the token type of the specified accepting state without
+        invoking its tokenizer.
+
+        @param state The accepting state.
+        @return The token type, or {@code null} if the state has the
+            tokenizer instead.
+    */
+    public TokenType getType(int state) {
+        return types[state];
+    }
+
+    /**
+        Returns the token type of the specified accepting state, invoking
+        its tokenizer if any, and sets the kind of the state to the builder
+        of the transcriber.
+
+        @param x The transcriber whose builder has stored the sequence.
+        @param state The accepting state.
+        @return The token type.
+        @throws IOException If an I/O error occurs.
+    */
+    public TokenType accept(Transcriber x, int state) throws IOException {
+        x.getBuilder().setKind(kinds[state]);
+        var action = actions[state];
+        return (action != null) ? action.apply(x) : types[state];
+    }
+
+    /**
+        The builder of the {@link OperatorDfa} object.
+    */
+    public static final class Builder {
+
+        private final List<int[]> transitions = new ArrayList<>();
+        private final List<Boolean> hasNext = new ArrayList<>();
+        private final List<TokenType> types = new ArrayList<>();
+        private final List<TokenKind> kinds = new ArrayList<>();
+        private final List<Tokenizer> actions = new ArrayList<>();
+
+        /**
+            Creates a new instance.
+        */
+        public Builder() {
+            newState();
+        }
+
+        /**
+            Adds the specified sequence that is a token of the specified
+            type.
+
+            @param sequence The sequence of the ASCII characters.
+            @param type The token type.
+            @return This builder.
+        */
+        public Builder add(String sequence, TokenType type) {
+            var state = addPath(sequence);
+            types.set(state, type);
+            kinds.set(state, TokenKind.ofSpelling(sequence));
+            actions.set(state, null);
+            return this;
+        }
+
+        /**
+            Adds the specified sequence with which the specified tokenizer
+            is invoked.
+
+            @param sequence The sequence of the ASCII characters.
+            @param action The tokenizer that is invoked when the automaton
+                stops after the sequence.
+            @return This builder.
+        */
+        public Builder add(String sequence, Tokenizer action) {
+            var state = addPath(sequence);
+            types.set(state, null);
+            kinds.set(state, TokenKind.ofSpelling(sequence));
+            actions.set(state, action);
+            return this;
+        }
+
+        /**
+            Returns a new automaton.
+
+            @return The new automaton.
+        */
+        public OperatorDfa build() {
+            return new OperatorDfa(this);
+        }
+
+        private int addPath(String sequence) {
+            var state = NONE;
+            for (var c : sequence.toCharArray()) {
+                var row = transitions.get(state);
+                if (row[c] == NONE) {
+                    row[c] = newState();
+                    hasNext.set(state, true);
+                }
+                state = row[c];
+            }
+            return state;
+        }
+
+        private int newState() {
+            var state = types.size();
+            transitions.add(new int[ALPHABET]);
+            hasNext.add(false);
+            types.add(null);
+            kinds.add(null);
+            actions.add(null);
+            return state;
+        }
+    }
+}
@@ -26,6 +26,13 @@ public final class PhaseTwoSource implements Source {
         this.source = source;
     }
 
+    /**
+        Resets this source after its upstream source has been reset.
+    */
+    public void reset() {
+        eofIdentity = this::initializeEof;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void close() throws IOException {
@@ -8,16 +8,20 @@ import com.maroontress.clione.SourceChar;
 import com.maroontress.clione.SourceLocation;
 
 /**
-    This source reads characters from upstream reader, counting the line and
-    column number.
+    This source reads characters from upstream reader, counting the offset
+    and building the line index.
+
+    <p>The characters this source returns have their offset, and their line
+    and column numbers are resolved with the line index only when their
+    spans are requested.</p>
 */
 public final class ReaderSource implements Source {
 
-    private final UnifiedNewlineReader reader;
-    private final String filename;
+    private UnifiedNewlineReader reader;
+    private LineIndex index;
     private final Deque<SourceChar> stack;
-    private int line = 1;
-    private int column = 1;
+    private int offset;
+    private boolean followsHighSurrogate;
 
     /**
         Creates a new source.
@@ -27,10 +31,28 @@ public final class ReaderSource implements Source {
     */
     public ReaderSource(Reader reader, String filename) {
         this.reader = new UnifiedNewlineReader(reader);
-        this.filename = filename;
+        this.index = new LineIndex(filename);
         stack = new ArrayDeque<>();
     }
 
+    /**
+        Resets this source so that it reads characters from the specified
+        reader.
+
+        <p>This source creates a new line index, so the characters that it
+        has returned remain valid.</p>
+
+        @param newReader The reader from which characters will be read.
+        @param filename The filename.
+    */
+    public void reset(Reader newReader, String filename) {
+        reader = new UnifiedNewlineReader(newReader);
+        index = new LineIndex(filename);
+        stack.clear();
+        offset = 0;
+        followsHighSurrogate = false;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void close() throws IOException {
@@ -40,13 +62,13 @@ public final class ReaderSource implements Source {
     /** {@inheritDoc} */
     @Override
     public String getFilename() {
-        return filename;
+        return index.getFilename();
     }
 
     /** {@inheritDoc} */
     @Override
     public SourceLocation getLocation() {
-        return new SourceLocation(line, column);
+        return new SourceLocation(index, offset);
     }
 
     /** {@inheritDoc} */
@@ -60,17 +82,18 @@ public final class ReaderSource implements Source {
         }
         var i = reader.read();
         if (i == -1) {
-            return SourceChars.eof(filename);
+            return SourceChars.eof(getFilename());
         }
-        var c = SourceChars.of((char) i, filename, column, line);
-        if (i == '\n') {
-            column = 1;
-            ++line;
-            return c;
+        var c = (char) i;
+        var o = offset;
+        ++offset;
+        if (c == '\n') {
+            index.addLineStart(offset);
+        } else if (followsHighSurrogate && Character.isLowSurrogate(c)) {
+            index.addLowSurrogate(o);
         }
-        aidSurrogatePair(i);
-        ++column;
-        return c;
+        followsHighSurrogate = Character.isHighSurrogate(c);
+        return SourceChars.of(c, index, o);
     }
 
     /** {@inheritDoc} */
@@ -81,17 +104,4 @@ public final class ReaderSource implements Source {
         }
         stack.addFirst(c);
     }
-
-    private void aidSurrogatePair(int i) throws IOException {
-        if (!Character.isHighSurrogate((char) i)) {
-            return;
-        }
-        var next = reader.read();
-        if (next == -1) {
-            return;
-        }
-        var nextColumn = (Character.isLowSurrogate((char) next))
-                ? column : column + 1;
-        stack.addFirst(SourceChars.of((char) next, filename, nextColumn, line));
-    }
 }
@@ -0,0 +1,79 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.SourceLocation;
+
+/**
+    The source that records the characters that it reads from another
+    source.
+
+    <p>The characters that are pushed back are removed from the record, so
+    the record contains the characters that have been consumed. The
+    characters must be pushed back in the reverse order of reading.</p>
+*/
+public final class RecordingSource implements Source {
+
+    private final Source source;
+    private final List<SourceChar> chars;
+
+    /**
+        Creates a new instance.
+
+        @param source The source from which this source reads the
+            characters.
+    */
+    public RecordingSource(Source source) {
+        this.source = source;
+        this.chars = new ArrayList<>();
+    }
+
+    /**
+        Returns the characters that have been recorded, and clears the
+        record.
+
+        @return The new list of the characters.
+    */
+    public List<SourceChar> take() {
+        var list = List.copyOf(chars);
+        chars.clear();
+        return list;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getFilename() {
+        return source.getFilename();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceLocation getLocation() {
+        return source.getLocation();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceChar getChar() throws IOException {
+        var c = source.getChar();
+        if (!c.isEof()) {
+            chars.add(c);
+        }
+        return c;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void ungetChar(SourceChar c) {
+        source.ungetChar(c);
+        chars.remove(chars.size() - 1);
+    }
+}
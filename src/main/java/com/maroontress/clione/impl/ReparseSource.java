@@ -1,33 +1,58 @@
 package com.maroontress.clione.impl;
 
 import java.util.ArrayDeque;
-import java.util.Collection;
 import java.util.Deque;
+import java.util.List;
 import com.maroontress.clione.SourceChar;
 import com.maroontress.clione.SourceLocation;
+import com.maroontress.clione.Token;
 
 /**
-    The source that is created from the given character sequence.
+    The source that is created from the characters of the given tokens.
+
+    <p>This source reads the characters of the tokens in place, with the
+    cursor that consists of the index of the token and the index of the
+    character in the token. So it copies neither the tokens nor their
+    characters.</p>
 */
 public final class ReparseSource implements Source {
 
-    private final Deque<SourceChar> queue;
+    private final List<Token> tokens;
+    private final Deque<SourceChar> stack;
     private final SourceChar eof;
     private final SourceChar lastChar;
+    private List<SourceChar> chars;
+    private int tokenIndex;
+    private int charIndex;
 
     /**
         Creates a new instance of {@code ReparseSource}.
 
-        @param chars The character sequence.
+        @param tokens The tokens, which must not be modified while this
+            source is in use.
         @param filename The filename.
     */
-    public ReparseSource(Collection<SourceChar> chars, String filename) {
-        if (chars.isEmpty()) {
+    public ReparseSource(List<Token> tokens, String filename) {
+        this.tokens = tokens;
+        this.stack = new ArrayDeque<>();
+        this.eof = SourceChars.eof(filename);
+        this.lastChar = findLastChar(tokens);
+        if (lastChar == null) {
             throw new IllegalArgumentException("chars is empty");
         }
-        this.queue = new ArrayDeque<>(chars);
-        this.eof = SourceChars.eof(filename);
-        this.lastChar = queue.peekLast();
+        chars = List.of();
+    }
+
+    private static SourceChar findLastChar(List<Token> tokens) {
+        var k = tokens.size();
+        while (k > 0) {
+            --k;
+            var list = tokens.get(k).getChars();
+            if (!list.isEmpty()) {
+                return list.get(list.size() - 1);
+            }
+        }
+        return null;
     }
 
     /** {@inheritDoc} */
@@ -38,19 +63,50 @@ public final class ReparseSource implements Source {
     /** {@inheritDoc} */
     @Override
     public SourceLocation getLocation() {
-        var c = (queue.isEmpty())
-                ? lastChar
-                : queue.peekFirst();
+        var c = stack.peekFirst();
+        if (c == null) {
+            c = peekChar();
+        }
+        if (c == null) {
+            c = lastChar;
+        }
         return c.getSpan().getStart();
     }
 
     /** {@inheritDoc} */
     @Override
     public SourceChar getChar() {
-        if (queue.isEmpty()) {
+        {
+            var c = stack.pollFirst();
+            if (c != null) {
+                return c;
+            }
+        }
+        var c = peekChar();
+        if (c == null) {
             return eof;
         }
-        return queue.removeFirst();
+        ++charIndex;
+        return c;
+    }
+
+    /**
+        Returns the character at the cursor, moving the cursor to the next
+        token while the current token has no more characters.
+
+        @return The character, or {@code null} if there are no more
+            characters.
+    */
+    private SourceChar peekChar() {
+        while (charIndex == chars.size()) {
+            if (tokenIndex == tokens.size()) {
+                return null;
+            }
+            chars = tokens.get(tokenIndex).getChars();
+            ++tokenIndex;
+            charIndex = 0;
+        }
+        return chars.get(charIndex);
     }
 
     /** {@inheritDoc} */
@@ -59,7 +115,7 @@ public final class ReparseSource implements Source {
         if (c.isEof()) {
             throw new IllegalArgumentException("c is EOF");
         }
-        queue.addFirst(c);
+        stack.addFirst(c);
     }
 
     @Override
@@ -0,0 +1,45 @@
+package com.maroontress.clione.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+    The JFR event that the {@link DefaultLexicalParser} object emits when it
+    takes longer than the threshold to read a token.
+
+    <p>Typical slow tokens are giant comments, unterminated strings that
+    continue to the end of the file, very long chains of line splices, and
+    directives followed by a skipped group. The default threshold is 1 ms,
+    which can be changed with the standard JFR settings.</p>
+*/
+@Name("com.maroontress.clione.SlowToken")
+@Label("Slow Token")
+@Category("Clione")
+@Description("Token that took long to read")
+@Threshold("1 ms")
+public final class SlowTokenEvent extends Event {
+
+    /** The filename. */
+    @Label("Filename")
+    String filename;
+
+    /** The name of the token type. */
+    @Label("Token Type")
+    String tokenType;
+
+    /** The line number where the token starts. */
+    @Label("Line")
+    int line;
+
+    /** The column number where the token starts. */
+    @Label("Column")
+    int column;
+
+    /** The number of the characters of the token. */
+    @Label("Length")
+    int length;
+}
@@ -0,0 +1,231 @@
+package com.maroontress.clione.impl;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.SourceLocation;
+import com.maroontress.clione.SourceSpan;
+import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenType;
+
+/**
+    The input of the snapshot, which reads the data that {@link
+    SnapshotOutput} writes.
+*/
+public final class SnapshotInput {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final DataInput in;
+    private final List<String> strings;
+
+    /**
+        Creates a new instance.
+
+        @param in The input from which the data is read.
+    */
+    public SnapshotInput(DataInput in) {
+        this.in = in;
+        strings = new ArrayList<>();
+    }
+
+    /**
+        Reads a non-negative integer.
+
+        @return The integer.
+        @throws IOException If an I/O error occurs.
+    */
+    public int readInt() throws IOException {
+        var value = 0;
+        for (var shift = 0; shift < Integer.SIZE; shift += 7) {
+            var b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("malformed integer");
+    }
+
+    /**
+        Reads an integer that may be negative.
+
+        @return The integer.
+        @throws IOException If an I/O error occurs.
+    */
+    public int readSignedInt() throws IOException {
+        var v = readInt();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+        Reads a boolean value.
+
+        @return The boolean value.
+        @throws IOException If an I/O error occurs.
+    */
+    public boolean readBoolean() throws IOException {
+        return in.readBoolean();
+    }
+
+    /**
+        Reads a string.
+
+        @return The string, or {@code null}.
+        @throws IOException If an I/O error occurs.
+    */
+    public String readString() throws IOException {
+        var k = readInt();
+        if (k == 0) {
+            return null;
+        }
+        var n = strings.size();
+        if (k <= n) {
+            return strings.get(k - 1);
+        }
+        if (k != n + 1) {
+            throw new StreamCorruptedException("malformed string");
+        }
+        var s = readChars();
+        strings.add(s);
+        return s;
+    }
+
+    /**
+        Reads the length and the characters of a character sequence.
+
+        @return The string of the characters.
+        @throws IOException If an I/O error occurs.
+    */
+    public String readChars() throws IOException {
+        var length = readInt();
+        var array = new char[length];
+        for (var k = 0; k < length; ++k) {
+            array[k] = (char) readInt();
+        }
+        return new String(array);
+    }
+
+    /**
+        Reads an array of integers.
+
+        @return The array.
+        @throws IOException If an I/O error occurs.
+    */
+    public int[] readSignedInts() throws IOException {
+        var size = readInt();
+        var array = new int[size];
+        for (var k = 0; k < size; ++k) {
+            array[k] = readSignedInt();
+        }
+        return array;
+    }
+
+    /**
+        Reads a token and its child tokens.
+
+        @return The token.
+        @throws IOException If an I/O error occurs.
+    */
+    public Token readToken() throws IOException {
+        return readToken(null);
+    }
+
+    /**
+        Reads a token and its child tokens, which {@link
+        SnapshotOutput#writeToken(Token, LineIndex)} has written with the
+        specified line index.
+
+        @param index The line index, or {@code null}.
+        @return The token.
+        @throws IOException If an I/O error occurs.
+    */
+    public Token readToken(LineIndex index) throws IOException {
+        var type = readType();
+        var charCount = readInt();
+        var chars = new ArrayList<SourceChar>(charCount);
+        for (var k = 0; k < charCount; ++k) {
+            chars.add(readChar(index));
+        }
+        var childCount = readInt();
+        var children = new ArrayList<Token>(childCount);
+        for (var k = 0; k < childCount; ++k) {
+            children.add(readToken(index));
+        }
+        var token = new DefaultToken(chars, type, children);
+        var flags = readInt();
+        var trivia = readBoolean()
+                ? new SourceSpan(readLocation(index), readLocation(index))
+                : null;
+        return FlaggedToken.of(token, flags, trivia);
+    }
+
+    private SourceLocation readLocation(LineIndex index) throws IOException {
+        var line = readInt();
+        if (line == 0) {
+            return new SourceLocation(index, readOffset(index));
+        }
+        var column = readInt();
+        if (column <= 0) {
+            throw new StreamCorruptedException("malformed location");
+        }
+        return new SourceLocation(line, column);
+    }
+
+    private int readOffset(LineIndex index) throws IOException {
+        var offset = readInt();
+        if (index == null || offset < 0) {
+            throw new StreamCorruptedException("malformed offset");
+        }
+        return offset;
+    }
+
+    /**
+        Reads a token type.
+
+        @return The token type.
+        @throws IOException If an I/O error occurs.
+    */
+    public TokenType readType() throws IOException {
+        var k = readInt();
+        if (k >= TYPES.length) {
+            throw new StreamCorruptedException("malformed token type");
+        }
+        return TYPES[k];
+    }
+
+    private SourceChar readChar(LineIndex index) throws IOException {
+        var c = (char) readInt();
+        var childCount = readInt();
+        if (childCount > 0) {
+            var children = new ArrayList<SourceChar>(childCount);
+            for (var k = 0; k < childCount; ++k) {
+                children.add(readChar(index));
+            }
+            return SourceChars.of(c, children);
+        }
+        var line = readInt();
+        if (line == 0) {
+            return SourceChars.of(c, index, readOffset(index));
+        }
+        var column = readInt();
+        var filename = readString();
+        return SourceChars.of(c, filename, column, line);
+    }
+
+    /**
+        Reads a line index.
+
+        @return The line index.
+        @throws IOException If an I/O error occurs.
+    */
+    public LineIndex readLineIndex() throws IOException {
+        var filename = readString();
+        var lineStarts = readSignedInts();
+        var lowSurrogates = readSignedInts();
+        return LineIndex.of(filename, lineStarts, lowSurrogates);
+    }
+}
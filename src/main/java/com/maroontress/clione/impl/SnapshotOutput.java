@@ -0,0 +1,221 @@
+package com.maroontress.clione.impl;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.SourceLocation;
+import com.maroontress.clione.Token;
+
+/**
+    The output of the snapshot, which writes integers, strings, tokens, and
+    line indexes in the compact form.
+
+    <p>The integers are written in the variable-length form, where each
+    byte has seven bits of the value and the flag that tells whether the
+    next byte follows. Each string is written only once, and then it is
+    referred to with its index.</p>
+
+    @see SnapshotInput
+*/
+public final class SnapshotOutput {
+
+    private final DataOutput out;
+    private final Map<String, Integer> strings;
+
+    /**
+        Creates a new instance.
+
+        @param out The output to which the data is written.
+    */
+    public SnapshotOutput(DataOutput out) {
+        this.out = out;
+        strings = new HashMap<>();
+    }
+
+    /**
+        Writes the specified non-negative integer.
+
+        @param value The integer.
+        @throws IOException If an I/O error occurs.
+    */
+    public void writeInt(int value) throws IOException {
+        var v = value;
+        while ((v & ~0x7f) != 0) {
+            out.writeByte((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    /**
+        Writes the specified integer that may be negative.
+
+        @param value The integer.
+        @throws IOException If an I/O error occurs.
+    */
+    public void writeSignedInt(int value) throws IOException {
+        writeInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+        Writes the specified boolean value.
+
+        @param value The boolean value.
+        @throws IOException If an I/O error occurs.
+    */
+    public void writeBoolean(boolean value) throws IOException {
+        out.writeBoolean(value);
+    }
+
+    /**
+        Writes the specified string.
+
+        @param s The string, or {@code null}.
+        @throws IOException If an I/O error occurs.
+    */
+    public void writeString(String s) throws IOException {
+        if (s == null) {
+            writeInt(0);
+            return;
+        }
+        var k = strings.get(s);
+        if (k != null) {
+            writeInt(k + 1);
+            return;
+        }
+        var n = strings.size();
+        strings.put(s, n);
+        writeInt(n + 1);
+        writeChars(s);
+    }
+
+    /**
+        Writes the length and the characters of the specified character
+        sequence.
+
+        @param s The character sequence.
+        @throws IOException If an I/O error occurs.
+    */
+    public void writeChars(CharSequence s) throws IOException {
+        var length = s.length();
+        writeInt(length);
+        for (var k = 0; k < length; ++k) {
+            writeInt(s.charAt(k));
+        }
+    }
+
+    /**
+        Writes the specified array of integers.
+
+        @param array The array.
+        @param size The number of the elements to write.
+        @throws IOException If an I/O error occurs.
+    */
+    public void writeSignedInts(int[] array, int size) throws IOException {
+        writeInt(size);
+        for (var k = 0; k < size; ++k) {
+            writeSignedInt(array[k]);
+        }
+    }
+
+    /**
+        Writes the specified token and its child tokens.
+
+        <p>Each character of the token is written with its line and column
+        numbers rather than its offset.</p>
+
+        @param token The token.
+        @throws IOException If an I/O error occurs.
+    */
+    public void writeToken(Token token) throws IOException {
+        writeToken(token, null);
+    }
+
+    /**
+        Writes the specified token and its child tokens, with the offsets
+        of the characters in the source file of the specified line index.
+
+        <p>Each leaf character that has its offset with the line index, and
+        each endpoint of the leading trivia that has its offset, are written
+        with the offset. The others are written with their line and column
+        numbers. Since a line number is never zero, zero precedes the
+        offset to tell them apart.</p>
+
+        @param token The token.
+        @param index The line index that the reader of the token has
+            already read, or {@code null}.
+        @throws IOException If an I/O error occurs.
+    */
+    public void writeToken(Token token, LineIndex index) throws IOException {
+        writeInt(token.getType().ordinal());
+        var chars = token.getChars();
+        writeInt(chars.size());
+        for (var c : chars) {
+            writeChar(c, index);
+        }
+        var children = token.getChildren();
+        writeInt(children.size());
+        for (var child : children) {
+            writeToken(child, index);
+        }
+        writeInt(FlaggedToken.bitsOf(token));
+        var trivia = token.getLeadingTrivia();
+        writeBoolean(trivia.isPresent());
+        if (trivia.isPresent()) {
+            var span = trivia.get();
+            writeLocation(span.getStart(), index);
+            writeLocation(span.getEnd(), index);
+        }
+    }
+
+    private void writeLocation(SourceLocation location, LineIndex index)
+            throws IOException {
+        var offset = location.getOffset();
+        if (index != null && offset >= 0) {
+            writeInt(0);
+            writeInt(offset);
+            return;
+        }
+        writeInt(location.getLine());
+        writeInt(location.getColumn());
+    }
+
+    private void writeChar(SourceChar c, LineIndex index)
+            throws IOException {
+        writeInt(c.toChar());
+        var children = c.getChildren();
+        writeInt(children.size());
+        if (!children.isEmpty()) {
+            for (var child : children) {
+                writeChar(child, index);
+            }
+            return;
+        }
+        if (index != null && c instanceof IndexedChar
+                && ((IndexedChar) c).getIndex() == index) {
+            writeInt(0);
+            writeInt(((IndexedChar) c).getOffset());
+            return;
+        }
+        var start = c.getSpan().getStart();
+        writeInt(start.getLine());
+        writeInt(start.getColumn());
+        writeString(c.getFilename());
+    }
+
+    /**
+        Writes the specified line index.
+
+        @param index The line index.
+        @throws IOException If an I/O error occurs.
+    */
+    public void writeLineIndex(LineIndex index) throws IOException {
+        writeString(index.getFilename());
+        var lineStarts = index.getLineStarts();
+        writeSignedInts(lineStarts, lineStarts.length);
+        var lowSurrogates = index.getLowSurrogates();
+        writeSignedInts(lowSurrogates, lowSurrogates.length);
+    }
+}
@@ -116,9 +116,8 @@ public final class SourceChars {
         }
         var list = Stream.concat(children.stream(), Stream.of(c))
                         .collect(Collectors.toUnmodifiableList());
-        var span = new SourceSpan(list.get(0).getSpan(), c.getSpan());
         var filename = c.getFilename();
-        return of(c.toChar(), filename, span, list);
+        return of(c.toChar(), filename, list);
     }
 
     /**
@@ -139,11 +138,8 @@ public final class SourceChars {
     */
     public static SourceChar of(SourceChar first, SourceChar second,
                                 SourceChar third, char c) {
-        var start = first.getSpan().getStart();
-        var end = third.getSpan().getEnd();
-        var span = new SourceSpan(start, end);
         var filename = first.getFilename();
-        return of(c, filename, span, List.of(first, second, third));
+        return of(c, filename, List.of(first, second, third));
     }
 
     /**
@@ -162,11 +158,30 @@ public final class SourceChars {
         @return The new {@link SourceChar} object.
     */
     public static SourceChar of(SourceChar first, SourceChar second, char c) {
-        var start = first.getSpan().getStart();
-        var end = second.getSpan().getEnd();
-        var span = new SourceSpan(start, end);
         var filename = first.getFilename();
-        return of(c, filename, span, List.of(first, second));
+        return of(c, filename, List.of(first, second));
+    }
+
+    /**
+        Returns a new {@link SourceChar} object that represents the specified
+        character and has the specified child characters.
+
+        <p>Typically, this method is to restore the character that has been
+        substituted for any sequence of characters.</p>
+
+        <p>Note that the character this method returns is an immutable
+        object.</p>
+
+        @param c The character that represents the new character.
+        @param children The non-empty list containing the child characters.
+        @return The new {@link SourceChar} object.
+        @throws IllegalArgumentException If the {@code children} is empty.
+    */
+    public static SourceChar of(char c, List<SourceChar> children) {
+        if (children.isEmpty()) {
+            throw new IllegalArgumentException("children must not be empty");
+        }
+        return of(c, children.get(0).getFilename(), children);
     }
 
     /**
@@ -205,6 +220,72 @@ public final class SourceChars {
         return of(c, filename, span, SourceChar.EMPTY_LIST);
     }
 
+    /**
+        Returns a new {@link SourceChar} object that has no child characters
+        (that is a leaf character) at the specified offset.
+
+        <p>The character this method returns has neither a span nor
+        locations but the offset. It creates them with the specified index
+        whenever its {@link SourceChar#getSpan()} method is invoked.</p>
+
+        <p>Note that the character this method returns is an immutable
+        object.</p>
+
+        @param c The character that represents the new character.
+        @param index The line index of the source file.
+        @param offset The offset of the character in the source file.
+        @return The new {@link SourceChar} object.
+    */
+    public static SourceChar of(char c, LineIndex index, int offset) {
+        return new IndexedChar(c, index, offset);
+    }
+
+    /**
+        Returns a new {@link SourceChar} object that has the specified child
+        characters, whose span is the range from the first child character to
+        the last one.
+
+        <p>Note that the character this method returns is an immutable
+        object.</p>
+
+        @param c The character that represents the new character.
+        @param filename The filename.
+        @param children The non-empty list containing the child characters.
+        @return The new {@link SourceChar} object.
+    */
+    private static SourceChar of(char c, String filename,
+                                 List<SourceChar> children) {
+        var list = List.copyOf(children);
+        var first = list.get(0);
+        var last = list.get(list.size() - 1);
+        return new SourceChar() {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+
+            @Override
+            public boolean isEof() {
+                return false;
+            }
+
+            @Override
+            public char toChar() {
+                return c;
+            }
+
+            @Override
+            public SourceSpan getSpan() {
+                return new SourceSpan(first.getSpan(), last.getSpan());
+            }
+
+            @Override
+            public List<SourceChar> getChildren() {
+                return list;
+            }
+        };
+    }
+
     /**
         Returns a new {@link SourceChar} object that has the specified span
         and the specified child characters.
@@ -0,0 +1,230 @@
+package com.maroontress.clione.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.SourceLocation;
+import com.maroontress.clione.SourceSpan;
+import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenFlag;
+import com.maroontress.clione.TokenType;
+import com.maroontress.clione.Tokens;
+
+/**
+    The string literal token that the {@code #} operator creates.
+
+    <p>The value of this token is written into the buffer of the exact
+    length, which is computed in advance. The {@link SourceChar} objects of
+    this token, each of which is either the character of the stringized
+    tokens or the new character at the specified location, are created only
+    when they are requested.</p>
+*/
+public final class StringizedToken implements Token {
+
+    private final String value;
+    private final List<Token> tokens;
+    private final SourceLocation where;
+    private List<SourceChar> chars;
+
+    private StringizedToken(String value, List<Token> tokens,
+                            SourceLocation where) {
+        this.value = value;
+        this.tokens = tokens;
+        this.where = where;
+    }
+
+    /**
+        Returns a new token that represents the stringized form of the
+        specified tokens.
+
+        @param tokens The immutable list of tokens to be stringized.
+        @param where The source location of the new characters.
+        @return The new token.
+        @see Tokens#stringize(List, SourceLocation)
+    */
+    public static Token of(List<Token> tokens, SourceLocation where) {
+        var start = 0;
+        var end = tokens.size();
+        while (start < end && Tokens.isDelimiterOrComment(tokens.get(start))) {
+            ++start;
+        }
+        while (end > start
+                && Tokens.isDelimiterOrComment(tokens.get(end - 1))) {
+            --end;
+        }
+        var list = tokens.subList(start, end);
+        var length = 2;
+        var isSpace = false;
+        var isFirst = true;
+        for (var t : list) {
+            if (Tokens.isDelimiterOrComment(t)) {
+                isSpace = true;
+                continue;
+            }
+            if (hasSpaceBefore(t, isSpace, isFirst)) {
+                ++length;
+            }
+            isSpace = false;
+            isFirst = false;
+            var s = t.getValue();
+            var size = s.length();
+            length += size;
+            for (var k = 0; k < size; ++k) {
+                if (isEscaped(s.charAt(k))) {
+                    ++length;
+                }
+            }
+        }
+        var buffer = new char[length];
+        var n = 0;
+        buffer[n] = '"';
+        ++n;
+        isSpace = false;
+        isFirst = true;
+        for (var t : list) {
+            if (Tokens.isDelimiterOrComment(t)) {
+                isSpace = true;
+                continue;
+            }
+            if (hasSpaceBefore(t, isSpace, isFirst)) {
+                buffer[n] = ' ';
+                ++n;
+            }
+            isSpace = false;
+            isFirst = false;
+            var s = t.getValue();
+            var size = s.length();
+            for (var k = 0; k < size; ++k) {
+                var c = s.charAt(k);
+                if (isEscaped(c)) {
+                    buffer[n] = '\\';
+                    ++n;
+                }
+                buffer[n] = c;
+                ++n;
+            }
+        }
+        buffer[n] = '"';
+        return new StringizedToken(new String(buffer), list, where);
+    }
+
+    /**
+        Returns whether the single space precedes the specified token in
+        the stringized form.
+
+        <p>The token that has the {@link TokenFlag#LEADING_SPACE} flag is
+        preceded by the space as well as the token that follows the
+        delimiters and comments, unless it is the first token.</p>
+
+        @param token The token other than the delimiter and comment.
+        @param isSpace Whether the delimiters or comments precede the token.
+        @param isFirst Whether the token is the first one.
+        @return {@code true} if the space precedes the token.
+    */
+    private static boolean hasSpaceBefore(Token token, boolean isSpace,
+                                          boolean isFirst) {
+        return isSpace
+                || (!isFirst && token.hasFlag(TokenFlag.LEADING_SPACE));
+    }
+
+    private static boolean isEscaped(char c) {
+        return c == '\\' || c == '"';
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getValue() {
+        return value;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceSpan getSpan() {
+        return new SourceSpan(where, where);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<SourceChar> getChars() {
+        var list = chars;
+        if (list == null) {
+            list = newChars();
+            chars = list;
+        }
+        return list;
+    }
+
+    private List<SourceChar> newChars() {
+        var doubleQuote = newSourceChar('"');
+        var singleSpace = newSourceChar(' ');
+        var backslash = newSourceChar('\\');
+        var list = new ArrayList<SourceChar>(value.length());
+        list.add(doubleQuote);
+        var isSpace = false;
+        var isFirst = true;
+        for (var t : tokens) {
+            if (Tokens.isDelimiterOrComment(t)) {
+                isSpace = true;
+                continue;
+            }
+            if (hasSpaceBefore(t, isSpace, isFirst)) {
+                list.add(singleSpace);
+            }
+            isSpace = false;
+            isFirst = false;
+            for (var c : t.getChars()) {
+                if (isEscaped(c.toChar())) {
+                    list.add(backslash);
+                }
+                list.add(c);
+            }
+        }
+        list.add(doubleQuote);
+        return List.copyOf(list);
+    }
+
+    private SourceChar newSourceChar(char c) {
+        return SourceChars.of(c, where.getColumn(), where.getLine());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TokenType getType() {
+        return TokenType.STRING;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Token> getChildren() {
+        return List.of();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Token withType(TokenType newType) {
+        return new DefaultToken(getChars(), newType);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Token withChildren(Collection<Token> newChildren) {
+        return new DefaultToken(getChars(), TokenType.STRING, newChildren);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isValue(String s) {
+        return value.equals(s);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "[value=" + value + ", "
+                + "span=" + getSpan() + ", "
+                + "chars=" + getChars() + ", "
+                + "type=" + TokenType.STRING + ", "
+                + "children=" + List.of() + "]";
+    }
+}
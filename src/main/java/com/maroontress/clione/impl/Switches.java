@@ -1,310 +1,344 @@
 package com.maroontress.clione.impl;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Set;
 import com.maroontress.clione.impl.Case.Mapper;
+import com.maroontress.clione.TokenFlag;
 import com.maroontress.clione.TokenType;
 
 /**
     Provides mappers that associate a character with a tokenizer.
+
+    <p>There are two instances, {@link #WITH_DIGRAPHS} and {@link
+    #WITHOUT_DIGRAPHS}, which differ only in whether the operators and
+    punctuators include the digraph sequences. They are created only once,
+    so the parsers with the same dialect share the same tables.</p>
+
+    <p>Note that the {@link Switches} instance is an immutable object.</p>
 */
 public final class Switches {
 
-    /** The default mapper. */
-    public static final Mapper DEFAULT = Case.newMapper(
-            // ' ', '\t', or '\n'
-            Cases.DELIMITER,
-            // u
-            LowerU.CASE,
-            // [LU]
-            UpperLOrU.CASE,
-            // "
-            Cases.STRING_LITERAL,
-            // '
-            Cases.CHARACTER_CONSTANT,
-            // /
-            Slash.CASE,
-            // [_A-Za-z] (except LUu so that the order is important)
-            Cases.IDENTIFIER,
-            // '\\'
-            Backslash.CASE,
-            // [0-9]
-            Cases.NUMBER,
-            // .
-            Dot.CASE,
-            // #
-            Sharp.CASE,
-            // %
-            Percent.CASE,
-            // :
-            Colon.CASE,
-            // -
-            Cases.MINUS,
-            // ?
-            Cases.QUESTION,
-            // [](){},;
-            Cases.PUNCTUATOR,
-            // >
-            Cases.GREATER_THAN,
-            // <
-            Cases.LESS_THAN,
-            // *^!~
-            Cases.OPERATOR_FOLLOWED_BY_EQUAL,
-            // +
-            Cases.PLUS,
-            // &
-            Cases.AND,
-            // |
-            Cases.OR);
-
-    /** The mapper used inside preprocessing directives. */
-    public static final Mapper DIRECTIVE = Case.newMapper(
-            // '\n'
-            Cases.DIRECTIVE_END,
-            // ' ' or '\t'
-            Cases.DIRECTIVE_DELIMITER,
-            // u
-            LowerU.CASE,
-            // [LU]
-            UpperLOrU.CASE,
-            // "
-            Cases.STRING_LITERAL,
-            // '
-            Cases.CHARACTER_CONSTANT,
-            // /
-            Slash.CASE,
-            // [_A-Za-z] (except LUu so that the order is important)
-            Cases.IDENTIFIER,
-            // '\\'
-            Backslash.CASE,
-            // [0-9]
-            Cases.NUMBER,
-            // .
-            Dot.CASE,
-            // #
-            SharpInsideDirective.CASE,
-            // %
-            PercentInsideDirective.CASE,
-            // :
-            Colon.CASE,
-            // -
-            Cases.MINUS,
-            // ?
-            Cases.QUESTION,
-            // [](){},;
-            Cases.PUNCTUATOR,
-            // >
-            Cases.GREATER_THAN,
-            // <
-            Cases.LESS_THAN,
-            // *^!~
-            Cases.OPERATOR_FOLLOWED_BY_EQUAL,
-            // +
-            Cases.PLUS,
-            // &
-            Cases.AND,
-            // |
-            Cases.OR);
-
-    /** The mapper used inside preprocessing {@code include} directives. */
-    public static final Mapper INCLUDE_DIRECTIVE = Case.newMapper(
-            // '\n'
-            Cases.DIRECTIVE_END,
-            // ' ' or '\t'
-            Cases.DIRECTIVE_DELIMITER,
-            // u
-            LowerU.CASE,
-            // [LU]
-            UpperLOrU.CASE,
-            // "
-            Cases.FILENAME,
-            // <
-            Cases.STANDARD_HEADER,
-            // '
-            Cases.CHARACTER_CONSTANT,
-            // /
-            Slash.CASE,
-            // [_A-Za-z] (except LUu so that the order is important)
-            Cases.IDENTIFIER,
-            // '\\'
-            Backslash.CASE,
-            // [0-9]
-            Cases.NUMBER,
-            // .
-            Dot.CASE,
-            // #
-            SharpInsideDirective.CASE,
-            // %
-            PercentInsideDirective.CASE,
-            // :
-            Colon.CASE,
-            // -
-            Cases.MINUS,
-            // ?
-            Cases.QUESTION,
-            // [](){},;
-            Cases.PUNCTUATOR,
-            // >
-            Cases.GREATER_THAN,
-            // <
-            Cases.LESS_THAN,
-            // *^!~
-            Cases.OPERATOR_FOLLOWED_BY_EQUAL,
-            // +
-            Cases.PLUS,
-            // &
-            Cases.AND,
-            // |
-            Cases.OR);
-
-    /** The mapper used inside preprocessing {@code line} directives. */
-    public static final Mapper LINE_DIRECTIVE = Case.newMapper(
-            // '\n'
-            Cases.DIRECTIVE_END,
-            // ' ' or '\t'
-            Cases.DIRECTIVE_DELIMITER,
-            // u
-            LowerU.CASE,
-            // [LU]
-            UpperLOrU.CASE,
-            // "
-            Cases.FILENAME,
-            // '
-            Cases.CHARACTER_CONSTANT,
-            // /
-            Slash.CASE,
-            // [_A-Za-z] (except LUu so that the order is important)
-            Cases.IDENTIFIER,
-            // '\\'
-            Backslash.CASE,
-            // [0-9]
-            Cases.DIGITS,
-            // .
-            Dot.CASE,
-            // #
-            SharpInsideDirective.CASE,
-            // %
-            PercentInsideDirective.CASE,
-            // :
-            Colon.CASE,
-            // -
-            Cases.MINUS,
-            // ?
-            Cases.QUESTION,
-            // [](){},;
-            Cases.PUNCTUATOR,
-            // >
-            Cases.GREATER_THAN,
-            // <
-            Cases.LESS_THAN,
-            // *^!~
-            Cases.OPERATOR_FOLLOWED_BY_EQUAL,
-            // +
-            Cases.PLUS,
-            // &
-            Cases.AND,
-            // |
-            Cases.OR);
-
-    /** Prevents the class from being instantiated. */
-    private Switches() {
-        throw new AssertionError();
+    /** The switches that recognize the digraph sequences. */
+    public static final Switches WITH_DIGRAPHS = new Switches(true);
+
+    /** The switches that do not recognize the digraph sequences. */
+    public static final Switches WITHOUT_DIGRAPHS = new Switches(false);
+
+    private final Mapper defaultMapper;
+    private final Mapper lineStartMapper;
+    private final Mapper directiveMapper;
+    private final Mapper includeDirectiveMapper;
+    private final Mapper lineDirectiveMapper;
+    private final OperatorDfa defaultOperators;
+    private final OperatorDfa lineStartOperators;
+
+    private Switches(boolean digraphs) {
+        var operators = new Operators(digraphs);
+        defaultOperators = operators.defaultDfa;
+        lineStartOperators = operators.lineStartDfa;
+        defaultMapper = Case.newMapper(
+                // ' ', '\t', or '\n'
+                Cases.DELIMITER,
+                // u
+                LowerU.CASE,
+                // [LU]
+                UpperLOrU.CASE,
+                // "
+                Cases.STRING_LITERAL,
+                // '
+                Cases.CHARACTER_CONSTANT,
+                // [_A-Za-z] (except LUu so that the order is important)
+                Cases.IDENTIFIER,
+                // '\\'
+                Backslash.CASE,
+                // [0-9]
+                Cases.NUMBER,
+                // operators and punctuators
+                operators.defaultCase);
+        lineStartMapper = Case.newMapper(
+                // ' ', '\t', or '\n'
+                Cases.DELIMITER,
+                // u
+                LowerU.CASE,
+                // [LU]
+                UpperLOrU.CASE,
+                // "
+                Cases.STRING_LITERAL,
+                // '
+                Cases.CHARACTER_CONSTANT,
+                // [_A-Za-z] (except LUu so that the order is important)
+                Cases.IDENTIFIER,
+                // '\\'
+                Backslash.CASE,
+                // [0-9]
+                Cases.NUMBER,
+                // operators and punctuators
+                operators.lineStartCase);
+        directiveMapper = Case.newMapper(
+                // '\n'
+                Cases.DIRECTIVE_END,
+                // ' ' or '\t'
+                Cases.DIRECTIVE_DELIMITER,
+                // u
+                LowerU.CASE,
+                // [LU]
+                UpperLOrU.CASE,
+                // "
+                Cases.STRING_LITERAL,
+                // '
+                Cases.CHARACTER_CONSTANT,
+                // [_A-Za-z] (except LUu so that the order is important)
+                Cases.IDENTIFIER,
+                // '\\'
+                Backslash.CASE,
+                // [0-9]
+                Cases.NUMBER,
+                // operators and punctuators
+                operators.directiveCase);
+        includeDirectiveMapper = Case.newMapper(
+                // '\n'
+                Cases.DIRECTIVE_END,
+                // ' ' or '\t'
+                Cases.DIRECTIVE_DELIMITER,
+                // u
+                LowerU.CASE,
+                // [LU]
+                UpperLOrU.CASE,
+                // "
+                Cases.FILENAME,
+                // <
+                Cases.STANDARD_HEADER,
+                // '
+                Cases.CHARACTER_CONSTANT,
+                // [_A-Za-z] (except LUu so that the order is important)
+                Cases.IDENTIFIER,
+                // '\\'
+                Backslash.CASE,
+                // [0-9]
+                Cases.NUMBER,
+                // operators and punctuators
+                operators.directiveCase);
+        lineDirectiveMapper = Case.newMapper(
+                // '\n'
+                Cases.DIRECTIVE_END,
+                // ' ' or '\t'
+                Cases.DIRECTIVE_DELIMITER,
+                // u
+                LowerU.CASE,
+                // [LU]
+                UpperLOrU.CASE,
+                // "
+                Cases.FILENAME,
+                // '
+                Cases.CHARACTER_CONSTANT,
+                // [_A-Za-z] (except LUu so that the order is important)
+                Cases.IDENTIFIER,
+                // '\\'
+                Backslash.CASE,
+                // [0-9]
+                Cases.DIGITS,
+                // operators and punctuators
+                operators.directiveCase);
     }
 
-    private static Tokenizer newLessOrGreaterThanTokenizer(char first) {
-        return x -> {
-            x.readZeroOrOneChar(c -> c == first);
-            x.readZeroOrOneChar(c -> c == '=');
-            return TokenType.OPERATOR;
-        };
-    }
+    /**
+        Returns the switches that recognize the digraph sequences or not.
 
-    private static Case newFollowingSelfOrEqualCase(char first) {
-        return Case.of(first, x -> {
-            x.readZeroOrOneChar(c -> c == first || c == '=');
-            return TokenType.OPERATOR;
-        });
+        @param digraphs Whether the switches recognize the digraph
+            sequences.
+        @return {@link #WITH_DIGRAPHS} or {@link #WITHOUT_DIGRAPHS}.
+    */
+    public static Switches of(boolean digraphs) {
+        return digraphs ? WITH_DIGRAPHS : WITHOUT_DIGRAPHS;
     }
 
-    private static Tokenizer newUniversalCharacterNameCase(int m) {
-        return x -> {
-            var n = x.readMax(m, Chars::isHexDigit);
-            if (n < m) {
-                return TokenType.UNKNOWN;
-            }
-            x.readIdentifier();
-            return TokenType.IDENTIFIER;
-        };
+    /**
+        Returns the default mapper.
+
+        @return The default mapper.
+    */
+    public Mapper getDefault() {
+        return defaultMapper;
     }
 
-    private static final class Colon {
-        static final Case CASE = Case.of(
-                ':', TokenType.PUNCTUATOR,
-                // >
-                Case.of('>', Digraphs::toRightBracket));
+    /**
+        Returns the mapper used at the start of the line, where the number
+        sign starts a preprocessing directive.
+
+        @return The mapper.
+    */
+    public Mapper getLineStart() {
+        return lineStartMapper;
     }
 
-    private static final class Sharp {
-        static final Case CASE = Case.of(
-                '#', TokenType.PUNCTUATOR,
-                // #
-                Case.of('#', x -> TokenType.PUNCTUATOR));
+    /**
+        Returns the mapper used inside preprocessing directives.
+
+        @return The mapper.
+    */
+    public Mapper getDirective() {
+        return directiveMapper;
     }
 
-    private static final class Percent {
-        static final Case CASE = Case.of(
-                '%', TokenType.OPERATOR,
-                // :
-                ColonAfterPercent.CASE,
-                // >
-                Cases.GREATER_THAN_FOLLOWING_PERCENT,
-                // =
-                Case.of('=', x -> TokenType.OPERATOR));
+    /**
+        Returns the mapper used inside preprocessing {@code include}
+        directives.
+
+        @return The mapper.
+    */
+    public Mapper getIncludeDirective() {
+        return includeDirectiveMapper;
     }
 
-    private static final class ColonAfterPercent {
-        static final Case CASE = Case.of(
-                ':', Digraphs::toDirective,
-                // %
-                PercentAfterPercentColon.CASE);
+    /**
+        Returns the mapper used inside preprocessing {@code line}
+        directives.
+
+        @return The mapper.
+    */
+    public Mapper getLineDirective() {
+        return lineDirectiveMapper;
     }
 
-    private static final class PercentAfterPercentColon {
-        static final Case CASE = Case.of(
-                '%', TokenType.UNKNOWN,
-                // :
-                Case.of(':', Digraphs::toUnknownDoubleNumberSign));
+    /**
+        Returns the automaton that recognizes the operators and punctuators
+        in the default mapper.
+
+        @return The automaton.
+    */
+    public OperatorDfa getDefaultOperators() {
+        return defaultOperators;
     }
 
-    private static final class SharpInsideDirective {
-        static final Case CASE = Case.of(
-                '#', TokenType.OPERATOR,
-                // #
-                Case.of('#', x -> TokenType.OPERATOR));
+    /**
+        Returns the automaton that recognizes the operators and punctuators
+        in the mapper used at the start of the line.
+
+        @return The automaton.
+    */
+    public OperatorDfa getLineStartOperators() {
+        return lineStartOperators;
     }
 
-    private static final class PercentInsideDirective {
-        static final Case CASE = Case.of(
-                '%', TokenType.OPERATOR,
-                // :
-                ColonAfterPercentInsideDirective.CASE,
-                // >
-                Cases.GREATER_THAN_FOLLOWING_PERCENT,
-                // =
-                Case.of('=', x -> TokenType.OPERATOR));
+    private static Tokenizer newUniversalCharacterNameCase(int m) {
+        return x -> {
+            var n = x.readMax(m, Chars::isHexDigit);
+            if (n < m) {
+                return TokenType.UNKNOWN;
+            }
+            x.getBuilder().addFlag(TokenFlag.UCN);
+            x.readIdentifier();
+            return TokenType.IDENTIFIER;
+        };
     }
 
-    private static final class ColonAfterPercentInsideDirective {
-        static final Case CASE = Case.of(
-                ':', Digraphs::toStringificationOperator,
-                // %
-                PercentAfterPercentColonInsideDirective.CASE);
+    private static OperatorDfa.Builder newOperatorBuilder(
+            boolean digraphs) {
+        var b = new OperatorDfa.Builder();
+        // [ ] ( ) { } , ; ?
+        for (var c : List.of("[", "]", "(", ")", "{", "}", ",", ";")) {
+            b.add(c, TokenType.PUNCTUATOR);
+        }
+        b.add("?", TokenType.OPERATOR);
+        // X X= (* ^ ! ~ = / %)
+        for (var c : List.of("*", "^", "!", "~", "=", "/", "%")) {
+            b.add(c, TokenType.OPERATOR)
+                    .add(c + "=", TokenType.OPERATOR);
+        }
+        // X XX X= (+ - & |) and ->
+        for (var c : List.of("+", "-", "&", "|")) {
+            b.add(c, TokenType.OPERATOR)
+                    .add(c + c, TokenType.OPERATOR)
+                    .add(c + "=", TokenType.OPERATOR);
+        }
+        b.add("->", TokenType.OPERATOR);
+        // X XX X= XX= (< >)
+        for (var c : List.of("<", ">")) {
+            b.add(c, TokenType.OPERATOR)
+                    .add(c + c, TokenType.OPERATOR)
+                    .add(c + "=", TokenType.OPERATOR)
+                    .add(c + c + "=", TokenType.OPERATOR);
+        }
+        // . ... .[0-9]
+        b.add(".", TokenType.OPERATOR)
+                .add("...", TokenType.PUNCTUATOR);
+        for (var c = '0'; c <= '9'; ++c) {
+            b.add("." + c, Operators::readNumber);
+        }
+        // /* // :
+        b.add("/*", Operators::readComment)
+                .add("//", Operators::readSingleLineComment)
+                .add(":", TokenType.PUNCTUATOR);
+        if (!digraphs) {
+            return b;
+        }
+        // <: :> <% %>
+        return b.add("<:", Digraphs::toLeftBracket)
+                .add(":>", Digraphs::toRightBracket)
+                .add("<%", Digraphs::toLeftBrace)
+                .add("%>", Digraphs::toRightBrace)
+                // %:% is not a token, but the sequence up to it is
+                .add("%:%", TokenType.UNKNOWN);
     }
 
-    private static final class PercentAfterPercentColonInsideDirective {
-        static final Case CASE = Case.of(
-                '%', TokenType.UNKNOWN,
-                // :
-                Case.of(':', Digraphs::toTokenPastingOperator));
+    private static final class Operators {
+
+        // Operators and punctuators other than inside directives
+        private final Case defaultCase;
+
+        // The number sign starts a preprocessing directive
+        private final Case lineStartCase;
+
+        // # and ## are the operators inside directives
+        private final Case directiveCase;
+
+        // The automata of the first two cases, which the fast scanner runs
+        private final OperatorDfa defaultDfa;
+        private final OperatorDfa lineStartDfa;
+
+        Operators(boolean digraphs) {
+            var defaultBuilder = newOperatorBuilder(digraphs)
+                    .add("#", TokenType.PUNCTUATOR)
+                    .add("##", TokenType.PUNCTUATOR);
+            var lineStartBuilder = newOperatorBuilder(digraphs)
+                    .add("#", TokenType.DIRECTIVE)
+                    .add("##", TokenType.PUNCTUATOR);
+            var directiveBuilder = newOperatorBuilder(digraphs)
+                    .add("#", TokenType.OPERATOR)
+                    .add("##", TokenType.OPERATOR);
+            if (digraphs) {
+                defaultBuilder.add("%:", Digraphs::toNumberSign)
+                        .add("%:%:", Digraphs::toUnknownDoubleNumberSign);
+                lineStartBuilder.add("%:", Digraphs::toDirective)
+                        .add("%:%:", Digraphs::toUnknownDoubleNumberSign);
+                directiveBuilder.add("%:", Digraphs::toStringificationOperator)
+                        .add("%:%:", Digraphs::toTokenPastingOperator);
+            }
+            defaultDfa = defaultBuilder.build();
+            lineStartDfa = lineStartBuilder.build();
+            defaultCase = defaultDfa.toCase();
+            lineStartCase = lineStartDfa.toCase();
+            directiveCase = directiveBuilder.build().toCase();
+        }
+
+        private static TokenType readNumber(Transcriber x)
+                throws IOException {
+            x.readNumber();
+            return TokenType.NUMBER;
+        }
+
+        private static TokenType readComment(Transcriber x)
+                throws IOException {
+            x.readComment();
+            return TokenType.COMMENT;
+        }
+
+        private static TokenType readSingleLineComment(Transcriber x)
+                throws IOException {
+            x.readSingleLine();
+            return TokenType.COMMENT;
+        }
     }
 
     private static final class Backslash {
@@ -317,18 +351,6 @@ public final class Switches {
                 Cases.UPPER_U_AFTER_BACKSLASH);
     }
 
-    private static final class Slash {
-        // Comment (/*...*/ //...) or operator (/ /=)
-        static final Case CASE = Case.of(
-                '/', TokenType.OPERATOR,
-                // *
-                Cases.ASTERISK_AFTER_SLASH,
-                // /
-                Cases.DOUBLE_SLASH,
-                // =
-                Case.of('=', x -> TokenType.OPERATOR));
-    }
-
     private static final class EightAfterLowerU {
         // UTF-8 string literal or identifier
         static final Case CASE = Case.of(
@@ -365,63 +387,8 @@ public final class Switches {
                 Cases.CHARACTER_CONSTANT);
     }
 
-    private static final class Dot {
-        // Preprocessing number starting with a dot (.[0-9]+) or operator
-        static final Case CASE = Case.of(
-                '.', TokenType.OPERATOR,
-                // 0-9
-                Cases.NUMBER,
-                // .
-                Cases.DOUBLE_DOT);
-    }
-
     /** Leaf cases. */
     private static final class Cases {
-        static final Case GREATER_THAN_FOLLOWING_PERCENT = Case.of(
-                '>', Digraphs::toRightBrace);
-
-        // + ++ +=
-        static final Case PLUS = newFollowingSelfOrEqualCase('+');
-
-        // - -- -=
-        static final Case AND = newFollowingSelfOrEqualCase('&');
-
-        // & && &=
-        static final Case OR = newFollowingSelfOrEqualCase('|');
-
-        // X X=
-        static final Case OPERATOR_FOLLOWED_BY_EQUAL = Case.of(
-                Set.of('*', '^', '!', '~', '='), x -> {
-                    x.readZeroOrOneChar(c -> c == '=');
-                    return TokenType.OPERATOR;
-                });
-
-        // < << <= <<= <: <%
-        static final Case LESS_THAN = Case.of(
-                '<', newLessOrGreaterThanTokenizer('<'),
-                // :
-                Case.of(':', Digraphs::toLeftBracket),
-                // %
-                Case.of('%', Digraphs::toLeftBrace));
-
-        // > >> >= >>=
-        static final Case GREATER_THAN = Case.of(
-                '>', newLessOrGreaterThanTokenizer('>'));
-
-        // [ ] ( ) { } , ;
-        static final Case PUNCTUATOR = Case.of(
-                Set.of('[', ']', '(', ')', '{', '}', ',', ';'),
-                TokenType.PUNCTUATOR);
-
-        // ?
-        static final Case QUESTION = Case.of('?', TokenType.OPERATOR);
-
-        // - -> -- -=
-        static final Case MINUS = Case.of(
-                '-', TokenType.OPERATOR,
-                // > - =
-                Case.of(Set.of('>', '-', '='), x -> TokenType.OPERATOR));
-
         static final Case DELIMITER = Case.of(
                 Chars.DELIMITER_SET, x -> {
                     x.readZeroOrMoreChars(Chars::isDelimiter);
@@ -479,31 +446,6 @@ public final class Switches {
                     return TokenType.FILENAME;
                 });
 
-        static final Case DOUBLE_DOT = Case.of(
-                '.', x -> {
-                    if (x.readZeroOrOneChar(c -> c == '.') == null) {
-                        // .
-                        var s = x.getSource();
-                        var b = x.getBuilder();
-                        s.ungetChar(b.removeLast());
-                        return TokenType.OPERATOR;
-                    }
-                    // ...
-                    return TokenType.PUNCTUATOR;
-                });
-
-        static final Case ASTERISK_AFTER_SLASH = Case.of(
-                '*', x -> {
-                    x.readComment();
-                    return TokenType.COMMENT;
-                });
-
-        static final Case DOUBLE_SLASH = Case.of(
-                '/', x -> {
-                    x.readSingleLine();
-                    return TokenType.COMMENT;
-                });
-
         static final Case IDENTIFIER_AFTER_PREFIX = Case.of(
                 Chars.IDENTIFIER_SET, x -> {
                     x.readIdentifier();
@@ -1,17 +1,34 @@
 package com.maroontress.clione.impl;
 
 import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
 import com.maroontress.clione.SourceChar;
 import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenFlag;
+import com.maroontress.clione.TokenKind;
 import com.maroontress.clione.TokenType;
 
 /**
     The builder of {@link Token} objects that has a mutable sequence of
     characters.
+
+    <p>The builder counts the characters that have child characters while
+    it appends them, so that it looks into the characters only when the
+    token contains any of them, to add the {@link TokenFlag#TRIGRAPH},
+    {@link TokenFlag#DIGRAPH}, and {@link TokenFlag#SPLICE} flags to the
+    token.</p>
 */
 public final class TokenBuilder {
 
+    private static final int TRIGRAPH = FlaggedToken.bitOf(TokenFlag.TRIGRAPH);
+    private static final int DIGRAPH = FlaggedToken.bitOf(TokenFlag.DIGRAPH);
+    private static final int SPLICE = FlaggedToken.bitOf(TokenFlag.SPLICE);
+
     private final ArrayDeque<SourceChar> queue;
+    private TokenKind kind;
+    private int flags;
+    private int composites;
 
     /**
         Creates a new instance.
@@ -38,6 +55,9 @@ public final class TokenBuilder {
     */
     public void append(SourceChar c) {
         queue.addLast(c);
+        if (!c.getChildren().isEmpty()) {
+            ++composites;
+        }
     }
 
     /**
@@ -46,7 +66,11 @@ public final class TokenBuilder {
         @return The character that was the last one in this builder.
     */
     public SourceChar removeLast() {
-        return queue.removeLast();
+        var c = queue.removeLast();
+        if (!c.getChildren().isEmpty()) {
+            --composites;
+        }
+        return c;
     }
 
     /**
@@ -80,9 +104,9 @@ public final class TokenBuilder {
         if (queue.size() != 2) {
             throw new IllegalStateException();
         }
-        var second = queue.removeLast();
-        var first = queue.removeLast();
-        queue.addLast(SourceChars.of(first, second, c));
+        var second = removeLast();
+        var first = removeLast();
+        append(SourceChars.of(first, second, c));
     }
 
     /**
@@ -111,18 +135,49 @@ public final class TokenBuilder {
         if (queue.size() != 4) {
             throw new IllegalStateException();
         }
-        var fourth = queue.removeLast();
-        var third = queue.removeLast();
-        var second = queue.removeLast();
-        var first = queue.removeLast();
-        queue.addLast(SourceChars.of(first, second, c1));
-        queue.addLast(SourceChars.of(third, fourth, c2));
+        var fourth = removeLast();
+        var third = removeLast();
+        var second = removeLast();
+        var first = removeLast();
+        append(SourceChars.of(first, second, c1));
+        append(SourceChars.of(third, fourth, c2));
+    }
+
+    /**
+        Adds the specified flag to the tokens that this builder creates.
+
+        <p>The transcriber adds the flags that it finds while it reads the
+        characters, such as {@link TokenFlag#UCN} and {@link
+        TokenFlag#UNTERMINATED}.</p>
+
+        @param flag The flag.
+    */
+    public void addFlag(TokenFlag flag) {
+        flags |= FlaggedToken.bitOf(flag);
+    }
+
+    /**
+        Sets the kind of the operator or punctuator that the recognizer has
+        found, so that the tokens that this builder creates need not look
+        it up.
+
+        <p>The kind is used only for the tokens of type {@link
+        TokenType#OPERATOR} or {@link TokenType#PUNCTUATOR}.</p>
+
+        @param newKind The kind.
+    */
+    public void setKind(TokenKind newKind) {
+        kind = newKind;
     }
 
     /**
         Returns a new token that represents the characters in this builder
         with the specified token type.
 
+        <p>The new token does not keep the characters that have no child
+        characters if it can create them from their offsets in the source
+        file.</p>
+
         <p>Note that this method does not change this builder.</p>
 
         @param type The token type.
@@ -133,7 +188,77 @@ public final class TokenBuilder {
         if (queue.isEmpty()) {
             throw new IllegalStateException();
         }
-        return new DefaultToken(queue, type);
+        var token = CompactToken.of(queue, type, kindOf(type), List.of());
+        return FlaggedToken.of((token != null)
+                ? token
+                : new DefaultToken(queue, type), getFlags(), null);
+    }
+
+    /**
+        Returns a new token that represents the characters in this builder
+        with the specified token type and the specified child tokens.
+
+        <p>Note that this method does not change this builder.</p>
+
+        @param type The token type.
+        @param children The child tokens.
+        @return The new token.
+        @throws IllegalStateException If this builder is empty.
+        @see #toToken(TokenType)
+    */
+    public Token toToken(TokenType type, Collection<Token> children) {
+        if (queue.isEmpty()) {
+            throw new IllegalStateException();
+        }
+        var token = CompactToken.of(queue, type, kindOf(type), children);
+        return FlaggedToken.of((token != null)
+                ? token
+                : new DefaultToken(queue, type, children), getFlags(), null);
+    }
+
+    private int getFlags() {
+        if (composites == 0) {
+            return flags;
+        }
+        var bits = flags;
+        for (var c : queue) {
+            bits |= flagsOf(c);
+        }
+        return bits;
+    }
+
+    /**
+        Returns the bits of the flags that the specified character has.
+
+        <p>The character substituted for a trigraph sequence has the three
+        child characters that start with two question marks, and the one
+        substituted for a digraph sequence has the two child characters.
+        The other characters that have child characters follow a backslash
+        followed by a newline character, and their first child character is
+        the backslash.</p>
+    */
+    private static int flagsOf(SourceChar c) {
+        var children = c.getChildren();
+        var size = children.size();
+        if (size == 0) {
+            return 0;
+        }
+        if (size == 3
+                && children.get(0).toChar() == '?'
+                && children.get(1).toChar() == '?') {
+            return TRIGRAPH;
+        }
+        var bits = (size == 2) ? DIGRAPH : SPLICE;
+        for (var child : children) {
+            bits |= flagsOf(child);
+        }
+        return bits;
+    }
+
+    private TokenKind kindOf(TokenType type) {
+        return (type == TokenType.OPERATOR || type == TokenType.PUNCTUATOR)
+                ? kind
+                : null;
     }
 
     /**
@@ -0,0 +1,96 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import com.maroontress.clione.TokenType;
+
+/**
+    The classifier of the text that the {@code ##} operator creates.
+
+    <p>This classifier runs the state machine of the default context over
+    the text in memory, without creating any {@code Reader}. It also has the
+    direct-mapped cache of the recent results, which is shared by all the
+    threads. Each slot of the cache holds an immutable entry, so a thread
+    that races with another thread just misses the cache.</p>
+*/
+public final class TokenClassifier {
+
+    private static final int CACHE_SIZE = 512;
+
+    private static final Entry[] CACHE = new Entry[CACHE_SIZE];
+
+    /** Prevents the class from being instantiated. */
+    private TokenClassifier() {
+        throw new AssertionError();
+    }
+
+    /**
+        Returns the type of the token that concatenating the left and right
+        tokens creates.
+
+        @param left The type of the left token.
+        @param right The type of the right token.
+        @param text The concatenated text, which must not be empty.
+        @return The token type, or {@link TokenType#UNKNOWN} if the text is
+            not a single token.
+    */
+    public static TokenType classifyPaste(TokenType left, TokenType right,
+                                          String text) {
+        var hash = (text.hashCode() * 31 + left.ordinal()) * 31
+                + right.ordinal();
+        var k = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        var e = CACHE[k];
+        if (e != null && e.matches(left, right, text)) {
+            return e.type;
+        }
+        var type = classify(text);
+        CACHE[k] = new Entry(left, right, text, type);
+        return type;
+    }
+
+    /**
+        Returns the type of the token that the specified text represents.
+
+        @param text The text, which must not be empty.
+        @return The token type, or {@link TokenType#UNKNOWN} if the text is
+            not a single token.
+    */
+    public static TokenType classify(CharSequence text) {
+        var source = new CharSequenceSource(text);
+        var x = new Transcriber(source);
+        try {
+            var type = x.readToken();
+            // Any remaining character forms another token.
+            return (type == null || !source.isEmpty())
+                    ? TokenType.UNKNOWN
+                    : type;
+        } catch (IOException e) {
+            // This should not happen with CharSequenceSource.
+            return TokenType.UNKNOWN;
+        }
+    }
+
+    /**
+        The entry of the cache.
+    */
+    private static final class Entry {
+
+        private final TokenType left;
+        private final TokenType right;
+        private final String text;
+        private final TokenType type;
+
+        Entry(TokenType left, TokenType right, String text, TokenType type) {
+            this.left = left;
+            this.right = right;
+            this.text = text;
+            this.type = type;
+        }
+
+        boolean matches(TokenType otherLeft, TokenType otherRight,
+                        String otherText) {
+            return left == otherLeft
+                    && right == otherRight
+                    && text.equals(otherText);
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.maroontress.clione.impl;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import com.maroontress.clione.SourceChar;
 import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenFlag;
 import com.maroontress.clione.TokenType;
 import com.maroontress.clione.impl.Case.Mapper;
 
@@ -25,15 +27,27 @@ public final class Transcriber {
     private static final Set<Character> SIGN_CHAR_SET = Set.of('+', '-');
 
     private final Source source;
+    private final Switches switches;
     private final TokenBuilder builder;
 
     /**
-        Creates a new instance.
+        Creates a new instance that recognizes the digraph sequences.
 
         @param source The source that provides the stream of the source file.
     */
     public Transcriber(Source source) {
+        this(source, Switches.WITH_DIGRAPHS);
+    }
+
+    /**
+        Creates a new instance with the specified switches.
+
+        @param source The source that provides the stream of the source file.
+        @param switches The switches that map a character to a tokenizer.
+    */
+    public Transcriber(Source source, Switches switches) {
         this.source = source;
+        this.switches = switches;
         this.builder = new TokenBuilder();
     }
 
@@ -68,6 +82,21 @@ public final class Transcriber {
         return builder.toToken(type);
     }
 
+    /**
+        Returns a new token with the specified token type and the specified
+        child tokens.
+
+        <p>Invocation of this method is equivalent to:</p>
+        <pre>getBuilder().toToken(type, children)</pre>
+
+        @param type The token type.
+        @param children The child tokens.
+        @return The new token.
+    */
+    public Token toToken(TokenType type, Collection<Token> children) {
+        return builder.toToken(type, children);
+    }
+
     /**
         Reads a comment from the source.
 
@@ -84,6 +113,7 @@ public final class Transcriber {
         for (;;) {
             var i = s.getChar();
             if (i.isEof()) {
+                b.addFlag(TokenFlag.UNTERMINATED);
                 return;
             }
             b.append(i);
@@ -93,6 +123,7 @@ public final class Transcriber {
             }
             var next = s.getChar();
             if (next.isEof()) {
+                b.addFlag(TokenFlag.UNTERMINATED);
                 return;
             }
             var n = next.toChar();
@@ -146,11 +177,13 @@ public final class Transcriber {
         for (;;) {
             var i = s.getChar();
             if (i.isEof()) {
+                b.addFlag(TokenFlag.UNTERMINATED);
                 return;
             }
             var c = i.toChar();
             if (c == '\n') {
                 s.ungetChar(i);
+                b.addFlag(TokenFlag.UNTERMINATED);
                 return;
             }
             b.append(i);
@@ -184,11 +217,13 @@ public final class Transcriber {
         for (;;) {
             var i = s.getChar();
             if (i.isEof()) {
+                b.addFlag(TokenFlag.UNTERMINATED);
                 return;
             }
             var c = i.toChar();
             if (c == '\n') {
                 s.ungetChar(i);
+                b.addFlag(TokenFlag.UNTERMINATED);
                 return;
             }
             b.append(i);
@@ -216,12 +251,11 @@ public final class Transcriber {
             readZeroOrMoreChars(Chars::isHexDigit);
             return;
         }
-        if (c == 'u') {
-            readMax(4, Chars::isHexDigit);
-            return;
-        }
-        if (c == 'U') {
-            readMax(8, Chars::isHexDigit);
+        if (c == 'u' || c == 'U') {
+            var count = UCN_MAP.get(c);
+            if (readMax(count, Chars::isHexDigit) == count) {
+                builder.addFlag(TokenFlag.UCN);
+            }
             return;
         }
         assert c != '\n';
@@ -276,6 +310,9 @@ public final class Transcriber {
         method returns {@code true}</li>
         </ul>
 
+        <p>These characters are looked up in the precomputed tables of
+        {@link IdentifierChars}.</p>
+
         <p>This method will return when it reaches EOF.</p>
 
         <p>When this method reaches a character that is not an identifier,
@@ -292,8 +329,7 @@ public final class Transcriber {
                 return;
             }
             var c = first.toChar();
-            if (Chars.isName(c)
-                || Character.isUnicodeIdentifierPart(c)) {
+            if (IdentifierChars.isPart(c)) {
                 b.append(first);
                 continue;
             }
@@ -487,6 +523,49 @@ public final class Transcriber {
         return a.apply(this);
     }
 
+    /**
+        Reads an operator or punctuator with the specified automaton.
+
+        <p>The token builder must have stored the first character of the
+        operator or punctuator.</p>
+
+        <p>This method reads characters while the automaton has the
+        transitions with them, and then pushes back the characters read
+        after the last accepting state.</p>
+
+        @param dfa The automaton.
+        @return The token type of the last accepting state.
+        @throws IOException If an I/O error occurs.
+    */
+    public TokenType readOperator(OperatorDfa dfa) throws IOException {
+        var s = source;
+        var b = builder;
+        var state = dfa.start(b.getLast().toChar());
+        var accepted = state;
+        var pending = 0;
+        while (dfa.hasNext(state)) {
+            var i = s.getChar();
+            if (i.isEof()) {
+                break;
+            }
+            var next = dfa.next(state, i.toChar());
+            if (next == 0) {
+                s.ungetChar(i);
+                break;
+            }
+            b.append(i);
+            state = next;
+            if (dfa.isAccepting(state)) {
+                accepted = state;
+                pending = 0;
+            } else {
+                ++pending;
+            }
+        }
+        rollback(pending);
+        return dfa.accept(this, accepted);
+    }
+
     /**
         Reads a token from the source in the default context.
 
@@ -494,7 +573,23 @@ public final class Transcriber {
         @throws IOException If an I/O error occurs.
     */
     public TokenType readToken() throws IOException {
-        return readTokenOtherwise(Switches.DEFAULT, Transcriber::readSymbol);
+        return readTokenOtherwise(switches.getDefault(),
+                Transcriber::readSymbol);
+    }
+
+    /**
+        Reads a token from the source at the start of the line.
+
+        <p>This method returns {@link TokenType#DIRECTIVE} if the token is
+        the number sign (or the digraph equivalent to it) with which the
+        preprocessing directive starts.</p>
+
+        @return The token type of the token to have read.
+        @throws IOException If an I/O error occurs.
+    */
+    public TokenType readLineStartToken() throws IOException {
+        return readTokenOtherwise(switches.getLineStart(),
+                Transcriber::readSymbol);
     }
 
     /**
@@ -505,7 +600,8 @@ public final class Transcriber {
         @throws IOException If an I/O error occurs.
     */
     public TokenType readDirectiveToken() throws IOException {
-        return readTokenOtherwise(Switches.DIRECTIVE, Transcriber::readSymbol);
+        return readTokenOtherwise(switches.getDirective(),
+                Transcriber::readSymbol);
     }
 
     /**
@@ -516,7 +612,7 @@ public final class Transcriber {
         @throws IOException If an I/O error occurs.
     */
     public TokenType readIncludeDirectiveToken() throws IOException {
-        return readTokenOtherwise(Switches.INCLUDE_DIRECTIVE,
+        return readTokenOtherwise(switches.getIncludeDirective(),
                 Transcriber::readSymbol);
     }
 
@@ -528,7 +624,7 @@ public final class Transcriber {
         @throws IOException If an I/O error occurs.
     */
     public TokenType readLineDirectiveToken() throws IOException {
-        return readTokenOtherwise(Switches.LINE_DIRECTIVE,
+        return readTokenOtherwise(switches.getLineDirective(),
                 Transcriber::readSymbol);
     }
 
@@ -593,13 +689,13 @@ public final class Transcriber {
             b.append(i);
             b.append(j);
             var u = Character.toCodePoint(c, n);
-            if (!Character.isUnicodeIdentifierStart(u)) {
+            if (!IdentifierChars.isStart(u)) {
                 return TokenType.UNKNOWN;
             }
             x.readIdentifier();
             return TokenType.IDENTIFIER;
         }
-        if (Character.isUnicodeIdentifierStart(c)) {
+        if (IdentifierChars.isStart(c)) {
             b.append(i);
             x.readIdentifier();
             return TokenType.IDENTIFIER;
@@ -630,6 +726,7 @@ public final class Transcriber {
             rollback(n + 2);
             return false;
         }
+        b.addFlag(TokenFlag.UCN);
         return true;
     }
 
@@ -643,10 +740,9 @@ public final class Transcriber {
         }
         var n = second.toChar();
         if (!Character.isLowSurrogate(n)
-                || !Character.isUnicodeIdentifierPart(
-                Character.toCodePoint(c, n))) {
-            s.ungetChar(first);
+                || !IdentifierChars.isPart(Character.toCodePoint(c, n))) {
             s.ungetChar(second);
+            s.ungetChar(first);
             return false;
         }
         var b = builder;
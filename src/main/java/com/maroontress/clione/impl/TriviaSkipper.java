@@ -0,0 +1,347 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.function.Predicate;
+import com.maroontress.clione.ParserOptions.Trivia;
+import com.maroontress.clione.SourceChar;
+import com.maroontress.clione.SourceSpan;
+import com.maroontress.clione.Token;
+import com.maroontress.clione.TokenFlag;
+import com.maroontress.clione.TokenType;
+
+/**
+    Skips the delimiters and comments that the parser does not return,
+    without creating their tokens.
+
+    <p>This skipper reads the characters from the source and discards them,
+    so it neither builds the token nor keeps its characters. The skipper
+    that skips neither the delimiters nor the comments does nothing.</p>
+
+    <p>When the parser folds the delimiters and comments into the flags,
+    this skipper remembers what it has skipped last, so that the parser can
+    add the flags to the token that follows them. Even if the parser does
+    not fold them, the token that follows the skipped ones has the {@link
+    TokenFlag#LEADING_SPACE} flag, so that the clients can tell {@code
+    #define F (x)} from {@code #define F(x)}.</p>
+*/
+public final class TriviaSkipper {
+
+    private static final int LEADING_SPACE
+            = FlaggedToken.bitOf(TokenFlag.LEADING_SPACE);
+
+    private static final int START_OF_LINE
+            = FlaggedToken.bitOf(TokenFlag.START_OF_LINE);
+
+    private final Source source;
+    private final FastScanner fast;
+    private final boolean delimiters;
+    private final boolean comments;
+    private final boolean folds;
+    private final boolean retains;
+    private boolean newline;
+    private boolean space;
+    private SourceChar first;
+    private SourceChar last;
+
+    /**
+        Creates a new instance.
+
+        @param source The source.
+        @param wanted The types of the tokens that the parser returns. The
+            skipper skips the delimiters if the set does not contain {@link
+            TokenType#DELIMITER}, and the comments if it does not contain
+            {@link TokenType#COMMENT}.
+        @param trivia The way to return the delimiters and comments. The
+            skipper skips both of them unless it is {@link Trivia#TOKENS}.
+    */
+    public TriviaSkipper(Source source, Set<TokenType> wanted, Trivia trivia) {
+        this(source, null, wanted, trivia);
+    }
+
+    /**
+        Creates a new instance that skips the delimiters and comments
+        directly on the buffer of the source, if possible.
+
+        @param source The source.
+        @param fast The scanner that reads the buffer of the source, or
+            {@code null}.
+        @param wanted The types of the tokens that the parser returns.
+        @param trivia The way to return the delimiters and comments.
+        @see #TriviaSkipper(Source, Set, Trivia)
+    */
+    public TriviaSkipper(Source source, FastScanner fast,
+                         Set<TokenType> wanted, Trivia trivia) {
+        this.source = source;
+        this.fast = fast;
+        this.folds = trivia != Trivia.TOKENS;
+        this.retains = trivia == Trivia.RANGES;
+        this.delimiters = folds || !wanted.contains(TokenType.DELIMITER);
+        this.comments = folds || !wanted.contains(TokenType.COMMENT);
+    }
+
+    /**
+        Skips the delimiters and comments that follow, if the parser does not
+        return them.
+
+        <p>The source must be at the boundary of the tokens. When this
+        method returns, the source is at the start of the token that is
+        neither the delimiter nor the comment to be skipped.</p>
+
+        @param isDelimiter The predicate that returns {@code true} if the
+            specified character is a delimiter in the context.
+        @throws IOException If an I/O error occurs.
+    */
+    public void skip(Predicate<Character> isDelimiter) throws IOException {
+        newline = false;
+        space = false;
+        first = null;
+        last = null;
+        if (!delimiters && !comments) {
+            return;
+        }
+        if (fast != null && skipFast(isDelimiter)) {
+            return;
+        }
+        var s = source;
+        for (;;) {
+            var i = s.getChar();
+            if (i.isEof()) {
+                return;
+            }
+            var c = i.toChar();
+            if (delimiters && isDelimiter.test(c)) {
+                newline |= c == '\n';
+                space = c != '\n';
+                mark(i, i);
+                continue;
+            }
+            if (comments && c == '/') {
+                var end = skipCommentIfAny();
+                if (end != null) {
+                    space = true;
+                    mark(i, end);
+                    continue;
+                }
+            }
+            s.ungetChar(i);
+            return;
+        }
+    }
+
+    /**
+        Returns whether the last invocation of the {@link
+        #skip(Predicate)} method has skipped a newline character as a
+        delimiter.
+
+        @return {@code true} if it has skipped a newline character.
+    */
+    public boolean hasSkippedNewline() {
+        return newline;
+    }
+
+    /**
+        Returns the bits of the flags of the token that follows the
+        delimiters and comments that this skipper has skipped last.
+
+        @param startOfLine Whether the token is at the start of the line.
+        @return The bits of the flags.
+    */
+    public int getFlags(boolean startOfLine) {
+        return (space ? LEADING_SPACE : 0)
+                | (startOfLine ? START_OF_LINE : 0);
+    }
+
+    /**
+        Returns the span of the delimiters and comments that this skipper
+        has skipped last, if the parser retains it.
+
+        @return The span, or {@code null} if this skipper has skipped
+            nothing or the parser does not retain the span.
+    */
+    public SourceSpan getSpan() {
+        return (retains && first != null)
+                ? new SourceSpan(first.getSpan(), last.getSpan())
+                : null;
+    }
+
+    /**
+        Returns the token that has the specified flags and span of the
+        leading trivia.
+
+        <p>If the parser does not fold the delimiters and comments, the
+        token has only the {@link TokenFlag#LEADING_SPACE} flag of the
+        specified flags, and has no span of the leading trivia.</p>
+
+        @param token The token, or {@code null}.
+        @param flags The bits of the flags.
+        @param trivia The span of the leading trivia, or {@code null}.
+        @return The token with the flags, or the specified token.
+    */
+    public Token decorate(Token token, int flags, SourceSpan trivia) {
+        return (token == null)
+                ? null
+                : folds
+                ? FlaggedToken.of(token, flags, trivia)
+                : FlaggedToken.of(token, flags & LEADING_SPACE, null);
+    }
+
+    /**
+        Skips the rest of the traditional comment.
+
+        <p>The source must be just after the slash and asterisk that start
+        the comment. This method will return when it reads the asterisk and
+        slash that end the comment, or reaches EOF.</p>
+
+        @param s The source.
+        @return The last character that this method has read, or {@code
+            null} if it has read no character.
+        @throws IOException If an I/O error occurs.
+    */
+    public static SourceChar skipComment(Source s) throws IOException {
+        SourceChar last = null;
+        for (;;) {
+            var i = s.getChar();
+            if (i.isEof()) {
+                return last;
+            }
+            last = i;
+            if (i.toChar() != '*') {
+                continue;
+            }
+            var next = s.getChar();
+            if (next.isEof()) {
+                return last;
+            }
+            if (next.toChar() == '/') {
+                return next;
+            }
+            s.ungetChar(next);
+        }
+    }
+
+    /**
+        Skips the rest of the single-line comment.
+
+        <p>The source must be just after {@code //}. This method will return
+        when it reads characters up to just before a newline character or
+        reaches EOF.</p>
+
+        @param s The source.
+        @return The last character that this method has read, or {@code
+            null} if it has read no character.
+        @throws IOException If an I/O error occurs.
+    */
+    public static SourceChar skipSingleLineComment(Source s)
+            throws IOException {
+        SourceChar last = null;
+        for (;;) {
+            var i = s.getChar();
+            if (i.isEof()) {
+                return last;
+            }
+            if (i.toChar() == '\n') {
+                s.ungetChar(i);
+                return last;
+            }
+            last = i;
+        }
+    }
+
+    /**
+        Skips the delimiters and comments directly on the buffer, until the
+        fast scanner gives up reading them.
+
+        @param isDelimiter The predicate that returns {@code true} if the
+            specified character is a delimiter in the context.
+        @return {@code true} if this skipper has reached the token that is
+            neither the delimiter nor the comment to be skipped, or EOF.
+        @throws IOException If an I/O error occurs.
+    */
+    private boolean skipFast(Predicate<Character> isDelimiter)
+            throws IOException {
+        var f = fast;
+        var p = f.start();
+        var n = f.getLength();
+        var start = -1;
+        var end = -1;
+        boolean done;
+        for (;;) {
+            if (p == n || f.isBreak(p)) {
+                done = p == n;
+                break;
+            }
+            var c = f.charAt(p);
+            // No delimiter is a non-ASCII character, which is not boxed.
+            if (delimiters && c < 0x80 && isDelimiter.test(c)) {
+                newline |= c == '\n';
+                space = c != '\n';
+                start = (start == -1) ? p : start;
+                end = p + 1;
+                ++p;
+                continue;
+            }
+            var next = (comments && c == '/' && p + 1 < n)
+                    ? skipCommentIfAny(p)
+                    : p;
+            if (next == FastScanner.GIVE_UP || next == p) {
+                done = next == p;
+                break;
+            }
+            space = true;
+            start = (start == -1) ? p : start;
+            end = next;
+            p = next;
+        }
+        f.moveTo(p);
+        if (retains && start != -1) {
+            mark(f.newChar(start), f.newChar(end - 1));
+        }
+        return done;
+    }
+
+    private int skipCommentIfAny(int p) {
+        var f = fast;
+        if (f.isBreak(p + 1)) {
+            return FastScanner.GIVE_UP;
+        }
+        var c = f.charAt(p + 1);
+        return (c == '*') ? f.endOfComment(p)
+                : (c == '/') ? f.endOfSingleLineComment(p)
+                : p;
+    }
+
+    private void mark(SourceChar start, SourceChar end) {
+        if (first == null) {
+            first = start;
+        }
+        last = end;
+    }
+
+    /**
+        Skips the comment if the character that follows the slash that has
+        been read starts the comment.
+
+        @return The last character of the comment, or {@code null} if the
+            character does not start the comment. In the latter case, the
+            source is just after the slash.
+    */
+    private SourceChar skipCommentIfAny() throws IOException {
+        var s = source;
+        var i = s.getChar();
+        if (i.isEof()) {
+            return null;
+        }
+        var c = i.toChar();
+        if (c == '*') {
+            var end = skipComment(s);
+            return (end != null) ? end : i;
+        }
+        if (c == '/') {
+            var end = skipSingleLineComment(s);
+            return (end != null) ? end : i;
+        }
+        s.ungetChar(i);
+        return null;
+    }
+}
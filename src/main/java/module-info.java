@@ -3,5 +3,7 @@
     source code written in C17 and other C-like programming languages.
 */
 module com.maroontress.clione {
+    requires jdk.jfr;
+
     exports com.maroontress.clione;
 }
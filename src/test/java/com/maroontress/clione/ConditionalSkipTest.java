@@ -0,0 +1,160 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public final class ConditionalSkipTest {
+
+    private static final MacroOracle ORACLE
+            = MacroOracle.of(Set.of("FOO"), Set.of("BAR"));
+
+    @Test
+    public void ifZero() throws IOException {
+        var s = """
+                a
+                #if 0
+                b
+                #include "c.h"
+                #endif
+                d
+                """;
+        assertThat(identifiers(s), is(List.of("a", "d")));
+    }
+
+    @Test
+    public void ifdefWithOracle() throws IOException {
+        var s = """
+                #ifdef FOO
+                a
+                #else
+                b
+                #endif
+                #ifndef BAR
+                c
+                #endif
+                #if defined(BAR) || !defined FOO
+                d
+                #elif 1
+                e
+                #else
+                f
+                #endif
+                """;
+        assertThat(identifiers(s), is(List.of("a", "c", "e")));
+    }
+
+    @Test
+    public void nestedGroups() throws IOException {
+        var s = """
+                #if 0
+                #if 1
+                a
+                #else
+                b
+                #endif
+                #elif BAR + 1
+                c
+                #if 0
+                #else
+                d
+                #endif
+                #endif
+                """;
+        assertThat(identifiers(s), is(List.of("c", "d")));
+    }
+
+    @Test
+    public void unknownConditionsKept() throws IOException {
+        var s = """
+                #ifdef BAZ
+                a
+                #else
+                b
+                #endif
+                #if FOO > 1
+                c
+                #elif 1
+                d
+                #else
+                e
+                #endif
+                """;
+        assertThat(identifiers(s), is(List.of("a", "b", "c", "d")));
+    }
+
+    @Test
+    public void definesOverrideOracle() throws IOException {
+        var s = """
+                #undef FOO
+                #define BAR
+                #ifdef FOO
+                a
+                #endif
+                #ifdef BAR
+                b
+                #endif
+                #ifdef BAZ
+                #define QUX
+                #endif
+                #ifdef QUX
+                c
+                #endif
+                """;
+        assertThat(identifiers(s), is(List.of("b", "c")));
+    }
+
+    @Test
+    public void directivesKept() throws IOException {
+        var s = """
+                #if 0
+                a
+                #else /* comment */
+                #endif
+                """;
+        var names = new ArrayList<String>();
+        for (var t : parse(s)) {
+            if (!t.isType(TokenType.DIRECTIVE)) {
+                continue;
+            }
+            t.getChildren()
+                    .stream()
+                    .filter(c -> c.isType(TokenType.DIRECTIVE_NAME))
+                    .map(Token::getValue)
+                    .forEach(names::add);
+        }
+        assertThat(names, is(List.of("if", "else", "endif")));
+    }
+
+    private static List<String> identifiers(String s) throws IOException {
+        var list = new ArrayList<String>();
+        for (var t : parse(s)) {
+            if (t.isType(TokenType.IDENTIFIER)) {
+                list.add(t.getValue());
+            }
+        }
+        return list;
+    }
+
+    private static List<Token> parse(String s) throws IOException {
+        var options = ParserOptions.DEFAULT.withMacroOracle(ORACLE);
+        var list = new ArrayList<Token>();
+        try (var parser = LexicalParser.of(new StringReader(s), "",
+                Keywords.C11, options)) {
+            for (;;) {
+                var maybeToken = parser.next();
+                if (maybeToken.isEmpty()) {
+                    return list;
+                }
+                list.add(maybeToken.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class DialectTest {
+
+    @Test
+    public void c11() throws IOException {
+        var s = "??=define X <: %>\n";
+        var list = readAll(LexicalParser.of(new StringReader(s),
+                Dialect.C11));
+        var directive = list.get(0);
+        assertThat(directive.getType(), is(TokenType.DIRECTIVE));
+        assertThat(directive.getChildren().get(0).getType(),
+                is(TokenType.DIRECTIVE_NAME));
+        var values = values(directive.getChildren());
+        assertThat(values, is(List.of("define", " ", "X", " ", "[", " ", "}",
+                "\n")));
+    }
+
+    @Test
+    public void withoutTrigraphsAndDigraphs() throws IOException {
+        var dialect = Dialect.C11.withTrigraphs(false)
+                .withDigraphs(false);
+        var s = "??=x <: %: %>\n";
+        var list = readAll(LexicalParser.of(new StringReader(s), dialect));
+        assertThat(values(list), is(List.of("?", "?", "=", "x", " ", "<",
+                ":", " ", "%", ":", " ", "%", ">", "\n")));
+    }
+
+    @Test
+    public void c23() throws IOException {
+        var s = "#ifdef X\n#elifdef Y\n#embed <a.bin>\n#endif\n"
+                + "bool b = true;\n";
+        var list = readAll(LexicalParser.of(new StringReader(s),
+                Dialect.C23));
+        var names = new ArrayList<String>();
+        for (var t : list) {
+            if (!t.isType(TokenType.DIRECTIVE)) {
+                continue;
+            }
+            t.getChildren().stream()
+                    .filter(c -> c.isType(TokenType.DIRECTIVE_NAME))
+                    .forEach(c -> names.add(c.getValue()));
+        }
+        assertThat(names, is(List.of("ifdef", "elifdef", "embed", "endif")));
+        var embed = list.get(2).getChildren();
+        assertThat(embed.get(2).getType(), is(TokenType.STANDARD_HEADER));
+        var bool = list.get(4);
+        assertThat(bool.getValue(), is("bool"));
+        assertThat(bool.getType(), is(TokenType.RESERVED));
+    }
+
+    @Test
+    public void directiveNotInDialect() throws IOException {
+        var s = "#warning w\n";
+        var c11 = readAll(LexicalParser.of(new StringReader(s),
+                Dialect.C11));
+        assertThat(c11.get(0).getChildren().get(0).getType(),
+                is(TokenType.IDENTIFIER));
+        var c23 = readAll(LexicalParser.of(new StringReader(s),
+                Dialect.C23));
+        assertThat(c23.get(0).getChildren().get(0).getType(),
+                is(TokenType.DIRECTIVE_NAME));
+    }
+
+    @Test
+    public void elifdefSkipsGroup() throws IOException {
+        var oracle = MacroOracle.of(Set.of("Y"), Set.of("X"));
+        var options = ParserOptions.DEFAULT.withMacroOracle(oracle);
+        var s = "#ifdef X\na\n#elifdef Y\nb\n#else\nc\n#endif\n";
+        var parser = LexicalParser.of(new StringReader(s), "a.c",
+                Dialect.C23, options);
+        var list = readAll(parser).stream()
+                .filter(t -> t.isType(TokenType.IDENTIFIER))
+                .map(Token::getValue)
+                .toList();
+        assertThat(list, is(List.of("b")));
+    }
+
+    @Test
+    public void unsupportedDirectiveName() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Dialect.C11.withDirectiveNames(Set.of("assert")));
+    }
+
+    @Test
+    public void sharesReservedWords() throws IOException {
+        var dialect = Dialect.C11.withReservedWords(Set.of("foo"));
+        var parser = LexicalParser.of(new StringReader("foo"), dialect);
+        assertThat(parser.getReservedWords() == dialect.getReservedWords(),
+                is(true));
+        assertThat(parser.next().orElseThrow().getType(),
+                is(TokenType.RESERVED));
+    }
+
+    private static List<Token> readAll(LexicalParser parser)
+            throws IOException {
+        var list = new ArrayList<Token>();
+        for (;;) {
+            var token = parser.next();
+            if (token.isEmpty()) {
+                return list;
+            }
+            list.add(token.get());
+        }
+    }
+
+    private static List<String> values(List<Token> list) {
+        var values = new ArrayList<String>();
+        for (var t : list) {
+            values.add(t.getValue());
+        }
+        return values;
+    }
+}
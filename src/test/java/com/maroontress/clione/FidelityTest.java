@@ -0,0 +1,168 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public final class FidelityTest {
+
+    private static final String SOURCE = """
+            #include <stdio.h>
+            #define F(x, y) ((x) ## y) /* multi
+            line */ + "str // not a comment" '"'
+            int main(void) <% /* comment */ // line comment
+                int a??(2??) = {1, 2}; a <: 0 :> = 0x1p+3 + .5e-2 + 1.f;
+                char *s = u8"caf\\u00e9" L"wide" "\\"esc\\\\" "\\x41\\101";
+                char c = '\\'' + U'x' + u'\\n';
+                long x\\
+            y = 1; \\u00e9t\\u00e9 = 2; \u00e9t\u00e9 = 3; \uD83D\uDE00 = 4;
+                x->y <<= a[1] ... ? b : c; i++; j -= --k; %:%: %: ??= $ @
+                /* a ??/
+            */ // b \\
+            continued
+            %>
+            #ifdef F
+            skipped
+            #else
+            kept
+            #endif
+            \f\13"unterminated
+            'x
+            # /* c */ pragma once // trailing
+            ??=define T 1
+            #line 10 "a.c"
+            a ? ? b ?? c ??/
+            d /* end""";
+
+    @Test
+    public void spansSameAsFull() throws IOException {
+        for (var options : allOptions()) {
+            var expected = toStrings(readAll(SOURCE, options), true);
+            var actual = toStrings(readAll(SOURCE,
+                    options.withFidelity(ParserOptions.Fidelity.SPANS)), true);
+            assertThat(actual, is(expected));
+        }
+    }
+
+    @Test
+    public void textSameAsFullExceptSpans() throws IOException {
+        for (var options : allOptions()) {
+            var expected = toStrings(readAll(SOURCE, options), false);
+            var actual = toStrings(readAll(SOURCE,
+                    options.withFidelity(ParserOptions.Fidelity.TEXT)), false);
+            assertThat(actual, is(expected));
+        }
+    }
+
+    @Test
+    public void charsSameAsFull() throws IOException {
+        var options = ParserOptions.DEFAULT;
+        var expected = toChars(readAll(SOURCE, options));
+        var actual = toChars(readAll(SOURCE,
+                options.withFidelity(ParserOptions.Fidelity.SPANS)));
+        assertThat(actual, is(expected));
+    }
+
+    @Test
+    public void newlinesAreUnified() throws IOException {
+        var s = "a\r\nb\rc\n\r\rd\r";
+        var options = ParserOptions.DEFAULT
+                .withTokenTypes(Set.of(TokenType.IDENTIFIER));
+        var expected = toStrings(readAll(s, options), true);
+        var actual = toStrings(readAll(s,
+                options.withFidelity(ParserOptions.Fidelity.SPANS)), true);
+        assertThat(actual, is(expected));
+        assertThat(actual.get(3), is("IDENTIFIER d L6:1 [] NONE"
+                + " Optional.empty"));
+    }
+
+    @Test
+    public void reset() throws IOException {
+        var options = ParserOptions.DEFAULT
+                .withFidelity(ParserOptions.Fidelity.SPANS);
+        var parser = LexicalParser.of(new StringReader("a b"), "a.c",
+                Dialect.C11, options);
+        assertThat(parser.next().get().getValue(), is("a"));
+        parser.reset(new StringReader("\nc"), "b.c");
+        parser.next();
+        var token = parser.next().get();
+        assertThat(token.getValue(), is("c"));
+        assertThat(token.getSpan().toString(), is("L2:1"));
+        assertThat(parser.next().isEmpty(), is(true));
+    }
+
+    private static List<ParserOptions> allOptions() {
+        var oracle = MacroOracle.of(Set.of("F"), Set.of());
+        var wanted = EnumSet.complementOf(EnumSet.of(TokenType.DELIMITER,
+                TokenType.COMMENT));
+        var list = new ArrayList<ParserOptions>();
+        for (var trivia : ParserOptions.Trivia.values()) {
+            var options = ParserOptions.DEFAULT.withTrivia(trivia);
+            list.add(options);
+            list.add(options.withTokenTypes(wanted));
+            list.add(options.withLazyDirectives(true));
+            list.add(options.withMacroOracle(oracle));
+        }
+        return list;
+    }
+
+    private static List<String> toStrings(List<Token> list,
+            boolean withSpans) {
+        var strings = new ArrayList<String>();
+        for (var t : list) {
+            var span = withSpans ? " " + t.getSpan() : "";
+            var trivia = withSpans
+                    ? " " + t.getLeadingTrivia().map(SourceSpan::toString)
+                    : "";
+            strings.add(t.getType() + " " + t.getValue() + span
+                    + " " + t.getFlags() + " " + t.getKind() + trivia);
+            strings.addAll(toStrings(t.getChildren(), withSpans));
+        }
+        return strings;
+    }
+
+    private static List<String> toChars(List<Token> list) {
+        var strings = new ArrayList<String>();
+        for (var t : list) {
+            for (var c : t.getChars()) {
+                strings.add(toString(c));
+            }
+            strings.addAll(toChars(t.getChildren()));
+        }
+        return strings;
+    }
+
+    private static String toString(SourceChar c) {
+        var b = new StringBuilder();
+        b.append(c.toChar()).append(' ').append(c.getSpan());
+        for (var child : c.getChildren()) {
+            b.append(" (").append(toString(child)).append(')');
+        }
+        return b.toString();
+    }
+
+    private static List<Token> readAll(String s, ParserOptions options)
+            throws IOException {
+        var list = new ArrayList<Token>();
+        for (var dialect : List.of(Dialect.C11, Dialect.C23)) {
+            var parser = LexicalParser.of(new StringReader(s), "a.c",
+                    dialect, options);
+            for (;;) {
+                var token = parser.next();
+                if (token.isEmpty()) {
+                    break;
+                }
+                list.add(token.get());
+            }
+        }
+        return list;
+    }
+}
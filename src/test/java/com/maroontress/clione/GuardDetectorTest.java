@@ -0,0 +1,108 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public final class GuardDetectorTest {
+
+    @Test
+    public void ifndef() throws IOException {
+        var d = detect("""
+                /* header */
+                #ifndef FOO_H
+                #define FOO_H
+                #if X
+                #else
+                #endif
+                int x;
+                #endif // FOO_H
+                """);
+        assertThat(d.getGuardMacro(), is(Optional.of("FOO_H")));
+        assertThat(d.hasPragmaOnce(), is(false));
+    }
+
+    @Test
+    public void ifNotDefined() throws IOException {
+        assertThat(detect("#if !defined(A)\n#endif\n").getGuardMacro(),
+                is(Optional.of("A")));
+        assertThat(detect("#if ! defined A\n#endif\n").getGuardMacro(),
+                is(Optional.of("A")));
+        assertThat(detect("#if !defined A && B\n#endif\n").getGuardMacro(),
+                is(Optional.empty()));
+    }
+
+    @Test
+    public void notGuarded() throws IOException {
+        assertThat(detect("int x;\n#ifndef A\n#endif\n").getGuardMacro(),
+                is(Optional.empty()));
+        assertThat(detect("#ifndef A\n#endif\nint x;\n").getGuardMacro(),
+                is(Optional.empty()));
+        assertThat(detect("#ifndef A\n#else\n#endif\n").getGuardMacro(),
+                is(Optional.empty()));
+        assertThat(detect("#ifndef A\n#endif\n#ifndef B\n#endif\n")
+                .getGuardMacro(), is(Optional.empty()));
+        assertThat(detect("#ifndef A\n").getGuardMacro(),
+                is(Optional.empty()));
+    }
+
+    @Test
+    public void pragmaOnce() throws IOException {
+        var d = detect("""
+                #pragma once
+                int x;
+                """);
+        assertThat(d.hasPragmaOnce(), is(true));
+        assertThat(d.getGuardMacro(), is(Optional.empty()));
+        assertThat(detect("#ifndef A\n#pragma once\n#endif\n")
+                .hasPragmaOnce(), is(true));
+        assertThat(detect("#if A\n#pragma once\n#endif\n").hasPragmaOnce(),
+                is(false));
+        assertThat(detect("#if 0\n#pragma once\n#endif\n").hasPragmaOnce(),
+                is(false));
+        assertThat(detect("#ifdef FOO\n#pragma once\n#endif\nint x;")
+                .hasPragmaOnce(), is(false));
+        assertThat(detect("#ifndef A\n#if B\n#endif\n#pragma once\n"
+                + "#endif\n").hasPragmaOnce(), is(true));
+        assertThat(detect("#if A\n#if B\n#pragma once\n#endif\n#endif\n")
+                .hasPragmaOnce(), is(false));
+    }
+
+    @Test
+    public void includeGuards() throws IOException {
+        var guards = new IncludeGuards();
+        var a = Path.of("a.h");
+        var b = Path.of("b.h");
+        var c = Path.of("c.h");
+        guards.record(a, detect("#ifndef A\n#define A\n#endif\n"));
+        guards.record(b, detect("#pragma once\n"));
+        var defined = Set.of("A");
+        assertThat(guards.canSkip(a, defined::contains), is(true));
+        assertThat(guards.canSkip(a, n -> false), is(false));
+        assertThat(guards.canSkip(b, n -> false), is(true));
+        assertThat(guards.canSkip(c, n -> true), is(false));
+        assertThat(guards.getGuardMacro(a.toAbsolutePath()),
+                is(Optional.of("A")));
+        assertThat(guards.getGuardMacro(b), is(Optional.empty()));
+    }
+
+    private static GuardDetector detect(String s) throws IOException {
+        var detector = new GuardDetector();
+        try (var parser = LexicalParser.of(new StringReader(s))) {
+            for (;;) {
+                var maybeToken = parser.next();
+                if (maybeToken.isEmpty()) {
+                    return detector;
+                }
+                detector.accept(maybeToken.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class IncludeResolverTest {
+
+    @Test
+    public void graph() throws IOException {
+        var root = Files.createTempDirectory("clione");
+        var pool = Executors.newFixedThreadPool(4);
+        try {
+            var src = Files.createDirectory(root.resolve("src"));
+            var inc = Files.createDirectory(root.resolve("include"));
+            var main = write(src.resolve("main.c"), """
+                    #include "a.h"
+                    #include <b.h>
+                    #include <stdio.h>
+                    #include HEADER
+                    """);
+            var a = write(src.resolve("a.h"), """
+                    #include "b.h"
+                    #include "sub/c.h"
+                    """);
+            var b = write(inc.resolve("b.h"), """
+                    #include "a.h"
+                    """);
+            Files.createDirectory(inc.resolve("sub"));
+            var c = write(inc.resolve("sub/c.h"), """
+                    #include "../b.h"
+                    """);
+            var resolver = new IncludeResolver(List.of(inc),
+                    StandardCharsets.UTF_8, pool);
+            var graph = resolver.getGraph(main);
+            assertThat(new ArrayList<>(graph.keySet()),
+                    is(List.of(main, a, b, c)));
+            assertThat(graph.get(main), is(List.of(a, b)));
+            assertThat(graph.get(a), is(List.of(b, c)));
+            assertThat(graph.get(b), is(List.of()));
+            assertThat(graph.get(c), is(List.of(b)));
+            assertThat(resolver.getIncludes(a).size(), is(2));
+            assertThat(resolver.prefetch(c), is(resolver.prefetch(c)));
+        } finally {
+            pool.shutdown();
+            delete(root);
+        }
+    }
+
+    @Test
+    public void tokensAndGuards() throws IOException {
+        var root = Files.createTempDirectory("clione");
+        var pool = Executors.newFixedThreadPool(4);
+        try {
+            var main = write(root.resolve("main.c"), """
+                    #include "a.h"
+                    #include "once.h"
+                    #include "guard.h"
+                    int main(void);
+                    """);
+            var a = write(root.resolve("a.h"), """
+                    #include "once.h"
+                    """);
+            var once = write(root.resolve("once.h"), """
+                    #pragma once
+                    int once;
+                    """);
+            var guard = write(root.resolve("guard.h"), """
+                    #ifndef GUARD_H
+                    #define GUARD_H
+                    int guard;
+                    #endif
+                    """);
+            var guards = new IncludeGuards();
+            var resolver = new IncludeResolver(List.of(),
+                    StandardCharsets.UTF_8, pool, Dialect.C11,
+                    ParserOptions.DEFAULT, guards, "GUARD_H"::equals);
+            var buffer = resolver.getTokens(main);
+            assertThat(buffer.get(buffer.size() - 2).getValue(), is(";"));
+            for (var header : List.of(a, once, guard)) {
+                assertThat(resolver.getTokens(header).isEmpty(), is(false));
+            }
+            assertThat(guards.canSkip(a, n -> true), is(false));
+            assertThat(guards.canSkip(once, n -> false), is(true));
+            assertThat(guards.getGuardMacro(guard),
+                    is(Optional.of("GUARD_H")));
+            assertThat(resolver.canSkip(guard), is(true));
+
+            var tasks = new AtomicInteger();
+            Executor counter = r -> {
+                tasks.incrementAndGet();
+                r.run();
+            };
+            var next = new IncludeResolver(List.of(),
+                    StandardCharsets.UTF_8, counter, Dialect.C11,
+                    ParserOptions.DEFAULT, guards, "GUARD_H"::equals);
+            next.getTokens(main);
+            // main.c and a.h
+            assertThat(tasks.get(), is(2));
+            next.getIncludes(main);
+            assertThat(tasks.get(), is(4));
+            assertThat(next.getGraph(main).get(main), is(List.of(a, once,
+                    guard)));
+        } finally {
+            pool.shutdown();
+            delete(root);
+        }
+    }
+
+    @Test
+    public void missingFile() throws IOException {
+        var root = Files.createTempDirectory("clione");
+        try {
+            var resolver = new IncludeResolver(List.of(),
+                    StandardCharsets.UTF_8, Runnable::run);
+            assertThrows(NoSuchFileException.class,
+                    () -> resolver.getIncludes(root.resolve("none.c")));
+        } finally {
+            delete(root);
+        }
+    }
+
+    private static Path write(Path path, String s) throws IOException {
+        Files.writeString(path, s);
+        return path.toAbsolutePath().normalize();
+    }
+
+    private static void delete(Path root) throws IOException {
+        try (var stream = Files.walk(root)) {
+            for (var p : stream.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public final class IncludeScannerTest {
+
+    private static final String SOURCE = """
+            ??=include <stdio.h>
+            %:include "foo.h"
+            /* #include "comment.h"
+            #include "comment2.h" */ #include "after-comment.h"
+            char *s = "#include \\"string.h\\"";
+            int x; #include "not-directive.h"
+            char c = '"'; // #include "line-comment.h"
+              # /**/ inc\\
+            lude <spliced.h> /* trailing
+            comment */
+            char *t = "ab\\
+            #include \\"in-string.h\\"";
+            char q = '??/''; /* ??/
+            #include "in-comment.h" */ char r = '\\
+            '; #include "in-line.h"
+            #define HEADER "header.h"
+            #include HEADER
+            #if 0
+            #include <a.h> // comment
+            #endif
+            x; \\
+            #include "continued.h"
+            %:%:include "pasted.h"
+            #include
+            """;
+
+    @Test
+    public void sameAsParser() throws IOException {
+        var expected = parse(SOURCE);
+        var actual = scan(SOURCE);
+        assertThat(actual.size(), is(expected.size()));
+        for (var k = 0; k < expected.size(); ++k) {
+            var e = expected.get(k);
+            var a = actual.get(k);
+            assertThat(a.getSpan().toString(), is(e.getSpan().toString()));
+            var children = e.getChildren();
+            var tokens = a.getTokens();
+            var nameIndex = indexOfName(children);
+            var size = children.size() - nameIndex - 2;
+            assertThat(tokens.size(), is(size));
+            for (var i = 0; i < size; ++i) {
+                var t = tokens.get(i);
+                var c = children.get(nameIndex + 1 + i);
+                assertThat(t.getValue(), is(c.getValue()));
+                assertThat(t.getType(), is(c.getType()));
+                assertThat(t.getSpan().toString(),
+                        is(c.getSpan().toString()));
+            }
+        }
+    }
+
+    @Test
+    public void headers() throws IOException {
+        var actual = scan(SOURCE);
+        var headers = new ArrayList<String>();
+        for (var i : actual) {
+            headers.add(i.getHeader()
+                    .map(Token::getValue)
+                    .orElse(null));
+        }
+        var list = new ArrayList<String>();
+        list.add("<stdio.h>");
+        list.add("\"foo.h\"");
+        list.add("\"after-comment.h\"");
+        list.add("<spliced.h>");
+        list.add(null);
+        list.add("<a.h>");
+        list.add(null);
+        assertThat(headers, is(list));
+        assertThat(actual.get(4).isComputed(), is(true));
+        assertThat(actual.get(4).getTokens().get(1).getValue(),
+                is("HEADER"));
+        assertThat(actual.get(3).getSpan().toString(), is("L8:3--L10:11"));
+        assertThat(actual.get(6).getTokens().isEmpty(), is(true));
+    }
+
+    private static int indexOfName(List<Token> children) {
+        for (var k = 0; k < children.size(); ++k) {
+            if (children.get(k).isType(TokenType.DIRECTIVE_NAME)) {
+                return k;
+            }
+        }
+        throw new AssertionError();
+    }
+
+    private static List<Include> scan(String s) throws IOException {
+        var list = new ArrayList<Include>();
+        try (var scanner = IncludeScanner.of(new StringReader(s))) {
+            for (;;) {
+                var maybeInclude = scanner.next();
+                if (maybeInclude.isEmpty()) {
+                    return list;
+                }
+                list.add(maybeInclude.get());
+            }
+        }
+    }
+
+    private static List<Token> parse(String s) throws IOException {
+        var list = new ArrayList<Token>();
+        try (var parser = LexicalParser.of(new StringReader(s))) {
+            for (;;) {
+                var maybeToken = parser.next();
+                if (maybeToken.isEmpty()) {
+                    return list;
+                }
+                var token = maybeToken.get();
+                if (!token.isType(TokenType.DIRECTIVE)) {
+                    continue;
+                }
+                var name = token.getChildren()
+                        .stream()
+                        .filter(t -> t.isType(TokenType.DIRECTIVE_NAME))
+                        .findFirst();
+                if (name.isPresent() && name.get().isValue("include")) {
+                    list.add(token);
+                }
+            }
+        }
+    }
+}
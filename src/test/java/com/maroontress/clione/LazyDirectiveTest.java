@@ -0,0 +1,124 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public final class LazyDirectiveTest {
+
+    private static final String SOURCE = """
+            #include <a/*b.h>
+            #define F(x, y) ((x) ## y) /* multi
+            line */ + "str // not a comment" '"'
+            int f(void);
+            # /* c */ pragma once // trailing
+            %: define X <: 'a :>
+            #error don't "panic
+            #ifdef F
+            #warning x
+            #endif
+            #
+            #unknown 1 2
+            #undef F
+            #line 10 "a.c"
+            #define Y 1 /* unterminated""";
+
+    @Test
+    public void sameAsEager() throws IOException {
+        var options = ParserOptions.DEFAULT;
+        var expected = toStrings(readAll(SOURCE, options), true);
+        var actual = toStrings(readAll(SOURCE,
+                options.withLazyDirectives(true)), true);
+        assertThat(actual, is(expected));
+    }
+
+    @Test
+    public void sameAsEagerWithFlags() throws IOException {
+        for (var trivia : List.of(ParserOptions.Trivia.FLAGS,
+                ParserOptions.Trivia.RANGES)) {
+            var options = ParserOptions.DEFAULT.withTrivia(trivia);
+            var expected = toStrings(readAll(SOURCE, options), false);
+            var actual = toStrings(readAll(SOURCE,
+                    options.withLazyDirectives(true)), false);
+            assertThat(actual, is(expected));
+        }
+    }
+
+    @Test
+    public void sameAsEagerWithTokenTypes() throws IOException {
+        var options = ParserOptions.DEFAULT.withTokenTypes(
+                EnumSet.of(TokenType.DIRECTIVE, TokenType.DIRECTIVE_NAME,
+                        TokenType.IDENTIFIER));
+        var expected = toStrings(readAll(SOURCE, options), false);
+        var actual = toStrings(readAll(SOURCE,
+                options.withLazyDirectives(true)), false);
+        assertThat(actual, is(expected));
+    }
+
+    @Test
+    public void spanCoversLogicalLine() throws IOException {
+        var s = "#define X 1 /* a\nb */ + 2\n#pragma once  ";
+        var options = ParserOptions.DEFAULT
+                .withTrivia(ParserOptions.Trivia.FLAGS)
+                .withLazyDirectives(true);
+        var list = readAll(s, options);
+        assertThat(list.size(), is(2));
+        assertThat(list.get(0).getSpan().toString(), is("L1:1--L2:9"));
+        assertThat(list.get(1).getSpan().toString(), is("L3:1--14"));
+        var children = list.get(1).getChildren();
+        assertThat(children.size(), is(2));
+        assertThat(children.get(1).getValue(), is("once"));
+    }
+
+    @Test
+    public void conditionalsWithOracle() throws IOException {
+        var oracle = MacroOracle.of(Set.of(), Set.of("X"));
+        var options = ParserOptions.DEFAULT.withMacroOracle(oracle)
+                .withTokenTypes(Set.of(TokenType.IDENTIFIER))
+                .withLazyDirectives(true);
+        var s = "#define X\n#ifdef X\na\n#else\nb\n#endif\n#undef X\n"
+                + "#ifdef X\nc\n#endif\n";
+        var values = new ArrayList<String>();
+        for (var t : readAll(s, options)) {
+            values.add(t.getValue());
+        }
+        assertThat(values, is(List.of("a")));
+    }
+
+    private static List<String> toStrings(List<Token> list,
+            boolean withDirectiveSpan) {
+        var strings = new ArrayList<String>();
+        for (var t : list) {
+            var span = (withDirectiveSpan || !t.isType(TokenType.DIRECTIVE))
+                    ? t.getSpan().toString()
+                    : "";
+            strings.add(t.getType() + " " + t.getValue() + " " + span
+                    + " " + t.getFlags()
+                    + " " + t.getLeadingTrivia().map(SourceSpan::toString));
+            strings.addAll(toStrings(t.getChildren(), withDirectiveSpan));
+        }
+        return strings;
+    }
+
+    private static List<Token> readAll(String s, ParserOptions options)
+            throws IOException {
+        var parser = LexicalParser.of(new StringReader(s), "a.c",
+                Keywords.C11, options);
+        var list = new ArrayList<Token>();
+        for (;;) {
+            var token = parser.next();
+            if (token.isEmpty()) {
+                return list;
+            }
+            list.add(token.get());
+        }
+    }
+}
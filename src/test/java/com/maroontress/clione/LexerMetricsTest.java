@@ -0,0 +1,79 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public final class LexerMetricsTest {
+
+    @Test
+    public void counts() throws IOException {
+        var source = """
+                #define X 1
+                ??=define Y 2
+                int a<:2:> = {1, 2};
+                char *s = "a\\
+                b";
+                %:include <stdio.h>
+                """;
+        var m = lex(source, ParserOptions.DEFAULT);
+        assertThat(m.getCharCount(), is((long) source.length()));
+        assertThat(m.getPushbackCount() > 0, is(true));
+        assertThat(m.getTrigraphCount(), is(1L));
+        assertThat(m.getDigraphCount(), is(3L));
+        assertThat(m.getSpliceCount(), is(1L));
+        assertThat(m.getDirectiveCounts(),
+                is(Map.of("define", 2L, "include", 1L)));
+        assertThat(m.getTokenCount(TokenType.DIRECTIVE), is(3L));
+        assertThat(m.getTokenCount(TokenType.DIRECTIVE_NAME), is(3L));
+        assertThat(m.getTokenCount(TokenType.STANDARD_HEADER), is(1L));
+        assertThat(m.getTokenCount(TokenType.STRING), is(1L));
+        assertThat(m.getTokenCount(TokenType.NUMBER), is(5L));
+    }
+
+    @Test
+    public void skippedGroups() throws IOException {
+        var source = """
+                #ifdef A
+                int a;
+                #else
+                int b;
+                #endif
+                """;
+        var oracle = MacroOracle.of(Set.of(), Set.of("A"));
+        var m = lex(source, ParserOptions.DEFAULT.withMacroOracle(oracle));
+        assertThat(m.getCharCount(), is((long) source.length()));
+        assertThat(m.getDirectiveCounts(),
+                is(Map.of("ifdef", 1L, "else", 1L, "endif", 1L)));
+        assertThat(m.getTokenCount(TokenType.IDENTIFIER), is(2L));
+        assertThat(m.getTokenCount(TokenType.RESERVED), is(1L));
+    }
+
+    @Test
+    public void add() throws IOException {
+        var total = new LexerMetrics();
+        total.add(lex("#if 1\nx\n#endif\n", ParserOptions.DEFAULT));
+        total.add(lex("#if 2\n#endif\n", ParserOptions.DEFAULT));
+        assertThat(total.getDirectiveCounts(),
+                is(Map.of("if", 2L, "endif", 2L)));
+        assertThat(total.getTokenCount(TokenType.NUMBER), is(2L));
+        assertThat(total.getCharCount(), is(28L));
+    }
+
+    private static LexerMetrics lex(String source, ParserOptions options)
+            throws IOException {
+        var metrics = new LexerMetrics();
+        var parser = LexicalParser.of(new StringReader(source), "a.c",
+                Keywords.C11, options.withMetrics(metrics));
+        while (parser.next().isPresent()) {
+            continue;
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,109 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class LexicalParserPoolTest {
+
+    @Test
+    public void reuse() throws IOException {
+        var pool = new LexicalParserPool(Keywords.C11, ParserOptions.DEFAULT);
+        var first = pool.acquire(new StringReader("int a;\\\n"), "a.c");
+        var tokens = readAll(first);
+        assertThat(first.getEof().orElseThrow().getChildren().size(), is(2));
+        pool.release(first);
+
+        var second = pool.acquire(new StringReader("#if X\nb\n"), "b.c");
+        assertThat(second == first, is(true));
+        assertThat(second.getFilename(), is("b.c"));
+        var list = readAll(second);
+        assertThat(list.get(0).getType(), is(TokenType.DIRECTIVE));
+        assertThat(list.get(1).getValue(), is("b"));
+        assertThat(list.get(1).getSpan().toString(), is("L2:1"));
+        assertThat(second.getEof().orElseThrow().getChildren().size(),
+                is(0));
+        pool.release(second);
+
+        var a = tokens.get(2);
+        assertThat(a.getValue(), is("a"));
+        assertThat(a.getSpan().toString(), is("L1:5"));
+        assertThat(a.getChars().get(0).getFilename(), is("a.c"));
+    }
+
+    @Test
+    public void resetsConditionals() throws IOException {
+        var oracle = MacroOracle.of(Set.of(), Set.of("X"));
+        var pool = new LexicalParserPool(Keywords.C11,
+                ParserOptions.DEFAULT.withMacroOracle(oracle));
+        var parser = pool.acquire(new StringReader("#ifdef X\na\n"), "a.c");
+        assertThat(values(readAll(parser)), is(List.of("#")));
+        pool.release(parser);
+        parser = pool.acquire(new StringReader("#endif\nb\n"), "b.c");
+        assertThat(values(readAll(parser)), is(List.of("#", "b", "\n")));
+        pool.release(parser);
+    }
+
+    @Test
+    public void concurrent() throws Exception {
+        var pool = new LexicalParserPool(Keywords.C11, ParserOptions.DEFAULT);
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var futures = new ArrayList<Future<Boolean>>();
+            for (var k = 0; k < 100; ++k) {
+                var source = "int x" + k + " = " + k + ";\n";
+                Callable<Boolean> task = () -> {
+                    var parser = pool.acquire(new StringReader(source), "a.c");
+                    try {
+                        return String.join("", values(readAll(parser)))
+                                .equals(source);
+                    } finally {
+                        pool.release(parser);
+                    }
+                };
+                futures.add(executor.submit(task));
+            }
+            for (var f : futures) {
+                assertThat(f.get(), is(true));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void metricsRejected() {
+        var options = ParserOptions.DEFAULT.withMetrics(new LexerMetrics());
+        assertThrows(IllegalArgumentException.class,
+                () -> new LexicalParserPool(Keywords.C11, options));
+    }
+
+    private static List<Token> readAll(LexicalParser parser)
+            throws IOException {
+        var list = new ArrayList<Token>();
+        for (;;) {
+            var maybeToken = parser.next();
+            if (maybeToken.isEmpty()) {
+                return list;
+            }
+            list.add(maybeToken.get());
+        }
+    }
+
+    private static List<String> values(List<Token> tokens) {
+        var list = new ArrayList<String>();
+        tokens.forEach(t -> list.add(t.getValue()));
+        return list;
+    }
+}
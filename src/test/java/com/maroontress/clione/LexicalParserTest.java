@@ -51,6 +51,37 @@ public final class LexicalParserTest {
         test(s, list);
     }
 
+    @Test
+    public void nonAsciiIdentifiers() {
+        var s = "\u5909\u6570 x\uD835\uDC9C\u00e9 a\uD83D\uDE00";
+        var list = List.of(pair("\u5909\u6570", TokenType.IDENTIFIER),
+                pair(" ", TokenType.DELIMITER),
+                pair("x\uD835\uDC9C\u00e9", TokenType.IDENTIFIER),
+                pair(" ", TokenType.DELIMITER),
+                pair("a", TokenType.IDENTIFIER),
+                pair("\uD83D\uDE00", TokenType.UNKNOWN));
+        test(s, list);
+    }
+
+    @Test
+    public void operatorsLongestMatch() {
+        var s = "a..b>>=c<<d->e...f.5";
+        var list = List.of(pair("a", TokenType.IDENTIFIER),
+                pair(".", TokenType.OPERATOR),
+                pair(".", TokenType.OPERATOR),
+                pair("b", TokenType.IDENTIFIER),
+                pair(">>=", TokenType.OPERATOR),
+                pair("c", TokenType.IDENTIFIER),
+                pair("<<", TokenType.OPERATOR),
+                pair("d", TokenType.IDENTIFIER),
+                pair("->", TokenType.OPERATOR),
+                pair("e", TokenType.IDENTIFIER),
+                pair("...", TokenType.PUNCTUATOR),
+                pair("f", TokenType.IDENTIFIER),
+                pair(".5", TokenType.NUMBER));
+        test(s, list);
+    }
+
     @Test
     public void punctuators() {
         test("[ ] ( ) { } , ; : ...", TokenType.PUNCTUATOR);
@@ -371,6 +402,26 @@ public final class LexicalParserTest {
         test(s, list);
     }
 
+    @Test
+    public void directiveAfterDelimiterContainingNewline() {
+        var s = "x; \n\n  #undef x\n%:%: y\n";
+        var childList = List.of(
+                pair("undef", TokenType.DIRECTIVE_NAME),
+                pair(" ", TokenType.DELIMITER),
+                pair("x", TokenType.IDENTIFIER),
+                pair("\n", TokenType.DIRECTIVE_END));
+        var list = List.of(
+                pair("x", TokenType.IDENTIFIER),
+                pair(";", TokenType.PUNCTUATOR),
+                pair(" \n\n  ", TokenType.DELIMITER),
+                pair("#", TokenType.DIRECTIVE, childList),
+                pair("##", TokenType.PUNCTUATOR),
+                pair(" ", TokenType.DELIMITER),
+                pair("y", TokenType.IDENTIFIER),
+                pair("\n", TokenType.DELIMITER));
+        test(s, list);
+    }
+
     @Test
     public void includeDirective0() {
         var s = """
@@ -589,6 +640,39 @@ public final class LexicalParserTest {
         });
     }
 
+    @Test
+    public void offsets() {
+        var s = "ab\r\ncd\n\u3042\ud800\udc00e";
+        test(s, parser -> {
+            var list = new ArrayList<Token>();
+            for (;;) {
+                var maybeToken = parser.next();
+                if (maybeToken.isEmpty()) {
+                    break;
+                }
+                list.add(maybeToken.get());
+            }
+            var starts = list.stream()
+                    .map(t -> t.getSpan().getStart().getOffset())
+                    .collect(Collectors.toList());
+            assertThat(starts, is(List.of(0, 2, 3, 5, 6)));
+            var last = list.get(4);
+            assertThat(last.getSpan().toString(), is("L3:1--3"));
+            var end = last.getSpan().getEnd();
+            assertThat(end.getOffset(), is(9));
+            var where = parser.getLocation();
+            assertThat(where.getOffset(), is(10));
+            assertThat(where.toString(), is("L3:4"));
+        });
+    }
+
+    @Test
+    public void locationWithoutOffset() {
+        var where = new SourceLocation(2, 3);
+        assertThat(where.getOffset(), is(-1));
+        assertThat(where.toString(), is("L2:3"));
+    }
+
     @Test
     public void lineConcatenatesWithTrigraph() {
         var s = """
@@ -623,6 +707,48 @@ public final class LexicalParserTest {
         });
     }
 
+    @Test
+    public void charsBetweenSubstitutedChars() {
+        var s = "\"a??=b\\\nc??/\nd\"";
+        test(s, parser -> {
+            var maybeToken = parser.next();
+            assertThat(maybeToken.isPresent(), is(true));
+            var token = maybeToken.get();
+            assertThat(token.getType(), is(TokenType.STRING));
+            assertThat(token.getValue(), is("\"a#bcd\""));
+            assertThat(token.isValue("\"a#bcd\""), is(true));
+            assertThat(token.getSpan().toString(), is("L1:1--L3:2"));
+
+            var sharpList = List.of(
+                    pair('?', "L1:3"),
+                    pair('?', "L1:4"),
+                    pair('=', "L1:5"));
+            var cList = List.of(
+                    pair('\\', "L1:7"),
+                    pair('\n', "L1:8"),
+                    pair('c', "L2:1"));
+            var trigraphList = List.of(
+                    pair('?', "L2:2"),
+                    pair('?', "L2:3"),
+                    pair('/', "L2:4"));
+            var dList = List.of(
+                    pair('\\', "L2:2--4", trigraphList),
+                    pair('\n', "L2:5"),
+                    pair('d', "L3:1"));
+            var list = List.of(
+                    pair('"', "L1:1"),
+                    pair('a', "L1:2"),
+                    pair('#', "L1:3--5", sharpList),
+                    pair('b', "L1:6"),
+                    pair('c', "L1:7--L2:1", cList),
+                    pair('d', "L2:2--L3:1", dList),
+                    pair('"', "L3:2"));
+            var chars = token.getChars();
+            test(chars, list);
+            assertThat(chars.get(6).getSpan().getStart().getOffset(), is(14));
+        });
+    }
+
     @Test
     public void characterConstant() {
         var s = "'c' L'w' u'u' U'U'";
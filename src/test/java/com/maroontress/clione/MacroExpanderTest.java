@@ -0,0 +1,221 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public final class MacroExpanderTest {
+
+    @Test
+    public void objectLike() throws IOException {
+        var s = """
+                #define A 1 + B
+                #define B A
+                A
+                """;
+        assertThat(expand(s), is("1 + A"));
+    }
+
+    @Test
+    public void stringizeAndPaste() throws IOException {
+        var s = """
+                #define S(x) # x
+                #define CAT(a, b) a ## b
+                S( a  +  "b" ) CAT(x, y) CAT(, y) CAT(x,) CAT(,)
+                """;
+        assertThat(expand(s), is("\"a + \\\"b\\\"\" xy y x"));
+    }
+
+    @Test
+    public void argumentPreExpansion() throws IOException {
+        var s = """
+                #define F(x) x x
+                #define CAT(a, b) a ## b
+                #define G 1
+                F(G) CAT(G, 2)
+                """;
+        assertThat(expand(s), is("1 1 G2"));
+    }
+
+    @Test
+    public void variadic() throws IOException {
+        var s = """
+                #define V(fmt, ...) f(fmt, __VA_ARGS__)
+                V(a, b, (c, d)) V(a)
+                """;
+        assertThat(expand(s), is("f(a, b, (c, d)) f(a, )"));
+    }
+
+    @Test
+    public void functionLikeWithoutArguments() throws IOException {
+        var s = """
+                #define H() h
+                #define K(x) k
+                H + H() + K(1, 2) + K(
+                """;
+        assertThat(expand(s), is("H + h + K(1, 2) + K("));
+    }
+
+    @Test
+    public void rescanWithFollowingTokens() throws IOException {
+        var s = """
+                #define f(a) a*g
+                #define g(a) f(a)
+                f(2)(9)
+                """;
+        assertThat(expand(s), is("2*9*g"));
+    }
+
+    @Test
+    public void cachedObjectLikeMacro() throws IOException {
+        var s = """
+                #define LP F
+                #define F(x) [x]
+                LP(1) LP (2) LP
+                """;
+        var table = new MacroTable();
+        var tokens = parse(s, table);
+        var expander = MacroExpander.of(table, Keywords.C11);
+        assertThat(toString(expander.expand(tokens)), is("[1] [2] F"));
+        assertThat(toString(expander.expand(tokens)), is("[1] [2] F"));
+        table.undef("F");
+        assertThat(toString(expander.expand(tokens)), is("F(1) F (2) F"));
+    }
+
+    @Test
+    public void macroOf() throws IOException {
+        var table = new MacroTable();
+        parse("""
+                #define A
+                #define F(a, b, ...) a /* c */ b
+                #define G() g
+                #define H(a
+                #undef A
+                """, table);
+        assertThat(table.get("A").isPresent(), is(false));
+        assertThat(table.get("H").isPresent(), is(false));
+        var f = table.get("F").get();
+        assertThat(f.isFunctionLike(), is(true));
+        assertThat(f.isVariadic(), is(true));
+        assertThat(f.getParameters(), is(List.of("a", "b", "__VA_ARGS__")));
+        assertThat(toString(f.getReplacement()), is("a b"));
+        var g = table.get("G").get();
+        assertThat(g.isFunctionLike(), is(true));
+        assertThat(g.getParameters().isEmpty(), is(true));
+    }
+
+    @Test
+    public void macroOfWithFoldedTrivia() throws IOException {
+        for (var trivia : List.of(ParserOptions.Trivia.FLAGS,
+                ParserOptions.Trivia.RANGES)) {
+            var table = new MacroTable();
+            parse("""
+                    #define F (x)
+                    #define G(x) x
+                    """, table, ParserOptions.DEFAULT.withTrivia(trivia));
+            var f = table.get("F").get();
+            assertThat(f.isFunctionLike(), is(false));
+            assertThat(toString(f.getReplacement()), is("(x)"));
+            assertThat(table.get("G").get().isFunctionLike(), is(true));
+        }
+    }
+
+    @Test
+    public void stringizeWithFoldedTrivia() throws IOException {
+        var s = """
+                #define S(x) #x
+                S(a  b) S( a+ "c" ) S(  )
+                """;
+        var options = ParserOptions.DEFAULT
+                .withTrivia(ParserOptions.Trivia.FLAGS);
+        var table = new MacroTable();
+        var tokens = parse(s, table, options);
+        var expander = MacroExpander.of(table, Keywords.C11);
+        var values = new ArrayList<String>();
+        for (var t : expander.expand(tokens)) {
+            values.add(t.getValue());
+        }
+        assertThat(values, is(List.of("\"a b\"", "\"a+ \\\"c\\\"\"",
+                "\"\"")));
+    }
+
+    @Test
+    public void macroOfWithoutDelimiters() throws IOException {
+        var s = """
+                #define F (x)
+                #define G(x) x
+                #define H/**/(x)
+                #define S(x) #x
+                S(a  b) S(a/**/b)
+                """;
+        var wanted = EnumSet.complementOf(EnumSet.of(TokenType.COMMENT));
+        var noDelimiters = EnumSet.copyOf(wanted);
+        noDelimiters.remove(TokenType.DELIMITER);
+        var all = List.of(ParserOptions.DEFAULT.withTokenTypes(wanted),
+                ParserOptions.DEFAULT.withTokenTypes(noDelimiters),
+                ParserOptions.DEFAULT.withTokenTypes(noDelimiters)
+                        .withLazyDirectives(true));
+        for (var options : all) {
+            var table = new MacroTable();
+            var tokens = parse(s, table, options);
+            assertThat(table.get("F").get().isFunctionLike(), is(false));
+            assertThat(table.get("G").get().isFunctionLike(), is(true));
+            assertThat(table.get("H").get().isFunctionLike(), is(false));
+            var expander = MacroExpander.of(table, Keywords.C11);
+            var values = new ArrayList<String>();
+            for (var t : expander.expand(tokens)) {
+                if (!Tokens.isDelimiterOrComment(t)) {
+                    values.add(t.getValue());
+                }
+            }
+            assertThat(values, is(List.of("\"a b\"", "\"a b\"")));
+        }
+    }
+
+    private static String expand(String s) throws IOException {
+        var table = new MacroTable();
+        var tokens = parse(s, table);
+        var expander = MacroExpander.of(table, Keywords.C11);
+        return toString(expander.expand(tokens));
+    }
+
+    private static String toString(List<Token> tokens) {
+        var b = new StringBuilder();
+        for (var t : tokens) {
+            b.append(Tokens.isDelimiterOrComment(t) ? " " : t.getValue());
+        }
+        return b.toString().strip();
+    }
+
+    private static List<Token> parse(String s, MacroTable table)
+            throws IOException {
+        return parse(s, table, ParserOptions.DEFAULT);
+    }
+
+    private static List<Token> parse(String s, MacroTable table,
+            ParserOptions options) throws IOException {
+        var list = new ArrayList<Token>();
+        try (var parser = LexicalParser.of(new StringReader(s), "a.c",
+                Keywords.C11, options)) {
+            for (;;) {
+                var maybeToken = parser.next();
+                if (maybeToken.isEmpty()) {
+                    return list;
+                }
+                var token = maybeToken.get();
+                if (token.isType(TokenType.DIRECTIVE)) {
+                    table.accept(token);
+                    continue;
+                }
+                list.add(token);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.maroontress.clione;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SnapshotTest {
+
+    private static final String SOURCE = """
+            #ifndef COMMON_H
+            #define COMMON_H
+            #pragma once
+            #define MAX(a, b) ((a) > (b) ? (a) : (b))
+            #define LOG(fmt, ...) printf(fmt, __VA_ARGS__)
+            #define ANSWER 4\\
+            2
+            ??=define HASH '??/n'
+            /* comment */ int x = MAX(1, ANSWER); // line
+            const char *s = "\\u00e9\uD83D\uDE00";
+            #endif
+            """;
+
+    @Test
+    public void roundTrip() throws IOException {
+        var buffer = lex(SOURCE, "common.h");
+        var table = new MacroTable();
+        var guards = new IncludeGuards();
+        var detector = new GuardDetector();
+        for (var t : buffer) {
+            detector.accept(t);
+            if (t.isType(TokenType.DIRECTIVE)) {
+                table.accept(t);
+            }
+        }
+        var path = Path.of("common.h");
+        guards.record(path, detector);
+        var snapshot = Snapshot.of(Map.of("common.h", buffer), table,
+                guards);
+        var copy = roundTrip(snapshot);
+
+        var newBuffer = copy.getBuffers().get("common.h");
+        assertThat(newBuffer.size(), is(buffer.size()));
+        for (var k = 0; k < buffer.size(); ++k) {
+            assertSameToken(newBuffer.get(k), buffer.get(k));
+        }
+
+        var newTable = copy.newMacroTable();
+        for (var name : List.of("COMMON_H", "MAX", "LOG", "ANSWER",
+                "HASH")) {
+            var expected = table.get(name).orElseThrow();
+            var actual = newTable.get(name).orElseThrow();
+            assertThat(actual.isFunctionLike(),
+                    is(expected.isFunctionLike()));
+            assertThat(actual.isVariadic(), is(expected.isVariadic()));
+            assertThat(actual.getParameters(), is(expected.getParameters()));
+            assertThat(values(actual.getReplacement()),
+                    is(values(expected.getReplacement())));
+        }
+        assertThat(expand("MAX(ANSWER, 1)", newTable),
+                is(expand("MAX(ANSWER, 1)", table)));
+
+        var newGuards = copy.newIncludeGuards();
+        assertThat(newGuards.getGuardMacro(path),
+                is(Optional.of("COMMON_H")));
+        assertThat(newGuards.canSkip(path, n -> false), is(true));
+    }
+
+    @Test
+    public void irregularTokensKeepOffsets() throws IOException {
+        for (var fidelity : ParserOptions.Fidelity.values()) {
+            var options = ParserOptions.DEFAULT
+                    .withFidelity(fidelity)
+                    .withTrivia(ParserOptions.Trivia.RANGES);
+            var parser = LexicalParser.of(new StringReader(SOURCE),
+                    "common.h", Keywords.C11, options);
+            var buffer = TokenBuffer.of(parser);
+            var snapshot = Snapshot.of(Map.of("common.h", buffer),
+                    new MacroTable(), new IncludeGuards());
+            var newBuffer = roundTrip(snapshot).getBuffers().get("common.h");
+            assertThat(newBuffer.size(), is(buffer.size()));
+            for (var k = 0; k < buffer.size(); ++k) {
+                assertSameToken(newBuffer.get(k), buffer.get(k));
+            }
+        }
+    }
+
+    @Test
+    public void copiesAreIndependent() throws IOException {
+        var table = new MacroTable();
+        var snapshot = Snapshot.of(Map.of(), table, new IncludeGuards());
+        table.accept(lex("#define A 1\n", "a.h").get(0));
+        var first = snapshot.newMacroTable();
+        first.accept(lex("#define B 2\n", "b.h").get(0));
+        assertThat(first.get("A").isPresent(), is(false));
+        assertThat(snapshot.newMacroTable().get("B").isPresent(), is(false));
+    }
+
+    @Test
+    public void corrupted() {
+        var in = new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6});
+        assertThrows(StreamCorruptedException.class,
+                () -> Snapshot.readFrom(in));
+    }
+
+    private static Snapshot roundTrip(Snapshot snapshot) throws IOException {
+        var out = new ByteArrayOutputStream();
+        snapshot.writeTo(out);
+        var in = new ByteArrayInputStream(out.toByteArray());
+        return Snapshot.readFrom(in);
+    }
+
+    private static void assertSameToken(Token actual, Token expected) {
+        assertThat(actual.getType(), is(expected.getType()));
+        assertThat(actual.getValue(), is(expected.getValue()));
+        assertSameSpan(actual.getSpan(), expected.getSpan());
+        assertThat(actual.getFlags(), is(expected.getFlags()));
+        var actualTrivia = actual.getLeadingTrivia();
+        var expectedTrivia = expected.getLeadingTrivia();
+        assertThat(actualTrivia.isPresent(), is(expectedTrivia.isPresent()));
+        if (expectedTrivia.isPresent()) {
+            assertSameSpan(actualTrivia.get(), expectedTrivia.get());
+        }
+        var actualChars = actual.getChars();
+        var expectedChars = expected.getChars();
+        assertThat(actualChars.size(), is(expectedChars.size()));
+        for (var k = 0; k < expectedChars.size(); ++k) {
+            assertSameChar(actualChars.get(k), expectedChars.get(k));
+        }
+        var actualChildren = actual.getChildren();
+        var expectedChildren = expected.getChildren();
+        assertThat(actualChildren.size(), is(expectedChildren.size()));
+        for (var k = 0; k < expectedChildren.size(); ++k) {
+            assertSameToken(actualChildren.get(k), expectedChildren.get(k));
+        }
+    }
+
+    private static void assertSameChar(SourceChar actual,
+            SourceChar expected) {
+        assertThat(actual.toChar(), is(expected.toChar()));
+        assertSameSpan(actual.getSpan(), expected.getSpan());
+        var actualChildren = actual.getChildren();
+        var expectedChildren = expected.getChildren();
+        assertThat(actualChildren.size(), is(expectedChildren.size()));
+        for (var k = 0; k < expectedChildren.size(); ++k) {
+            assertSameChar(actualChildren.get(k), expectedChildren.get(k));
+        }
+    }
+
+    private static void assertSameSpan(SourceSpan actual,
+            SourceSpan expected) {
+        assertThat(actual.toString(), is(expected.toString()));
+        assertThat(actual.getStart().getOffset(),
+                is(expected.getStart().getOffset()));
+        assertThat(actual.getEnd().getOffset(),
+                is(expected.getEnd().getOffset()));
+    }
+
+    private static List<String> expand(String source, MacroTable table)
+            throws IOException {
+        var expander = MacroExpander.of(table, Set.of());
+        return values(expander.expand(lex(source, "x.c")));
+    }
+
+    private static List<String> values(List<Token> tokens) {
+        var list = new ArrayList<String>();
+        tokens.forEach(t -> list.add(t.getValue()));
+        return list;
+    }
+
+    private static TokenBuffer lex(String source, String filename)
+            throws IOException {
+        return TokenBuffer.of(LexicalParser.of(new StringReader(source),
+                filename));
+    }
+}
@@ -0,0 +1,113 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class TokenBufferTest {
+
+    private static final String SOURCE = """
+            #include <stdio.h>
+            int ma??/
+            in(void) {
+                return 0; // zero
+            }
+            """;
+
+    @Test
+    public void sameAsParser() throws IOException {
+        var expected = parse(SOURCE);
+        var buffer = newBuffer(SOURCE);
+        assertThat(buffer.size(), is(expected.size()));
+        for (var k = 0; k < expected.size(); ++k) {
+            var e = expected.get(k);
+            var a = buffer.get(k);
+            assertSame(a, e);
+            assertThat(buffer.getType(k), is(e.getType()));
+            assertThat(buffer.getValue(k), is(e.getValue()));
+        }
+    }
+
+    @Test
+    public void subList() throws IOException {
+        var buffer = newBuffer(SOURCE);
+        var sub = buffer.subList(1, 6);
+        assertThat(sub.size(), is(5));
+        assertThat(sub.getValue(0), is("int"));
+        assertThat(sub.getType(0), is(TokenType.RESERVED));
+        assertThat(sub.get(2).getValue(), is("main"));
+        assertThat(sub.get(2).getSpan().toString(), is("L2:5--L3:2"));
+        var subSub = sub.subList(3, 5);
+        assertThat(subSub.getValue(0), is("("));
+        assertThat(subSub.get(1).isValue("void"), is(true));
+        assertThrows(IndexOutOfBoundsException.class, () -> sub.get(5));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> buffer.subList(3, 2));
+    }
+
+    @Test
+    public void directiveChildren() throws IOException {
+        var buffer = newBuffer(SOURCE);
+        var directive = buffer.get(0);
+        assertThat(directive.getType(), is(TokenType.DIRECTIVE));
+        assertThat(directive.getSpan().toString(), is("L1:1--19"));
+        var children = directive.getChildren();
+        assertThat(children.size(), is(4));
+        assertThat(children.get(0).getType(), is(TokenType.DIRECTIVE_NAME));
+        assertThat(children.get(2).getValue(), is("<stdio.h>"));
+        assertThat(children.get(2).getSpan().toString(), is("L1:10--18"));
+        var renamed = directive.withType(TokenType.PUNCTUATOR);
+        assertThat(renamed.getType(), is(TokenType.PUNCTUATOR));
+        assertThat(renamed.getChildren().size(), is(4));
+        assertThat(renamed.getSpan().toString(), is("L1:1--19"));
+    }
+
+    private static void assertSame(Token actual, Token expected) {
+        assertThat(actual.getValue(), is(expected.getValue()));
+        assertThat(actual.getType(), is(expected.getType()));
+        assertThat(actual.getSpan().toString(),
+                is(expected.getSpan().toString()));
+        var actualChars = actual.getChars();
+        var expectedChars = expected.getChars();
+        assertThat(actualChars.size(), is(expectedChars.size()));
+        for (var k = 0; k < expectedChars.size(); ++k) {
+            var a = actualChars.get(k);
+            var e = expectedChars.get(k);
+            assertThat(a.toChar(), is(e.toChar()));
+            assertThat(a.getSpan().toString(), is(e.getSpan().toString()));
+            assertThat(a.getChildren().size(), is(e.getChildren().size()));
+        }
+        var actualChildren = actual.getChildren();
+        var expectedChildren = expected.getChildren();
+        assertThat(actualChildren.size(), is(expectedChildren.size()));
+        for (var k = 0; k < expectedChildren.size(); ++k) {
+            assertSame(actualChildren.get(k), expectedChildren.get(k));
+        }
+    }
+
+    private static TokenBuffer newBuffer(String s) throws IOException {
+        try (var parser = LexicalParser.of(new StringReader(s))) {
+            return TokenBuffer.of(parser);
+        }
+    }
+
+    private static List<Token> parse(String s) throws IOException {
+        var list = new ArrayList<Token>();
+        try (var parser = LexicalParser.of(new StringReader(s))) {
+            for (;;) {
+                var maybeToken = parser.next();
+                if (maybeToken.isEmpty()) {
+                    return list;
+                }
+                list.add(maybeToken.get());
+            }
+        }
+    }
+}
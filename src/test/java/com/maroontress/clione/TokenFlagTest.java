@@ -0,0 +1,139 @@
+package com.maroontress.clione;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public final class TokenFlagTest {
+
+    private static final Set<TokenFlag> NONE = Set.of();
+
+    private static final Set<TokenFlag> SPACE
+            = Set.of(TokenFlag.LEADING_SPACE);
+
+    @Test
+    public void trigraphDigraphAndSplice() throws IOException {
+        var s = "a??(1??) <:2:> b\\\nc x\n%:%: ??/\n?";
+        var list = readAll(s);
+        assertThat(values(list), is(List.of(
+                "a", "[", "1", "]", "[", "2", "]", "bc", "x", "##", "?")));
+        assertThat(list.get(0).getFlags(), is(NONE));
+        assertThat(list.get(1).getFlags(), is(Set.of(TokenFlag.TRIGRAPH)));
+        assertThat(list.get(2).getFlags(), is(NONE));
+        assertThat(list.get(4).getFlags(),
+                is(Set.of(TokenFlag.DIGRAPH, TokenFlag.LEADING_SPACE)));
+        assertThat(list.get(6).getFlags(), is(Set.of(TokenFlag.DIGRAPH)));
+        assertThat(list.get(7).getFlags(),
+                is(Set.of(TokenFlag.SPLICE, TokenFlag.LEADING_SPACE)));
+        assertThat(list.get(8).getFlags(), is(SPACE));
+        assertThat(list.get(9).getFlags(), is(Set.of(TokenFlag.DIGRAPH)));
+        assertThat(list.get(10).getFlags(), is(Set.of(TokenFlag.SPLICE,
+                TokenFlag.TRIGRAPH, TokenFlag.LEADING_SPACE)));
+    }
+
+    @Test
+    public void ucn() throws IOException {
+        var s = "\\u00e9t\u00e9 ab\\U0001F600 \"\\u00e9\" '\\u12' x";
+        var list = readAll(s);
+        assertThat(list.size(), is(5));
+        assertThat(list.get(0).getFlags(), is(Set.of(TokenFlag.UCN)));
+        for (var k = 1; k < 3; ++k) {
+            assertThat(list.get(k).getFlags(),
+                    is(Set.of(TokenFlag.UCN, TokenFlag.LEADING_SPACE)));
+        }
+        assertThat(list.get(3).getFlags(), is(SPACE));
+        assertThat(list.get(4).getFlags(), is(SPACE));
+    }
+
+    @Test
+    public void unterminated() throws IOException {
+        var s = "\"abc\n'x\n\"ok\" 'y'\n#include <a.h\n/* end";
+        var list = readAll(s);
+        var flags = new ArrayList<Boolean>();
+        for (var t : list) {
+            flags.add(t.hasFlag(TokenFlag.UNTERMINATED));
+        }
+        assertThat(flags, is(List.of(true, true, false, false, false, true)));
+        var header = list.get(4).getChildren().get(1);
+        assertThat(header.getType(), is(TokenType.STANDARD_HEADER));
+        assertThat(header.hasFlag(TokenFlag.UNTERMINATED), is(true));
+    }
+
+    @Test
+    public void flagsWithFoldedTrivia() throws IOException {
+        var s = "x\n  <%";
+        var options = ParserOptions.DEFAULT
+                .withTrivia(ParserOptions.Trivia.FLAGS);
+        var list = readAll(s, options);
+        assertThat(list.get(1).getFlags(), is(EnumSet.of(TokenFlag.DIGRAPH,
+                TokenFlag.LEADING_SPACE, TokenFlag.START_OF_LINE)));
+    }
+
+    @Test
+    public void bufferAndSnapshotKeepFlags() throws IOException {
+        var s = "\"abc\n\\u00e9 <: a??( b\\\nc /* end";
+        var expected = toStrings(readAll(s));
+        var parser = LexicalParser.of(new StringReader(s), "a.c",
+                Keywords.C11, newOptions());
+        var buffer = TokenBuffer.of(parser);
+        var snapshot = Snapshot.of(Map.of("a.c", buffer), new MacroTable(),
+                new IncludeGuards());
+        var out = new ByteArrayOutputStream();
+        snapshot.writeTo(out);
+        var in = new ByteArrayInputStream(out.toByteArray());
+        var copy = Snapshot.readFrom(in).getBuffers().get("a.c");
+        for (var actual : List.of(buffer, copy)) {
+            assertThat(toStrings(actual), is(expected));
+        }
+    }
+
+    private static List<String> toStrings(List<Token> list) {
+        var strings = new ArrayList<String>();
+        for (var t : list) {
+            strings.add(t.getValue() + " " + t.getFlags());
+        }
+        return strings;
+    }
+
+    private static List<String> values(List<Token> list) {
+        var values = new ArrayList<String>();
+        for (var t : list) {
+            values.add(t.getValue());
+        }
+        return values;
+    }
+
+    private static ParserOptions newOptions() {
+        var types = EnumSet.complementOf(EnumSet.of(TokenType.DELIMITER));
+        return ParserOptions.DEFAULT.withTokenTypes(types);
+    }
+
+    private static List<Token> readAll(String s) throws IOException {
+        return readAll(s, newOptions());
+    }
+
+    private static List<Token> readAll(String s, ParserOptions options)
+            throws IOException {
+        var parser = LexicalParser.of(new StringReader(s), "a.c",
+                Keywords.C11, options);
+        var list = new ArrayList<Token>();
+        for (;;) {
+            var token = parser.next();
+            if (token.isEmpty()) {
+                return list;
+            }
+            list.add(token.get());
+        }
+    }
+}
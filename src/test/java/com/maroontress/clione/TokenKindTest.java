@@ -0,0 +1,145 @@
+package com.maroontress.clione;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public final class TokenKindTest {
+
+    private static final String SOURCE = """
+            #define CAT(a, b) a ## b %:%: #a
+            int main(void) <%
+                x->y <<= a[1] <: 2 :> ... ? .5 : c;
+                _Bool b = true; %:%: %:
+            %>
+            """;
+
+    @Test
+    public void kinds() throws IOException {
+        var list = readAll(SOURCE, Keywords.C23);
+        var kinds = new ArrayList<TokenKind>();
+        for (var t : list) {
+            if (t.getKind() != TokenKind.NONE) {
+                kinds.add(t.getKind());
+            }
+        }
+        assertThat(kinds, is(List.of(
+                TokenKind.INT, TokenKind.LEFT_PAREN, TokenKind.VOID,
+                TokenKind.RIGHT_PAREN, TokenKind.LEFT_BRACE, TokenKind.ARROW,
+                TokenKind.LESS_LESS_EQUAL, TokenKind.LEFT_BRACKET,
+                TokenKind.RIGHT_BRACKET, TokenKind.LEFT_BRACKET,
+                TokenKind.RIGHT_BRACKET, TokenKind.ELLIPSIS,
+                TokenKind.QUESTION, TokenKind.COLON, TokenKind.SEMICOLON,
+                TokenKind._BOOL, TokenKind.EQUAL, TokenKind.TRUE,
+                TokenKind.SEMICOLON, TokenKind.HASH_HASH, TokenKind.HASH,
+                TokenKind.RIGHT_BRACE)));
+        var children = list.get(0).getChildren();
+        var directiveKinds = new ArrayList<TokenKind>();
+        for (var t : children) {
+            if (t.getKind() != TokenKind.NONE) {
+                directiveKinds.add(t.getKind());
+            }
+        }
+        assertThat(directiveKinds, is(List.of(
+                TokenKind.LEFT_PAREN, TokenKind.COMMA, TokenKind.RIGHT_PAREN,
+                TokenKind.HASH_HASH, TokenKind.HASH_HASH, TokenKind.HASH)));
+    }
+
+    @Test
+    public void sameAsLookup() throws IOException {
+        for (var t : flatten(readAll(SOURCE, Keywords.C11))) {
+            var expected = TokenKind.of(t.getType(), t.getValue());
+            assertThat(t.getKind(), is(expected));
+        }
+    }
+
+    @Test
+    public void otherReservedWordsHaveNoKind() throws IOException {
+        var list = readAll("true foo int", Set.of("foo", "int"));
+        assertThat(list.get(0).getKind(), is(TokenKind.NONE));
+        assertThat(list.get(2).getType(), is(TokenType.RESERVED));
+        assertThat(list.get(2).getKind(), is(TokenKind.NONE));
+        assertThat(list.get(4).getKind(), is(TokenKind.INT));
+    }
+
+    @Test
+    public void spellings() {
+        assertThat(TokenKind.ofSpelling("<:"), is(TokenKind.LEFT_BRACKET));
+        assertThat(TokenKind.ofSpelling("%:%:"), is(TokenKind.HASH_HASH));
+        assertThat(TokenKind.ofSpelling("_Static_assert"),
+                is(TokenKind._STATIC_ASSERT));
+        assertThat(TokenKind.ofSpelling("/*"), is(TokenKind.NONE));
+        assertThat(TokenKind.ARROW.getSpelling(), is("->"));
+        assertThat(TokenKind.ARROW.isPunctuator(), is(true));
+        assertThat(TokenKind.ARROW.isKeyword(), is(false));
+        assertThat(TokenKind.WHILE.isKeyword(), is(true));
+        assertThat(TokenKind.NONE.isPunctuator(), is(false));
+        assertThat(TokenKind.NONE.isKeyword(), is(false));
+        for (var k : TokenKind.values()) {
+            if (k != TokenKind.NONE) {
+                assertThat(TokenKind.ofSpelling(k.getSpelling()), is(k));
+            }
+        }
+    }
+
+    @Test
+    public void bufferAndSnapshotKeepKinds() throws IOException {
+        var parser = LexicalParser.of(new StringReader(SOURCE), "a.c",
+                Keywords.C23, ParserOptions.DEFAULT);
+        var expected = toKinds(readAll(SOURCE, Keywords.C23));
+        var buffer = TokenBuffer.of(parser);
+        var snapshot = Snapshot.of(Map.of("a.c", buffer), new MacroTable(),
+                new IncludeGuards());
+        var out = new ByteArrayOutputStream();
+        snapshot.writeTo(out);
+        var in = new ByteArrayInputStream(out.toByteArray());
+        var copy = Snapshot.readFrom(in).getBuffers().get("a.c");
+        for (var actual : List.of(buffer, copy)) {
+            assertThat(toKinds(actual), is(expected));
+            for (var k = 0; k < actual.size(); ++k) {
+                assertThat(actual.getKind(k), is(actual.get(k).getKind()));
+            }
+        }
+    }
+
+    private static List<TokenKind> toKinds(List<Token> list) {
+        var kinds = new ArrayList<TokenKind>();
+        for (var t : flatten(list)) {
+            kinds.add(t.getKind());
+        }
+        return kinds;
+    }
+
+    private static List<Token> flatten(List<Token> list) {
+        var all = new ArrayList<Token>();
+        for (var t : list) {
+            all.add(t);
+            all.addAll(flatten(t.getChildren()));
+        }
+        return all;
+    }
+
+    private static List<Token> readAll(String s, Set<String> reservedWords)
+            throws IOException {
+        var parser = LexicalParser.of(new StringReader(s), "a.c",
+                reservedWords, ParserOptions.DEFAULT);
+        var list = new ArrayList<Token>();
+        for (;;) {
+            var token = parser.next();
+            if (token.isEmpty()) {
+                return list;
+            }
+            list.add(token.get());
+        }
+    }
+}
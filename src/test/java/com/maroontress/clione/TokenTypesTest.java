@@ -0,0 +1,122 @@
+package com.maroontress.clione;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public final class TokenTypesTest {
+
+    private static final Set<TokenType> NO_TRIVIA = EnumSet.complementOf(
+            EnumSet.of(TokenType.DELIMITER, TokenType.COMMENT));
+
+    private static final String SOURCE = """
+            /* header */ #include <stdio.h> // trailing
+            int main(void) { // comment
+                int a = 1 / 2 /= 3; /* multi
+                line */ a /**/ ++;
+            \t#  /* c */ define X(a) a ## /* c */ a
+            #if defined X /*
+            */ && 1
+            char *s = "/* not a comment */";
+            #endif
+            %: define Y <% %>
+            x / \\
+            / spliced comment
+            return 0;
+            }
+            /* unterminated""";
+
+    @Test
+    public void sameAsFiltering() throws IOException {
+        for (var types : List.of(NO_TRIVIA,
+                EnumSet.complementOf(EnumSet.of(TokenType.DELIMITER)),
+                EnumSet.complementOf(EnumSet.of(TokenType.COMMENT)),
+                EnumSet.of(TokenType.IDENTIFIER, TokenType.DIRECTIVE,
+                        TokenType.DIRECTIVE_NAME))) {
+            var expected = new ArrayList<String>();
+            for (var t : readTokens(SOURCE, ParserOptions.DEFAULT)) {
+                if (types.contains(t.getType())) {
+                    expected.add(toString(t, types));
+                }
+            }
+            var actual = new ArrayList<String>();
+            var options = ParserOptions.DEFAULT.withTokenTypes(types);
+            for (var t : readTokens(SOURCE, options)) {
+                actual.add(toString(t, types));
+            }
+            assertThat(actual, is(expected));
+        }
+    }
+
+    @Test
+    public void directiveAfterSkippedNewline() throws IOException {
+        var s = "a /* x */\n  #define X\n";
+        var list = readTokens(s, ParserOptions.DEFAULT.withTokenTypes(
+                NO_TRIVIA));
+        assertThat(list.size(), is(2));
+        var directive = list.get(1);
+        assertThat(directive.getType(), is(TokenType.DIRECTIVE));
+        var children = directive.getChildren();
+        assertThat(children.size(), is(3));
+        assertThat(children.get(0).getValue(), is("define"));
+        assertThat(children.get(1).getValue(), is("X"));
+        assertThat(children.get(2).getType(), is(TokenType.DIRECTIVE_END));
+        assertThat(children.get(1).getSpan().toString(), is("L2:11"));
+    }
+
+    @Test
+    public void conditionalsWithoutDirectives() throws IOException {
+        var oracle = MacroOracle.of(Set.of(), Set.of("X"));
+        var options = ParserOptions.DEFAULT.withMacroOracle(oracle)
+                .withTokenTypes(Set.of(TokenType.IDENTIFIER));
+        var s = "#ifdef X\na\n#else\nb\n#endif\nc\n";
+        var values = new ArrayList<String>();
+        for (var t : readTokens(s, options)) {
+            values.add(t.getValue());
+        }
+        assertThat(values, is(List.of("b", "c")));
+    }
+
+    private static List<Token> readTokens(String s, ParserOptions options)
+            throws IOException {
+        var parser = LexicalParser.of(new StringReader(s), null,
+                Keywords.C11, options);
+        var list = new ArrayList<Token>();
+        for (;;) {
+            var token = parser.next();
+            if (token.isEmpty()) {
+                return list;
+            }
+            list.add(token.get());
+        }
+    }
+
+    private static String toString(Token token, Set<TokenType> types) {
+        // The span of the directive covers only the child tokens that the
+        // parser returns.
+        var b = new StringBuilder();
+        b.append(token.getType())
+                .append(' ')
+                .append(token.getValue());
+        if (!token.isType(TokenType.DIRECTIVE)) {
+            b.append(' ')
+                    .append(token.getSpan());
+        }
+        for (var c : token.getChildren()) {
+            if (types.contains(c.getType())) {
+                b.append(" [")
+                        .append(toString(c, types))
+                        .append(']');
+            }
+        }
+        return b.toString();
+    }
+}
@@ -3,6 +3,7 @@ package com.maroontress.clione;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -87,6 +88,35 @@ public final class TokensTest {
         assertThat(t.getValue(), is("+-"));
     }
 
+    @Test
+    public void concatenateStringPrefixTwice() {
+        var left = newToken("u8");
+        var right = newToken("\"x\"");
+        for (var k = 0; k < 2; ++k) {
+            var t = Tokens.concatenate(left, right, Set.of());
+            assertThat(t.getType(), is(TokenType.STRING));
+            assertThat(t.getValue(), is("u8\"x\""));
+        }
+        var t = Tokens.concatenate(right, left, Set.of());
+        assertThat(t.getType(), is(TokenType.UNKNOWN));
+        assertThat(t.getValue(), is("\"x\"u8"));
+    }
+
+    @Test
+    void stringizeValueMatchesChars() {
+        var list = newTokenList("""
+            a ??/
+            ??= %: "\\\\"
+            """);
+        var where = new SourceLocation(1, 1);
+        var result = Tokens.stringize(list, where);
+
+        assertThat(result.getValue(), is("\"a # # \\\"\\\\\\\\\\\"\""));
+        var b = new StringBuilder();
+        result.getChars().forEach(c -> b.append(c.toChar()));
+        assertThat(b.toString(), is(result.getValue()));
+    }
+
     @Test
     void stringizeEmpty() {
         var where = new SourceLocation(1, 1);
@@ -196,6 +226,17 @@ public final class TokensTest {
         test(result, list);
     }
 
+    @Test
+    void reparseIncludeFilenameAcrossTokens() {
+        var tokens = new ArrayDeque<>(newTokenList("<std/**/io.h> // c"));
+        var result = Tokens.reparseIncludeFilename(tokens, "test.c", Set.of());
+        var list = List.of(
+                pair("<std/**/io.h>", TokenType.STANDARD_HEADER),
+                pair(" ", TokenType.DELIMITER),
+                pair("// c", TokenType.COMMENT));
+        test(result, list);
+    }
+
     @Test
     void reparseIncludeFilenameInvalid() {
         var tokens = newTokenList("stdio.h");
@@ -0,0 +1,131 @@
+package com.maroontress.clione;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public final class TriviaTest {
+
+    private static final Set<TokenFlag> NONE = Set.of();
+    private static final Set<TokenFlag> SPACE
+            = Set.of(TokenFlag.LEADING_SPACE);
+    private static final Set<TokenFlag> LINE
+            = Set.of(TokenFlag.START_OF_LINE);
+    private static final Set<TokenFlag> BOTH
+            = Set.of(TokenFlag.LEADING_SPACE, TokenFlag.START_OF_LINE);
+
+    @Test
+    public void flags() throws IOException {
+        var s = "#define F(x) x\n"
+                + "#define G (x)\n"
+                + "  a  /* c */b\n"
+                + "c /*\n*/ d\n";
+        var list = readAll(s, ParserOptions.Trivia.FLAGS);
+        var values = new ArrayList<String>();
+        for (var t : list) {
+            values.add(t.getValue());
+        }
+        assertThat(values, is(List.of("#", "#", "a", "b", "c", "d")));
+        assertThat(list.get(0).getFlags(), is(LINE));
+        var f = list.get(0).getChildren();
+        assertThat(f.get(1).getValue(), is("F"));
+        assertThat(f.get(1).getFlags(), is(SPACE));
+        assertThat(f.get(2).getValue(), is("("));
+        assertThat(f.get(2).getFlags(), is(NONE));
+        var g = list.get(1).getChildren();
+        assertThat(g.get(2).getValue(), is("("));
+        assertThat(g.get(2).hasFlag(TokenFlag.LEADING_SPACE), is(true));
+        assertThat(list.get(2).getFlags(), is(BOTH));
+        assertThat(list.get(3).getFlags(), is(SPACE));
+        assertThat(list.get(4).getFlags(), is(LINE));
+        assertThat(list.get(5).getFlags(), is(SPACE));
+        assertThat(list.get(5).getLeadingTrivia().isPresent(), is(false));
+    }
+
+    @Test
+    public void tokensHaveNoFlags() throws IOException {
+        var list = readAll("  a b", ParserOptions.Trivia.TOKENS);
+        assertThat(list.size(), is(4));
+        for (var t : list) {
+            assertThat(t.getFlags(), is(NONE));
+        }
+    }
+
+    @Test
+    public void ranges() throws IOException {
+        var list = readAll("a /* c */ b\n#x // y\n",
+                ParserOptions.Trivia.RANGES);
+        assertThat(list.size(), is(3));
+        assertThat(list.get(0).getLeadingTrivia().isPresent(), is(false));
+        var b = list.get(1);
+        assertThat(b.getLeadingTrivia().orElseThrow().toString(),
+                is("L1:2--10"));
+        var directive = list.get(2);
+        assertThat(directive.getLeadingTrivia().orElseThrow().toString(),
+                is("L1:12"));
+        var end = directive.getChildren().get(1);
+        assertThat(end.getType(), is(TokenType.DIRECTIVE_END));
+        assertThat(end.getLeadingTrivia().orElseThrow().toString(),
+                is("L2:3--7"));
+    }
+
+    @Test
+    public void bufferAndSnapshotKeepFlags() throws IOException {
+        var s = "int  x; /* c */\n  #define Y  ??=\n";
+        var parser = LexicalParser.of(new StringReader(s), "a.c",
+                Keywords.C11,
+                ParserOptions.DEFAULT.withTrivia(ParserOptions.Trivia.RANGES));
+        var expected = readAll(parser);
+        parser = LexicalParser.of(new StringReader(s), "a.c", Keywords.C11,
+                ParserOptions.DEFAULT.withTrivia(ParserOptions.Trivia.RANGES));
+        var buffer = TokenBuffer.of(parser);
+        var snapshot = Snapshot.of(Map.of("a.c", buffer), new MacroTable(),
+                new IncludeGuards());
+        var out = new ByteArrayOutputStream();
+        snapshot.writeTo(out);
+        var in = new ByteArrayInputStream(out.toByteArray());
+        var copy = Snapshot.readFrom(in).getBuffers().get("a.c");
+        for (var actual : List.of(buffer, copy)) {
+            assertThat(toStrings(actual), is(toStrings(expected)));
+        }
+    }
+
+    private static List<String> toStrings(List<Token> list) {
+        var strings = new ArrayList<String>();
+        for (var t : list) {
+            strings.add(t.getValue() + " " + t.getFlags()
+                    + " " + t.getLeadingTrivia().map(SourceSpan::toString));
+            strings.addAll(toStrings(t.getChildren()));
+        }
+        return strings;
+    }
+
+    private static List<Token> readAll(String s, ParserOptions.Trivia trivia)
+            throws IOException {
+        var options = ParserOptions.DEFAULT.withTrivia(trivia);
+        return readAll(LexicalParser.of(new StringReader(s), null,
+                Keywords.C11, options));
+    }
+
+    private static List<Token> readAll(LexicalParser parser)
+            throws IOException {
+        var list = new ArrayList<Token>();
+        for (;;) {
+            var token = parser.next();
+            if (token.isEmpty()) {
+                return list;
+            }
+            list.add(token.get());
+        }
+    }
+}
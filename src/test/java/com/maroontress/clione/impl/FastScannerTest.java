@@ -0,0 +1,43 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public final class FastScannerTest {
+
+    @Test
+    public void nonAsciiIdentifiers() throws IOException {
+        var s = "変数 𠮷野家1 aéb é😀";
+        var source = new BufferSource(new StringReader(s), "a.c", true);
+        var scanner = new FastScanner(source, Switches.of(true), true);
+        var values = new ArrayList<String>();
+        for (;;) {
+            var token = scanner.scan(false);
+            if (token == null) {
+                break;
+            }
+            values.add(token.getValue());
+        }
+        assertEquals(List.of("変数", " ", "𠮷野家1", " ",
+                "aéb", " ", "é"), values);
+        // U+1F600 is not part of any identifier.
+        assertEquals(s.length() - 2, source.getLocation().getOffset());
+    }
+
+    @Test
+    public void giveUp() throws IOException {
+        for (var s : List.of("×", "\uD842", "\uDFB7a", "\uD842a")) {
+            var source = new BufferSource(new StringReader(s), "a.c", true);
+            var scanner = new FastScanner(source, Switches.of(true), true);
+            assertNull(scanner.scan(false));
+            assertEquals(0, source.getLocation().getOffset());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.maroontress.clione.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class IdentifierCharsTest {
+
+    @Test
+    public void sameAsCharacter() {
+        for (var c = 0; c <= Character.MAX_CODE_POINT; ++c) {
+            var isName = c < 0x80 && Chars.isName((char) c);
+            assertEquals(Character.isUnicodeIdentifierStart(c),
+                    IdentifierChars.isStart(c));
+            assertEquals(Character.isUnicodeIdentifierPart(c) || isName,
+                    IdentifierChars.isPart(c));
+        }
+    }
+}
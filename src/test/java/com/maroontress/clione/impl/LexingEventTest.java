@@ -0,0 +1,98 @@
+package com.maroontress.clione.impl;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.maroontress.clione.Keywords;
+import com.maroontress.clione.ParserOptions;
+import com.maroontress.clione.TokenType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class LexingEventTest {
+
+    private static final String LEXING = "com.maroontress.clione.Lexing";
+    private static final String SLOW_TOKEN
+            = "com.maroontress.clione.SlowToken";
+
+    private static final String SOURCE = "int x; /* comment */\n";
+
+    @Test
+    public void events() throws IOException {
+        var events = record(() -> new DefaultLexicalParser(
+                new StringReader(SOURCE), "a.c", Keywords.C11));
+        var lexing = select(events, LEXING);
+        assertEquals(1, lexing.size());
+        var e = lexing.get(0);
+        assertEquals("a.c", e.getString("filename"));
+        assertEquals((long) SOURCE.length(), e.getLong("characters"));
+        assertEquals(7L, e.getLong("tokens"));
+        var lexingTime = e.getDuration("lexingTime");
+        assertTrue(lexingTime.compareTo(Duration.ZERO) > 0);
+        assertTrue(lexingTime.compareTo(e.getDuration()) <= 0);
+
+        var tokens = select(events, SLOW_TOKEN);
+        assertEquals(7, tokens.size());
+        var comment = tokens.stream()
+                .filter(t -> t.getString("tokenType").equals("COMMENT"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1, comment.getInt("line"));
+        assertEquals(8, comment.getInt("column"));
+        assertEquals(13, comment.getInt("length"));
+        assertTrue(tokens.stream()
+                .allMatch(t -> t.getString("filename").equals("a.c")));
+    }
+
+    @Test
+    public void tokensExcludeDiscardedOnes() throws IOException {
+        var types = EnumSet.complementOf(EnumSet.of(TokenType.DELIMITER,
+                TokenType.COMMENT));
+        var options = ParserOptions.DEFAULT.withTokenTypes(types);
+        var events = record(() -> new DefaultLexicalParser(
+                new StringReader(SOURCE), "a.c", Keywords.C11, options));
+        var lexing = select(events, LEXING);
+        assertEquals(1, lexing.size());
+        assertEquals(3L, lexing.get(0).getLong("tokens"));
+    }
+
+    private static List<RecordedEvent> record(
+            Supplier<DefaultLexicalParser> supplier) throws IOException {
+        try (var r = new Recording()) {
+            r.enable(LEXING);
+            r.enable(SLOW_TOKEN).withThreshold(Duration.ZERO);
+            r.start();
+            var parser = supplier.get();
+            while (parser.next().isPresent()) {
+                continue;
+            }
+            parser.close();
+            r.stop();
+            var file = Files.createTempFile("clione", ".jfr");
+            try {
+                r.dump(file);
+                return RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static List<RecordedEvent> select(List<RecordedEvent> events,
+                                              String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,64 @@
+package com.maroontress.clione.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class LineIndexTest {
+
+    @Test
+    public void lineAndColumn() {
+        // "ab\ncd\n\nef"
+        var index = new LineIndex(null);
+        index.addLineStart(3);
+        index.addLineStart(6);
+        index.addLineStart(7);
+        assertEquals(1, index.getLine(0));
+        assertEquals(1, index.getColumn(0));
+        assertEquals(1, index.getLine(2));
+        assertEquals(3, index.getColumn(2));
+        assertEquals(2, index.getLine(3));
+        assertEquals(1, index.getColumn(3));
+        assertEquals(3, index.getLine(6));
+        assertEquals(1, index.getColumn(6));
+        assertEquals(4, index.getLine(8));
+        assertEquals(2, index.getColumn(8));
+    }
+
+    @Test
+    public void surrogatePairs() {
+        // "a[HL][HL]\n[HL]b"
+        var index = new LineIndex(null);
+        index.addLowSurrogate(2);
+        index.addLowSurrogate(4);
+        index.addLineStart(6);
+        index.addLowSurrogate(7);
+        assertEquals(2, index.getColumn(1));
+        assertEquals(2, index.getColumn(2));
+        assertEquals(3, index.getColumn(3));
+        assertEquals(3, index.getColumn(4));
+        assertEquals(4, index.getColumn(5));
+        assertEquals(1, index.getColumn(6));
+        assertEquals(1, index.getColumn(7));
+        assertEquals(2, index.getColumn(8));
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        var index = new LineIndex("foo.c");
+        for (var k = 1; k < 1000; ++k) {
+            index.addLineStart(k * 2);
+        }
+        assertEquals("foo.c", index.getFilename());
+        assertEquals(500, index.getLine(999));
+        assertEquals(2, index.getColumn(999));
+        assertEquals(1000, index.getLine(5000));
+    }
+
+    @Test
+    public void negativeOffset() {
+        var index = new LineIndex(null);
+        assertThrows(IllegalArgumentException.class, () -> index.getLine(-1));
+    }
+}